@@ -0,0 +1,48 @@
+package com.hry.firstjava;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热点 key 计数：AtomicLong 与 LongAdder 分条计数的吞吐量对比（8 个线程写同一个 key）
+ *
+ * 运行：
+ * mvn install                      （上级目录）
+ * mvn package && java -jar target/benchmarks.jar CounterBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(8)
+@State(Scope.Benchmark)
+public class CounterBenchmark {
+    @Param({"ATOMIC", "STRIPED"})
+    private String mode;
+
+    private ThreadSafeCounter counter;
+
+    @Setup
+    public void setUp() {
+        counter = new ThreadSafeCounter(ThreadSafeCounter.Mode.valueOf(mode));
+        counter.increment("hot");
+    }
+
+    @Benchmark
+    public void incrementHotKey() {
+        counter.increment("hot");
+    }
+}
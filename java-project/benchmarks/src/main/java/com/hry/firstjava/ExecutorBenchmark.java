@@ -0,0 +1,73 @@
+package com.hry.firstjava;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 10000 个同时提交的阻塞任务（每个 sleep 10 ms）：固定平台线程池与虚拟线程的对比
+ *
+ * 每次操作提交全部任务并等待完成，分数是一批任务的耗时。
+ * 内存对比加上 GC profiler：-prof gc 给出每批分配的字节数（虚拟线程的栈在堆上，
+ * 会计入；平台线程的栈是本地内存，不计入，需要另看 RSS）。
+ *
+ * 运行：
+ * mvn install                      （上级目录）
+ * mvn package && java -jar target/benchmarks.jar ExecutorBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecutorBenchmark {
+    private static final int TASKS = 10_000;
+
+    /** 执行方式：并发上限 */
+    @Param({"PLATFORM:200", "VIRTUAL:10000", "VIRTUAL:1000"})
+    private String executor;
+
+    private ExecutorService service;
+
+    @Setup
+    public void setUp() {
+        String[] parts = executor.split(":");
+        service = TaskExecutors.newExecutor(TaskExecutors.Mode.valueOf(parts[0]), Integer.parseInt(parts[1]));
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        service.shutdown();
+        service.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    @Benchmark
+    public void blockingTasks() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            service.execute(() -> {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+    }
+}
@@ -0,0 +1,70 @@
+package com.hry.firstjava;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 深层对象图（Category 树）的序列化：输出到 String、OutputStream 和复用的 ByteBuffer
+ *
+ * 主要看分配量而不是耗时：-prof gc 的 gc.alloc.rate.norm 是每次序列化分配的字节数。
+ * 写入流和 ByteBuffer 时复用线程缓冲区与缓存的 JsonClassPlan，对比不同 depth 的结果
+ * 可以看出分配是否随节点数增长；输出 String 时多出结果字符串本身。
+ *
+ * 运行：
+ * mvn install                      （上级目录）
+ * mvn package && java -jar target/benchmarks.jar JsonSerializerBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class JsonSerializerBenchmark {
+
+    /** 树的层数，每层 3 个子节点（6 层共 364 个节点） */
+    @Param({"4", "6"})
+    private int depth;
+
+    private Category root;
+    private OutputStream sink;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setup() {
+        root = Category.build(depth, 3);
+        sink = OutputStream.nullOutputStream();
+        buffer = ByteBuffer.allocate(1 << 20);
+    }
+
+    @Benchmark
+    public String toJsonString() {
+        return JsonSerializer.toJson(root);
+    }
+
+    @Benchmark
+    public void toJsonStream() throws IOException {
+        JsonSerializer.toJson(root, sink);
+    }
+
+    @Benchmark
+    public ByteBuffer toJsonBuffer() {
+        buffer.clear();
+        JsonSerializer.toJson(root, buffer);
+        return buffer;
+    }
+}
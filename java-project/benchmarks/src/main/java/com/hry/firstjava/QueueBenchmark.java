@@ -0,0 +1,163 @@
+package com.hry.firstjava;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Control;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 有界队列吞吐量：ArrayBlockingQueue / LinkedBlockingQueue 与 RingBlockingQueue 的对比
+ *
+ * 三组线程配比：mpmc（2 生产 2 消费）、mpsc（3 生产 1 消费）、spsc（1 生产 1 消费），
+ * 每组只比较适用于该配比的实现。结果中 offer 和 poll 的吞吐量应接近，取其一即可。
+ *
+ * 运行：
+ * mvn install                      （上级目录）
+ * mvn package && java -jar target/benchmarks.jar QueueBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class QueueBenchmark {
+    private static final int CAPACITY = 1024;
+    private static final Object ELEMENT = new Object();
+
+    @State(Scope.Group)
+    public static class MpmcQueue {
+        @Param({"ArrayBlockingQueue", "LinkedBlockingQueue", "RingMpmc"})
+        private String mpmcImpl;
+
+        private BlockingQueue<Object> queue;
+
+        @Setup
+        public void setUp() {
+            queue = create(mpmcImpl);
+        }
+    }
+
+    @State(Scope.Group)
+    public static class MpscQueue {
+        @Param({"ArrayBlockingQueue", "LinkedBlockingQueue", "RingMpmc", "RingMpsc"})
+        private String mpscImpl;
+
+        private BlockingQueue<Object> queue;
+
+        @Setup
+        public void setUp() {
+            queue = create(mpscImpl);
+        }
+    }
+
+    @State(Scope.Group)
+    public static class SpscQueue {
+        @Param({"ArrayBlockingQueue", "LinkedBlockingQueue", "RingMpmc", "RingSpsc"})
+        private String spscImpl;
+
+        private BlockingQueue<Object> queue;
+
+        @Setup
+        public void setUp() {
+            queue = create(spscImpl);
+        }
+    }
+
+    @Benchmark
+    @Group("mpmc")
+    @GroupThreads(2)
+    public boolean mpmcOffer(MpmcQueue state, Control control) {
+        return offer(state.queue, control);
+    }
+
+    @Benchmark
+    @Group("mpmc")
+    @GroupThreads(2)
+    public Object mpmcPoll(MpmcQueue state, Control control) {
+        return poll(state.queue, control);
+    }
+
+    @Benchmark
+    @Group("mpsc")
+    @GroupThreads(3)
+    public boolean mpscOffer(MpscQueue state, Control control) {
+        return offer(state.queue, control);
+    }
+
+    @Benchmark
+    @Group("mpsc")
+    @GroupThreads(1)
+    public Object mpscPoll(MpscQueue state, Control control) {
+        return poll(state.queue, control);
+    }
+
+    @Benchmark
+    @Group("spsc")
+    @GroupThreads(1)
+    public boolean spscOffer(SpscQueue state, Control control) {
+        return offer(state.queue, control);
+    }
+
+    @Benchmark
+    @Group("spsc")
+    @GroupThreads(1)
+    public Object spscPoll(SpscQueue state, Control control) {
+        return poll(state.queue, control);
+    }
+
+    /**
+     * 队列满时自旋重试；迭代结束时对端可能已停下，用 Control 退出，避免卡住
+     */
+    private static boolean offer(BlockingQueue<Object> queue, Control control) {
+        while (!queue.offer(ELEMENT)) {
+            if (control.stopMeasurement) {
+                return false;
+            }
+            Thread.onSpinWait();
+        }
+        return true;
+    }
+
+    private static Object poll(BlockingQueue<Object> queue, Control control) {
+        Object e;
+        while ((e = queue.poll()) == null) {
+            if (control.stopMeasurement) {
+                return null;
+            }
+            Thread.onSpinWait();
+        }
+        return e;
+    }
+
+    private static BlockingQueue<Object> create(String impl) {
+        switch (impl) {
+            case "ArrayBlockingQueue":
+                return new ArrayBlockingQueue<>(CAPACITY);
+            case "LinkedBlockingQueue":
+                return new LinkedBlockingQueue<>(CAPACITY);
+            case "RingMpmc":
+                return RingBlockingQueue.mpmc(CAPACITY);
+            case "RingMpsc":
+                return RingBlockingQueue.mpsc(CAPACITY);
+            case "RingSpsc":
+                return RingBlockingQueue.spsc(CAPACITY);
+            default:
+                throw new IllegalArgumentException("未知的队列实现：" + impl);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.hry.firstjava;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * 方法调用方式对比：直接调用、Method.invoke、MethodHandle、LambdaMetafactory
+ *
+ * 运行：
+ * mvn install                      （上级目录）
+ * mvn package && java -jar target/benchmarks.jar ReflectionInvokeBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ReflectionInvokeBenchmark {
+    // static final 字段中的 MethodHandle 会被 JIT 当作常量，可以内联
+    private static final MethodHandle STATIC_GET_NAME;
+    private static final MethodHandle STATIC_SET_AGE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(ReflectionPerson.class, MethodHandles.lookup());
+            STATIC_GET_NAME = lookup.findVirtual(ReflectionPerson.class, "getName", MethodType.methodType(String.class));
+            STATIC_SET_AGE = lookup.findVirtual(ReflectionPerson.class, "setAge",
+                MethodType.methodType(void.class, int.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private ReflectionPerson person;
+    private int age;
+
+    private Method getNameMethod;
+    private Method setAgeMethod;
+    // 实例字段中的 MethodHandle 不是常量，代表“缓存在对象里”的常见用法
+    private MethodHandle getNameHandle;
+    private MethodHandle setAgeHandle;
+    private Function<ReflectionPerson, String> getNameLambda;
+    private ObjIntConsumer<ReflectionPerson> setAgeLambda;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        person = new ReflectionPerson("基准", 25);
+        age = 30;
+
+        getNameMethod = ReflectionPerson.class.getMethod("getName");
+        setAgeMethod = ReflectionPerson.class.getMethod("setAge", int.class);
+        getNameMethod.setAccessible(true);
+        setAgeMethod.setAccessible(true);
+
+        getNameHandle = STATIC_GET_NAME;
+        setAgeHandle = STATIC_SET_AGE;
+
+        getNameLambda = FastInvoker.getter(ReflectionPerson.class, "getName", String.class);
+        setAgeLambda = FastInvoker.intSetter(ReflectionPerson.class, "setAge");
+    }
+
+    // ---------- getName ----------
+
+    @Benchmark
+    public String getNameDirect() {
+        return person.getName();
+    }
+
+    @Benchmark
+    public Object getNameReflection() throws Exception {
+        return getNameMethod.invoke(person);
+    }
+
+    @Benchmark
+    public String getNameMethodHandle() throws Throwable {
+        return (String) getNameHandle.invokeExact(person);
+    }
+
+    @Benchmark
+    public String getNameStaticMethodHandle() throws Throwable {
+        return (String) STATIC_GET_NAME.invokeExact(person);
+    }
+
+    @Benchmark
+    public String getNameLambdaMetafactory() {
+        return getNameLambda.apply(person);
+    }
+
+    // ---------- setAge ----------
+
+    @Benchmark
+    public void setAgeDirect() {
+        person.setAge(age);
+    }
+
+    @Benchmark
+    public void setAgeReflection() throws Exception {
+        setAgeMethod.invoke(person, age);  // int 参数装箱，还要分配参数数组
+    }
+
+    @Benchmark
+    public void setAgeMethodHandle() throws Throwable {
+        setAgeHandle.invokeExact(person, age);
+    }
+
+    @Benchmark
+    public void setAgeStaticMethodHandle() throws Throwable {
+        STATIC_SET_AGE.invokeExact(person, age);
+    }
+
+    @Benchmark
+    public void setAgeLambdaMetafactory() {
+        setAgeLambda.accept(person, age);
+    }
+}
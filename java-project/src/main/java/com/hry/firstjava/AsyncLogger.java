@@ -0,0 +1,266 @@
+package com.hry.firstjava;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 异步批量日志记录器
+ *
+ * 调用方只把记录放入有界环形缓冲区，由单个后台线程按批次写入
+ * 一个长期打开的 FileChannel，避免每条日志都打开/关闭文件。
+ */
+class AsyncLogger implements AutoCloseable {
+
+    /**
+     * 缓冲区满时的背压策略
+     */
+    enum OverflowPolicy {
+        BLOCK,        // 阻塞调用方，直到有空位
+        DROP,         // 丢弃新记录
+        DROP_OLDEST   // 覆盖最旧的记录
+    }
+
+    private static final DateTimeFormatter SECOND_FORMAT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    // 环形缓冲区：预分配的时间戳和消息数组，入队不创建额外对象
+    private final long[] timestamps;
+    private final String[] messages;
+    private int head;
+    private int count;
+
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final OverflowPolicy policy;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    private final FileChannel channel;
+    private final Thread writer;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean closed;
+
+    // 仅由写线程使用：时间戳前缀缓存（精确到秒）
+    private long cachedSecond = Long.MIN_VALUE;
+    private String cachedPrefix;
+
+    public AsyncLogger(String filename) throws IOException {
+        this(filename, 8192, 256, 200, OverflowPolicy.BLOCK);
+    }
+
+    public AsyncLogger(String filename, int capacity, int batchSize,
+                       long flushIntervalMillis, OverflowPolicy policy) throws IOException {
+        this(filename, capacity, batchSize, flushIntervalMillis, policy, true);
+    }
+
+    /**
+     * startWriter 为 false 时写线程在 start() 之后才开始消费（测试用，可以稳定地填满缓冲区）
+     */
+    AsyncLogger(String filename, int capacity, int batchSize,
+                long flushIntervalMillis, OverflowPolicy policy, boolean startWriter) throws IOException {
+        if (capacity <= 0 || batchSize <= 0 || flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("capacity、batchSize、flushIntervalMillis 必须大于 0");
+        }
+        this.timestamps = new long[capacity];
+        this.messages = new String[capacity];
+        this.batchSize = Math.min(batchSize, capacity);
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.policy = policy;
+        this.channel = FileChannel.open(Paths.get(filename),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.writer = new Thread(this::drainLoop, "async-logger");
+        this.writer.setDaemon(true);
+        if (startWriter) {
+            this.writer.start();
+        }
+    }
+
+    void start() {
+        writer.start();
+    }
+
+    /**
+     * 写入一条日志
+     *
+     * @return 记录是否被接受（DROP 策略下缓冲区满时返回 false）
+     * @throws IllegalStateException 已关闭（包括 BLOCK 策略下等待空位期间被关闭），记录没有写入
+     */
+    public boolean log(String message) {
+        if (closed) {
+            throw new IllegalStateException("日志记录器已关闭");
+        }
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            // 加锁前可能刚好被关闭，写线程已完成最后一次取出：此时入队的记录不会再被写出
+            if (closed) {
+                throw new IllegalStateException("日志记录器已关闭");
+            }
+            int capacity = messages.length;
+            if (count == capacity) {
+                switch (policy) {
+                    case DROP:
+                        dropped.incrementAndGet();
+                        return false;
+                    case DROP_OLDEST:
+                        messages[head] = null;
+                        head = (head + 1) % capacity;
+                        count--;
+                        dropped.incrementAndGet();
+                        break;
+                    default:
+                        notEmpty.signal();
+                        while (count == capacity) {
+                            notFull.awaitUninterruptibly();
+                            if (closed) {
+                                throw new IllegalStateException("日志记录器已关闭");
+                            }
+                        }
+                }
+            }
+            int tail = (head + count) % capacity;
+            timestamps[tail] = now;
+            messages[tail] = message;
+            count++;
+            // 攒够一批才唤醒写线程，否则等刷新间隔到期
+            if (count == batchSize) {
+                notEmpty.signal();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 因缓冲区满而被丢弃的记录数
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * 写出所有剩余记录并关闭文件
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notEmpty.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.force(false);
+        channel.close();
+    }
+
+    /**
+     * 后台写线程：按批次取出记录写入文件
+     */
+    private void drainLoop() {
+        long[] batchTimes = new long[batchSize];
+        String[] batchMessages = new String[batchSize];
+        StringBuilder text = new StringBuilder(batchSize * 64);
+
+        while (true) {
+            int n;
+            boolean finished;
+            lock.lock();
+            try {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (count < batchSize && !closed) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    try {
+                        notEmpty.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        closed = true;
+                    }
+                }
+                n = Math.min(count, batchSize);
+                int capacity = messages.length;
+                for (int i = 0; i < n; i++) {
+                    batchTimes[i] = timestamps[head];
+                    batchMessages[i] = messages[head];
+                    messages[head] = null;
+                    head = (head + 1) % capacity;
+                }
+                count -= n;
+                finished = closed && count == 0;
+                if (n > 0) {
+                    notFull.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (n > 0) {
+                text.setLength(0);
+                for (int i = 0; i < n; i++) {
+                    appendTimestamp(text, batchTimes[i]);
+                    text.append(" - ").append(batchMessages[i]).append(System.lineSeparator());
+                    batchMessages[i] = null;
+                }
+                write(text);
+            }
+            if (finished) {
+                return;
+            }
+        }
+    }
+
+    private void appendTimestamp(StringBuilder text, long millis) {
+        long second = millis / 1000;
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedPrefix = LocalDateTime.ofInstant(Instant.ofEpochSecond(second), ZoneId.systemDefault())
+                .format(SECOND_FORMAT);
+        }
+        int ms = (int) (millis % 1000);
+        text.append(cachedPrefix).append('.');
+        if (ms < 100) {
+            text.append('0');
+        }
+        if (ms < 10) {
+            text.append('0');
+        }
+        text.append(ms);
+    }
+
+    private void write(StringBuilder text) {
+        ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            System.err.println("写入日志失败：" + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.hry.firstjava;
+
+import java.util.List;
+
+/**
+ * 批量事件监听器：events 在返回后会被清空复用，不能保存引用
+ */
+@FunctionalInterface
+interface BatchEventListener<E> {
+    void onEvents(List<E> events);
+}
@@ -0,0 +1,16 @@
+package com.hry.firstjava;
+
+/**
+ * 泛型类：盒子（单个类型参数）
+ */
+class Box<T> {
+    private T content;
+    
+    public void setContent(T content) {
+        this.content = content;
+    }
+    
+    public T getContent() {
+        return content;
+    }
+}
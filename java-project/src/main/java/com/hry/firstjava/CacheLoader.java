@@ -0,0 +1,39 @@
+package com.hry.firstjava;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 缓存加载器（LoadingCache 未命中或刷新时调用）
+ */
+@FunctionalInterface
+interface CacheLoader<K, V> {
+
+    /**
+     * 加载一个值，返回 null 表示不存在（不缓存）
+     */
+    V load(K key) throws Exception;
+
+    /**
+     * 批量加载；默认逐个调用 load，数据源支持批量查询时应当覆盖
+     * 返回结果中缺少的 key 视为不存在
+     */
+    default Map<K, V> loadAll(Set<? extends K> keys) throws Exception {
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            V value = load(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 刷新已有的值；默认重新加载
+     */
+    default V reload(K key, V oldValue) throws Exception {
+        return load(key);
+    }
+}
@@ -0,0 +1,388 @@
+package com.hry.firstjava;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * 缓存快照（热重启）
+ *
+ * 把缓存内容顺序追加到内存映射文件中，写完后原子替换旧快照；启动时只扫描记录头建立
+ * key -> 文件偏移 的索引，值留在映射的页面里，第一次访问某个 key 时才读取、校验和解码，
+ * 重启后几乎立刻就能命中。
+ *
+ * 文件格式：
+ * - 文件头：魔数、版本、块大小、记录数
+ * - 记录：key 长度、值长度、过期时间（毫秒时间戳，Long.MAX_VALUE 表示不过期）、key、值、CRC32
+ * 记录不跨越块边界（块内剩余空间不够时跳到下一块），读取时每块单独映射，文件可以超过 2 GB。
+ */
+class CacheSnapshot<K, V> implements AutoCloseable {
+    static final int MAGIC = 0x464A4353;  // "FJCS"
+    static final int VERSION = 1;
+    static final int DEFAULT_CHUNK_SIZE = 1 << 30;
+    private static final int FILE_HEADER_SIZE = 20;
+    private static final int RECORD_HEADER_SIZE = 16;
+    private static final int PADDING = -1;
+    private static final int WRITE_WINDOW_SIZE = 16 * 1024 * 1024;
+
+    private final Path path;
+    private final ValueCodec<K> keyCodec;
+    private final ValueCodec<V> valueCodec;
+    private final int chunkSize;
+    private ScheduledExecutorService scheduler;
+    private ConcurrentCache<K, V> scheduledCache;
+
+    public CacheSnapshot(Path path, ValueCodec<K> keyCodec, ValueCodec<V> valueCodec) {
+        this(path, keyCodec, valueCodec, DEFAULT_CHUNK_SIZE);
+    }
+
+    CacheSnapshot(Path path, ValueCodec<K> keyCodec, ValueCodec<V> valueCodec, int chunkSize) {
+        if (chunkSize < FILE_HEADER_SIZE + RECORD_HEADER_SIZE + 4) {
+            throw new IllegalArgumentException("块大小太小：" + chunkSize);
+        }
+        this.path = path;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.chunkSize = chunkSize;
+    }
+
+    ValueCodec<K> keyCodec() {
+        return keyCodec;
+    }
+
+    /**
+     * 把缓存中未过期的条目（包括还没从旧快照中读取的条目）写成新快照
+     * 先写临时文件，刷盘后原子替换，写到一半崩溃不会破坏旧快照
+     *
+     * @return 写入的条目数
+     */
+    public long write(ConcurrentCache<K, V> cache) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        long count;
+        try (Writer writer = new Writer(temp)) {
+            count = cache.writeSnapshot(this, writer);
+            writer.finish(count);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    /**
+     * 在后台线程中每隔 interval 写一次快照；close() 时停止并写最后一次
+     */
+    public synchronized void scheduleEvery(ConcurrentCache<K, V> cache, Duration interval) {
+        if (scheduler != null) {
+            throw new IllegalStateException("已经在定期写快照");
+        }
+        scheduledCache = cache;
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "cache-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                write(cache);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("写缓存快照失败：" + e);  // 下次再试，不影响缓存本身
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        write(scheduledCache);
+        scheduler = null;
+        scheduledCache = null;
+    }
+
+    /**
+     * 打开已有快照，只建立索引，不读取值；文件不存在或无法读取时返回 null
+     * 文件头或记录长度损坏与单条记录校验失败一样处理：记录日志后冷启动，不影响缓存本身
+     */
+    Reader<K, V> open() {
+        try {
+            return new Reader<>(path, keyCodec, valueCodec);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("读缓存快照失败，冷启动：" + e);
+            return null;
+        }
+    }
+
+    static long toEpochMillis(long remainingNanos) {
+        if (remainingNanos == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return System.currentTimeMillis() + TimeUnit.NANOSECONDS.toMillis(remainingNanos);
+    }
+
+    /**
+     * 顺序追加记录，按窗口映射文件
+     */
+    final class Writer implements AutoCloseable {
+        private final FileChannel channel;
+        private final CRC32 crc = new CRC32();
+        private MappedByteBuffer window;
+        private long windowStart;
+        private long position;
+
+        Writer(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(chunkSize).putLong(0);
+            put(header.array());
+        }
+
+        /**
+         * 编码并追加一条记录，值无法编码时跳过并返回 false
+         */
+        boolean append(K key, V value, long expiresAtMillis) throws IOException {
+            byte[] valueBytes;
+            try {
+                valueBytes = valueCodec.encode(value);
+            } catch (RuntimeException e) {
+                return false;
+            }
+            return appendRaw(keyCodec.encode(key), valueBytes, expiresAtMillis);
+        }
+
+        boolean appendRaw(byte[] key, byte[] value, long expiresAtMillis) throws IOException {
+            long length = (long) RECORD_HEADER_SIZE + key.length + value.length + 4;
+            if (length > chunkSize - FILE_HEADER_SIZE) {
+                return false;  // 单条记录超过一块
+            }
+            long chunkRemaining = chunkSize - position % chunkSize;
+            if (length > chunkRemaining) {
+                if (chunkRemaining >= 4) {
+                    put(ByteBuffer.allocate(4).putInt(PADDING).array());
+                }
+                position += chunkSize - position % chunkSize;
+            }
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+            header.putInt(key.length).putInt(value.length).putLong(expiresAtMillis);
+            crc.reset();
+            crc.update(header.array());
+            crc.update(key);
+            crc.update(value);
+            put(header.array());
+            put(key);
+            put(value);
+            put(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+            return true;
+        }
+
+        void finish(long count) throws IOException {
+            if (window != null) {
+                window.force();
+                window = null;
+            }
+            channel.truncate(position);
+            channel.write(ByteBuffer.allocate(8).putLong(0, count), FILE_HEADER_SIZE - 8);
+            channel.force(true);
+        }
+
+        private void put(byte[] bytes) throws IOException {
+            int written = 0;
+            while (written < bytes.length) {
+                if (window == null || position < windowStart || position >= windowStart + window.capacity()) {
+                    if (window != null) {
+                        window.force();
+                    }
+                    windowStart = position;
+                    window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, WRITE_WINDOW_SIZE);
+                }
+                int offset = (int) (position - windowStart);
+                int n = Math.min(bytes.length - written, window.capacity() - offset);
+                window.put(offset, bytes, written, n);
+                written += n;
+                position += n;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * 已加载的快照：key 的索引在堆上，值留在映射的页面中，读取一次后从索引中删除
+     */
+    static final class Reader<K, V> {
+        private final ValueCodec<V> valueCodec;
+        private final MappedByteBuffer[] chunks;
+        private final int chunkSize;
+        private final ConcurrentHashMap<K, Long> index = new ConcurrentHashMap<>();  // key -> 记录位置
+
+        Reader(Path path, ValueCodec<K> keyCodec, ValueCodec<V> valueCodec) throws IOException {
+            this.valueCodec = valueCodec;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+                if (size < FILE_HEADER_SIZE || channel.read(header, 0) != FILE_HEADER_SIZE
+                    || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                    throw new IOException("不是有效的缓存快照：" + path);
+                }
+                this.chunkSize = header.getInt(8);
+                if (chunkSize <= FILE_HEADER_SIZE) {
+                    throw new IOException("快照块大小无效：" + chunkSize);
+                }
+                long count = (size + chunkSize - 1) / chunkSize;
+                this.chunks = new MappedByteBuffer[(int) count];
+                for (int i = 0; i < chunks.length; i++) {
+                    long start = (long) i * chunkSize;
+                    chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(chunkSize, size - start));
+                }
+            }
+            buildIndex(keyCodec);
+        }
+
+        /**
+         * 只读取记录头和 key，跳过值
+         */
+        private void buildIndex(ValueCodec<K> keyCodec) throws IOException {
+            long now = System.currentTimeMillis();
+            for (int c = 0; c < chunks.length; c++) {
+                MappedByteBuffer chunk = chunks[c];
+                int offset = c == 0 ? FILE_HEADER_SIZE : 0;
+                while (chunk.limit() - offset >= RECORD_HEADER_SIZE) {
+                    int keyLength = chunk.getInt(offset);
+                    if (keyLength == PADDING) {
+                        break;
+                    }
+                    int valueLength = chunk.getInt(offset + 4);
+                    long expiresAt = chunk.getLong(offset + 8);
+                    long end = (long) offset + RECORD_HEADER_SIZE + keyLength + valueLength + 4;
+                    if (keyLength < 0 || valueLength < 0 || end > chunk.limit()) {
+                        throw new IOException("快照已损坏，位置：" + ((long) c * chunkSize + offset));
+                    }
+                    if (expiresAt > now) {
+                        byte[] key = new byte[keyLength];
+                        chunk.get(offset + RECORD_HEADER_SIZE, key);
+                        index.put(keyCodec.decode(key), (long) c * chunkSize + offset);
+                    }
+                    offset = (int) end;
+                }
+            }
+        }
+
+        /**
+         * 取出并解码 key 对应的值（之后不能再次取出），校验失败或已过期时返回 null
+         */
+        Loaded<V> take(K key) {
+            Long position = index.remove(key);
+            if (position == null) {
+                return null;
+            }
+            Record record = read(position);
+            if (record == null || record.expiresAt <= System.currentTimeMillis()) {
+                return null;
+            }
+            return new Loaded<>(valueCodec.decode(record.value), record.expiresAt);
+        }
+
+        /**
+         * 丢弃 key 在快照中的旧值（缓存中已写入或删除了这个 key）
+         */
+        void discard(K key) {
+            index.remove(key);
+        }
+
+        boolean isEmpty() {
+            return index.isEmpty();
+        }
+
+        int remaining() {
+            return index.size();
+        }
+
+        /**
+         * 把还没读取的记录原样写入新快照，不需要解码
+         */
+        long copyRemainingTo(CacheSnapshot<K, V>.Writer writer, ValueCodec<K> keyCodec,
+                             Predicate<K> skip) throws IOException {
+            long copied = 0;
+            long now = System.currentTimeMillis();
+            for (Map.Entry<K, Long> entry : index.entrySet()) {
+                if (skip.test(entry.getKey())) {
+                    continue;
+                }
+                Record record = read(entry.getValue());
+                if (record != null && record.expiresAt > now
+                    && writer.appendRaw(keyCodec.encode(entry.getKey()), record.value, record.expiresAt)) {
+                    copied++;
+                }
+            }
+            return copied;
+        }
+
+        private Record read(long position) {
+            MappedByteBuffer chunk = chunks[(int) (position / chunkSize)];
+            int offset = (int) (position % chunkSize);
+            int keyLength = chunk.getInt(offset);
+            int valueLength = chunk.getInt(offset + 4);
+            long expiresAt = chunk.getLong(offset + 8);
+            byte[] header = new byte[RECORD_HEADER_SIZE + keyLength];
+            byte[] value = new byte[valueLength];
+            chunk.get(offset, header);
+            chunk.get(offset + header.length, value);
+            CRC32 crc = new CRC32();
+            crc.update(header);
+            crc.update(value);
+            if ((int) crc.getValue() != chunk.getInt(offset + header.length + valueLength)) {
+                return null;  // 校验失败：当作未命中
+            }
+            return new Record(value, expiresAt);
+        }
+
+        private static final class Record {
+            final byte[] value;
+            final long expiresAt;
+
+            Record(byte[] value, long expiresAt) {
+                this.value = value;
+                this.expiresAt = expiresAt;
+            }
+        }
+    }
+
+    /**
+     * 从快照中读取的值及其过期时间（毫秒时间戳）
+     */
+    static final class Loaded<V> {
+        final V value;
+        final long expiresAtMillis;
+
+        Loaded(V value, long expiresAtMillis) {
+            this.value = value;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,662 @@
+package com.hry.firstjava;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * 并发缓存引擎
+ *
+ * 数据存放在 ConcurrentHashMap 中，读写都不加全局锁；淘汰（W-TinyLFU）和过期（时间轮）的簿记
+ * 记录到缓冲区，由拿到维护锁（tryLock）的线程批量处理：
+ * - 读：记录到按线程分条的有损环形缓冲区，满了直接丢弃，只影响淘汰顺序的精度
+ * - 写：记录到无界的写缓冲区，不能丢失，写完立即尝试维护
+ * 过期条目在读取时按时间判断，不会被返回；时间轮负责把它们从内存中清理掉。
+ * 配置了堆外存储层时，按容量淘汰的条目降级到堆外，未命中时再从堆外提升回来。
+ * 从快照热启动时，未命中的 key 在快照中按需读取（见 CacheSnapshot）。
+ */
+class ConcurrentCache<K, V> {
+    private static final int READ_BUFFER_SIZE = 16;
+    private static final int READ_BUFFER_STRIPES =
+        Math.min(64, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1);
+    private static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    /**
+     * 缓存条目（不可变；每次写入都创建新条目）
+     */
+    static final class Entry<K, V> {
+        final K key;
+        final V value;
+        final long writeTime;
+        final long expiresAt;
+        volatile boolean alive = true;  // 从 map 中移除后置为 false
+
+        // 以下字段只在维护锁内访问
+        Eviction.Node<K, Entry<K, V>> node;
+        boolean retired;  // 移除任务先于加入任务被处理
+        Entry<K, V> previousInTimer;
+        Entry<K, V> nextInTimer;
+
+        Entry(K key, V value, long writeTime, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.writeTime = writeTime;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    final ConcurrentHashMap<K, Entry<K, V>> data = new ConcurrentHashMap<>();
+    private final long maximumSize;
+    private final long expireAfterWriteNanos;
+    private final long refreshAfterWriteNanos;
+    private final BiFunction<? super K, ? super V, ? extends V> refresher;
+    final Executor executor;
+    private final LongSupplier ticker;
+    private final long startNanos;
+    private final OffHeapStore<K, V> offHeapTier;  // 可以为 null
+    private final Object[] tierLocks;              // 同一个 key 在堆上、堆外和快照之间移动时串行化
+    private volatile CacheSnapshot.Reader<K, V> warmStart;  // 还没读完的快照，可以为 null
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final Eviction<K, Entry<K, V>> eviction;  // 无界时为 null
+    private final TimerWheel<K, V> timerWheel;
+    private final ReadBuffer<Entry<K, V>>[] readBuffers;
+    private final Queue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+    private final ConcurrentHashMap<K, CompletableFuture<V>> refreshes = new ConcurrentHashMap<>();
+    private long policySize;  // 已加入淘汰策略的条目数（维护锁内访问）
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder offHeapHitCount = new LongAdder();
+    private final LongAdder snapshotHitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+
+    /**
+     * 无界、不过期
+     */
+    public ConcurrentCache() {
+        this(Long.MAX_VALUE, null);
+    }
+
+    /**
+     * @param maximumSize      最大条目数，Long.MAX_VALUE 表示无界
+     * @param expireAfterWrite 写入后多久过期，null 表示不过期
+     */
+    public ConcurrentCache(long maximumSize, Duration expireAfterWrite) {
+        this(maximumSize, expireAfterWrite, null, null, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param maximumSize 堆上的最大条目数
+     * @param offHeapTier 堆外存储层，接收按容量淘汰的条目
+     */
+    public ConcurrentCache(long maximumSize, Duration expireAfterWrite, OffHeapStore<K, V> offHeapTier) {
+        this(maximumSize, expireAfterWrite, null, null, ForkJoinPool.commonPool(), System::nanoTime, offHeapTier);
+    }
+
+    /**
+     * @param refreshAfterWrite 写入后多久需要刷新：之后第一次读取时在 executor 中异步调用 refresher，
+     *                          刷新完成前继续返回旧值
+     * @param refresher         根据 key 和旧值计算新值
+     */
+    public ConcurrentCache(long maximumSize, Duration expireAfterWrite, Duration refreshAfterWrite,
+                           BiFunction<? super K, ? super V, ? extends V> refresher, Executor executor) {
+        this(maximumSize, expireAfterWrite, refreshAfterWrite, refresher, executor, System::nanoTime);
+    }
+
+    ConcurrentCache(long maximumSize, Duration expireAfterWrite, Duration refreshAfterWrite,
+                    BiFunction<? super K, ? super V, ? extends V> refresher, Executor executor, LongSupplier ticker) {
+        this(maximumSize, expireAfterWrite, refreshAfterWrite, refresher, executor, ticker, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    ConcurrentCache(long maximumSize, Duration expireAfterWrite, Duration refreshAfterWrite,
+                    BiFunction<? super K, ? super V, ? extends V> refresher, Executor executor, LongSupplier ticker,
+                    OffHeapStore<K, V> offHeapTier) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("容量必须大于 0：" + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.expireAfterWriteNanos = expireAfterWrite == null ? 0 : expireAfterWrite.toNanos();
+        this.refreshAfterWriteNanos = refreshAfterWrite == null ? 0 : refreshAfterWrite.toNanos();
+        this.refresher = refresher;
+        this.executor = executor;
+        this.ticker = ticker;
+        this.startNanos = ticker.getAsLong();
+        this.offHeapTier = offHeapTier;
+        this.tierLocks = new Object[64];
+        for (int i = 0; i < tierLocks.length; i++) {
+            tierLocks[i] = new Object();
+        }
+        this.timerWheel = new TimerWheel<>(0);
+        if (maximumSize == Long.MAX_VALUE) {
+            this.eviction = null;
+            this.readBuffers = null;
+        } else {
+            this.eviction = (Eviction<K, Entry<K, V>>) Eviction.create(
+                GenericCache.EvictionPolicy.W_TINY_LFU, maximumSize, maximumSize);
+            this.readBuffers = newArray(ReadBuffer.class, READ_BUFFER_STRIPES);
+            for (int i = 0; i < readBuffers.length; i++) {
+                readBuffers[i] = new ReadBuffer<>();
+            }
+        }
+    }
+
+    public V get(K key) {
+        Entry<K, V> entry = data.get(key);
+        long now = now();
+        if (entry == null || isExpired(entry, now)) {
+            V promoted = entry == null ? promote(key, now) : null;
+            if (promoted != null) {
+                hitCount.increment();
+                offHeapHitCount.increment();
+                return promoted;
+            }
+            V pagedIn = entry == null ? pageIn(key, now) : null;
+            if (pagedIn != null) {
+                hitCount.increment();
+                snapshotHitCount.increment();
+                return pagedIn;
+            }
+            missCount.increment();
+            if (entry != null) {
+                scheduleDrain();  // 顺便清理过期条目
+            }
+            return null;
+        }
+        hitCount.increment();
+        afterRead(entry);
+        refreshIfNeeded(entry, now);
+        return entry.value;
+    }
+
+    public void put(K key, V value) {
+        putEntry(key, value, expireAfterWriteNanos);
+    }
+
+    /**
+     * 单独指定这个条目的存活时间
+     */
+    public void put(K key, V value, Duration timeToLive) {
+        putEntry(key, value, timeToLive.toNanos());
+    }
+
+    public V remove(K key) {
+        Entry<K, V> removed;
+        CacheSnapshot.Reader<K, V> reader = warmStart;
+        if (offHeapTier == null && reader == null) {
+            removed = data.remove(key);
+        } else {
+            synchronized (tierLock(key)) {
+                discardLowerTiers(key, reader);
+                removed = data.remove(key);
+            }
+        }
+        if (removed == null) {
+            return null;
+        }
+        retire(removed);
+        scheduleDrain();
+        return isExpired(removed, now()) ? null : removed.value;
+    }
+
+    /**
+     * 条目数（可能包含已过期但还没清理的条目）
+     */
+    public long size() {
+        return data.mappingCount();
+    }
+
+    /**
+     * 立即处理缓冲区中的簿记并清理过期条目
+     */
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 命中中来自堆外存储层的次数
+     */
+    public long getOffHeapHitCount() {
+        return offHeapHitCount.sum();
+    }
+
+    /**
+     * 命中中从快照按需读取的次数
+     */
+    public long getSnapshotHitCount() {
+        return snapshotHitCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * 从快照热启动：只建立索引，值在第一次访问时才从映射的文件中读取
+     * 返回快照中未过期的条目数，快照不存在或已损坏时返回 0
+     */
+    public int warmUpFrom(CacheSnapshot<K, V> snapshot) {
+        CacheSnapshot.Reader<K, V> reader = snapshot.open();
+        if (reader == null || reader.isEmpty()) {
+            return 0;
+        }
+        warmStart = reader;
+        return reader.remaining();
+    }
+
+    public long getExpirationCount() {
+        return expirationCount.sum();
+    }
+
+    // ---------- 内部实现 ----------
+
+    final long now() {
+        return ticker.getAsLong() - startNanos;
+    }
+
+    final boolean isExpired(Entry<K, V> entry, long now) {
+        return entry.expiresAt - now <= 0;
+    }
+
+    /**
+     * 写入新条目并返回被替换的旧条目
+     */
+    final Entry<K, V> putEntry(K key, V value, long timeToLiveNanos) {
+        if (key == null || value == null) {
+            throw new NullPointerException("key 和 value 不能为 null");
+        }
+        long now = now();
+        Entry<K, V> entry = new Entry<>(key, value, now, expiresAt(now, timeToLiveNanos));
+        Entry<K, V> old;
+        CacheSnapshot.Reader<K, V> reader = warmStart;
+        if (offHeapTier == null && reader == null) {
+            old = data.put(key, entry);
+        } else {
+            synchronized (tierLock(key)) {
+                old = data.put(key, entry);
+                discardLowerTiers(key, reader);  // 删除堆外和快照中的旧值
+            }
+        }
+        afterWrite(entry, old);
+        return old;
+    }
+
+    final long expiresAt(long now, long timeToLiveNanos) {
+        if (timeToLiveNanos <= 0 || timeToLiveNanos >= NO_EXPIRY - now) {
+            return NO_EXPIRY;
+        }
+        return now + timeToLiveNanos;
+    }
+
+    /**
+     * 从堆外存储层提升：保留原来的过期时间；与并发写入竞争时以写入的值为准
+     */
+    private V promote(K key, long now) {
+        if (offHeapTier == null || !offHeapTier.containsKey(key)) {
+            return null;
+        }
+        Entry<K, V> entry;
+        synchronized (tierLock(key)) {
+            Entry<K, V> current = data.get(key);
+            if (current != null) {
+                return isExpired(current, now) ? null : current.value;  // 其他线程刚写入或提升
+            }
+            long expiresAt = offHeapTier.expiresAt(key);
+            V value = offHeapTier.get(key, now);
+            offHeapTier.remove(key);
+            if (value == null) {
+                return null;
+            }
+            entry = new Entry<>(key, value, now, expiresAt);
+            data.put(key, entry);
+        }
+        afterWrite(entry, null);
+        return entry.value;
+    }
+
+    /**
+     * 第一次访问时从快照读取：保留快照中的过期时间；快照读完后释放映射
+     */
+    private V pageIn(K key, long now) {
+        CacheSnapshot.Reader<K, V> reader = warmStart;
+        if (reader == null) {
+            return null;
+        }
+        Entry<K, V> entry;
+        synchronized (tierLock(key)) {
+            CacheSnapshot.Loaded<V> loaded = reader.take(key);
+            if (loaded == null) {
+                return null;
+            }
+            Entry<K, V> current = data.get(key);
+            if (current != null) {
+                return isExpired(current, now) ? null : current.value;  // 其他线程刚写入
+            }
+            long expiresAt = NO_EXPIRY;
+            if (loaded.expiresAtMillis != Long.MAX_VALUE) {
+                long remainingMillis = Math.max(1, loaded.expiresAtMillis - System.currentTimeMillis());
+                expiresAt = expiresAt(now, TimeUnit.MILLISECONDS.toNanos(remainingMillis));
+            }
+            entry = new Entry<>(key, loaded.value, now, expiresAt);
+            data.put(key, entry);
+        }
+        if (reader.isEmpty() && warmStart == reader) {
+            warmStart = null;
+        }
+        afterWrite(entry, null);
+        return entry.value;
+    }
+
+    /**
+     * 写入或删除 key 时使堆外和快照中的旧值失效（持有 tierLock）
+     */
+    private void discardLowerTiers(K key, CacheSnapshot.Reader<K, V> reader) {
+        if (offHeapTier != null) {
+            offHeapTier.remove(key);
+        }
+        if (reader != null) {
+            reader.discard(key);
+        }
+    }
+
+    /**
+     * 把未过期的条目和快照中还没读取的条目写入 writer，返回条目数
+     * 堆外存储层中的条目不写入快照
+     */
+    final long writeSnapshot(CacheSnapshot<K, V> snapshot, CacheSnapshot<K, V>.Writer writer) throws IOException {
+        long count = 0;
+        CacheSnapshot.Reader<K, V> reader = warmStart;
+        if (reader != null) {
+            // 先复制快照：复制期间被读取的条目已经在 map 中，下面会写入
+            count += reader.copyRemainingTo(writer, snapshot.keyCodec(), data::containsKey);
+        }
+        long now = now();
+        for (Entry<K, V> entry : data.values()) {
+            if (isExpired(entry, now)) {
+                continue;
+            }
+            long remaining = entry.expiresAt == NO_EXPIRY ? Long.MAX_VALUE : entry.expiresAt - now;
+            if (writer.append(entry.key, entry.value, CacheSnapshot.toEpochMillis(remaining))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private Object tierLock(K key) {
+        int h = key.hashCode();
+        return tierLocks[(h ^ (h >>> 16)) & (tierLocks.length - 1)];
+    }
+
+    /**
+     * 数据已写入 map 之后，记录淘汰和过期簿记
+     */
+    final void afterWrite(Entry<K, V> entry, Entry<K, V> old) {
+        if (old != null) {
+            retire(old);
+        }
+        if (eviction != null || entry.expiresAt != NO_EXPIRY) {
+            writeBuffer.add(() -> onAdd(entry));
+        }
+        scheduleDrain();
+    }
+
+    private void retire(Entry<K, V> entry) {
+        entry.alive = false;
+        if (eviction != null || entry.expiresAt != NO_EXPIRY) {
+            writeBuffer.add(() -> onRemove(entry));
+        }
+    }
+
+    private void afterRead(Entry<K, V> entry) {
+        if (readBuffers == null) {
+            return;
+        }
+        ReadBuffer<Entry<K, V>> buffer = readBuffers[stripe()];
+        if (!buffer.offer(entry)) {
+            scheduleDrain();  // 缓冲区满：尝试维护，拿不到锁就丢弃这次记录
+        }
+    }
+
+    private static int stripe() {
+        long id = Thread.currentThread().threadId();
+        int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (READ_BUFFER_STRIPES - 1);
+    }
+
+    /**
+     * 写入后超过刷新间隔：异步刷新
+     */
+    private void refreshIfNeeded(Entry<K, V> entry, long now) {
+        if (refreshAfterWriteNanos > 0 && now - entry.writeTime >= refreshAfterWriteNanos) {
+            refresh(entry);
+        }
+    }
+
+    /**
+     * 异步刷新条目，同一个 key 同时只有一个刷新任务；刷新完成前继续返回旧值
+     * 返回进行中的刷新任务
+     */
+    final CompletableFuture<V> refresh(Entry<K, V> entry) {
+        K key = entry.key;
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = refreshes.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing;
+        }
+        CompletableFuture<V> reloading;
+        try {
+            reloading = reload(entry);
+        } catch (RuntimeException e) {
+            reloading = CompletableFuture.failedFuture(e);  // 例如 executor 拒绝任务
+        }
+        reloading.whenComplete((value, error) -> {
+            // 刷新期间条目被删除或替换时丢弃结果
+            if (error == null && value != null && entry.alive) {
+                long writeTime = now();
+                Entry<K, V> refreshed = new Entry<>(key, value, writeTime, expiresAt(writeTime, expireAfterWriteNanos));
+                if (data.replace(key, entry, refreshed)) {
+                    afterWrite(refreshed, entry);
+                }
+            }
+            refreshes.remove(key, future);
+            if (error == null) {
+                future.complete(value);
+            } else {
+                future.completeExceptionally(error);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 计算刷新后的值，子类可以覆盖
+     */
+    CompletableFuture<V> reload(Entry<K, V> entry) {
+        if (refresher == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.supplyAsync(() -> refresher.apply(entry.key, entry.value), executor);
+    }
+
+    /**
+     * 尝试维护；维护期间有新的写任务到达时再试一次，保证写任务不会滞留
+     */
+    final void scheduleDrain() {
+        while (evictionLock.tryLock()) {
+            try {
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+            if (writeBuffer.isEmpty()) {
+                break;
+            }
+        }
+    }
+
+    private void maintenance() {
+        if (readBuffers != null) {
+            for (ReadBuffer<Entry<K, V>> buffer : readBuffers) {
+                buffer.drainTo(this::onAccess);
+            }
+        }
+        Runnable task;
+        while ((task = writeBuffer.poll()) != null) {
+            task.run();
+        }
+        timerWheel.advance(now(), this::expire);
+        evictIfNeeded();
+    }
+
+    private void onAccess(Entry<K, V> entry) {
+        if (entry.node != null && entry.alive) {
+            eviction.onAccess(entry.node);
+        }
+    }
+
+    private void onAdd(Entry<K, V> entry) {
+        if (entry.retired) {
+            return;  // 加入之前已经被移除
+        }
+        if (eviction != null) {
+            entry.node = new Eviction.Node<>(entry.key, entry, 1);
+            eviction.onAdd(entry.node);
+            policySize++;
+        }
+        if (entry.expiresAt != NO_EXPIRY) {
+            timerWheel.schedule(entry);
+        }
+    }
+
+    private void onRemove(Entry<K, V> entry) {
+        timerWheel.deschedule(entry);
+        removeFromPolicy(entry);
+    }
+
+    private void removeFromPolicy(Entry<K, V> entry) {
+        entry.retired = true;
+        if (entry.node != null) {
+            eviction.onRemove(entry.node);
+            entry.node = null;
+            policySize--;
+        }
+    }
+
+    private void evictIfNeeded() {
+        while (eviction != null && policySize > maximumSize) {
+            Eviction.Node<K, Entry<K, V>> victim = eviction.victim();
+            if (victim == null) {
+                break;
+            }
+            Entry<K, V> entry = victim.value;
+            // 条目已被替换时 map 中保留新值，只清理旧条目的簿记
+            if (offHeapTier == null ? data.remove(entry.key, entry) : demote(entry)) {
+                entry.alive = false;
+                evictionCount.increment();
+            }
+            onRemove(entry);
+        }
+    }
+
+    /**
+     * 从堆上移除并写入堆外存储层
+     */
+    private boolean demote(Entry<K, V> entry) {
+        synchronized (tierLock(entry.key)) {
+            if (!data.remove(entry.key, entry)) {
+                return false;
+            }
+            if (!isExpired(entry, now())) {
+                offHeapTier.put(entry.key, entry.value, entry.expiresAt);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 时间轮回调：条目已从时间轮中摘下
+     */
+    private void expire(Entry<K, V> entry) {
+        if (data.remove(entry.key, entry)) {
+            entry.alive = false;
+            expirationCount.increment();
+        }
+        removeFromPolicy(entry);
+    }
+
+    /**
+     * 创建泛型数组（不能写 new ReadBuffer<E>[n]）：按原始类型创建，唯一一处未检查的转换
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T[] newArray(Class<?> componentType, int length) {
+        return (T[]) Array.newInstance(componentType, length);
+    }
+
+    /**
+     * 有损的环形读缓冲区：多个线程写入，持有维护锁的线程读取
+     */
+    static final class ReadBuffer<E> {
+        private final AtomicReferenceArray<E> buffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        private final AtomicLong writeCounter = new AtomicLong();
+        private volatile long readCounter;
+
+        /**
+         * 满了或者 CAS 竞争失败都直接放弃，返回 false 表示缓冲区已满
+         */
+        boolean offer(E e) {
+            long tail = writeCounter.get();
+            if (tail - readCounter >= READ_BUFFER_SIZE) {
+                return false;
+            }
+            if (writeCounter.compareAndSet(tail, tail + 1)) {
+                buffer.lazySet((int) (tail & (READ_BUFFER_SIZE - 1)), e);
+            }
+            return true;
+        }
+
+        void drainTo(Consumer<E> consumer) {
+            long head = readCounter;
+            long tail = writeCounter.get();
+            for (; head < tail; head++) {
+                int index = (int) (head & (READ_BUFFER_SIZE - 1));
+                E e = buffer.get(index);
+                if (e == null) {
+                    break;  // 写入方已占位但还没发布
+                }
+                buffer.lazySet(index, null);
+                consumer.accept(e);
+            }
+            readCounter = head;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.hry.firstjava;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 计数型 Count-Min Sketch（用于重度访问者统计）
+ *
+ * depth 行 × width 列的 long 计数器，每个 key 在每行映射到一列。估计值取各行最小值：
+ * 不会少于真实次数，以 1 - delta 的概率多出不超过 epsilon × 总次数。
+ * width = e / epsilon（取 2 的幂），depth = ln(1 / delta)。计数器用原子加，可以并发更新。
+ */
+final class CountMinSketch {
+    private final int width;
+    private final int depth;
+    private final int widthMask;
+    private final AtomicLongArray counters;
+    private final double epsilon;
+    private final double delta;
+
+    /**
+     * @param epsilon 相对误差（相对于总次数），例如 0.001
+     * @param delta   超出误差的概率，例如 0.01
+     */
+    CountMinSketch(double epsilon, double delta) {
+        if (!(epsilon > 0 && epsilon < 1) || !(delta > 0 && delta < 1)) {
+            throw new IllegalArgumentException("epsilon 和 delta 必须在 (0, 1) 之间：" + epsilon + ", " + delta);
+        }
+        int minWidth = (int) Math.min(1 << 26, Math.ceil(Math.E / epsilon));
+        this.width = Integer.highestOneBit(Math.max(2, minWidth) - 1) << 1;
+        this.widthMask = width - 1;
+        this.depth = Math.max(1, (int) Math.ceil(Math.log(1 / delta)));
+        this.counters = new AtomicLongArray(width * depth);
+        this.epsilon = epsilon;
+        this.delta = delta;
+    }
+
+    double epsilon() {
+        return epsilon;
+    }
+
+    double delta() {
+        return delta;
+    }
+
+    /**
+     * 增加 key 的次数并返回增加后的估计值
+     */
+    long add(String key, long count) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = row * width + ((h1 + row * h2) & widthMask);
+            estimate = Math.min(estimate, counters.addAndGet(index, count));
+        }
+        return estimate;
+    }
+
+    long estimate(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(row * width + ((h1 + row * h2) & widthMask)));
+        }
+        return estimate;
+    }
+
+    void clear() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    /**
+     * 64 位哈希：不同 key 的 String.hashCode 相同时也能分到不同的列
+     * 高低 32 位分别作为两个独立哈希，第 i 行使用 h1 + i × h2
+     */
+    private static long hash(String key) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0xBF58476D1CE4E5B9L;
+        }
+        h ^= h >>> 31;
+        h *= 0x94D049BB133111EBL;
+        h ^= h >>> 29;
+        return h | 1L << 32;  // h2 为奇数，各行映射到不同的列
+    }
+}
@@ -0,0 +1,155 @@
+package com.hry.firstjava;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * CSV 记录视图（可复用的可变对象）
+ *
+ * 字段只保存在字节缓冲区中的偏移量和长度，调用 getString 时才解码为 String。
+ * 视图在扫描器读取下一条记录后失效，需要保留数据时请调用 toArray。
+ */
+class CsvRecord {
+    private static final byte QUOTE = '"';
+
+    private ByteBuffer buffer;
+    private long offset;
+    private int fieldCount;
+    private int[] starts = new int[16];
+    private int[] lengths = new int[16];
+    private boolean[] escaped = new boolean[16];
+    private byte[] scratch = new byte[256];
+
+    /**
+     * 记录在文件中的起始字节偏移量
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * 字段的字节长度（带引号字段不含两端引号）
+     */
+    public int length(int index) {
+        checkIndex(index);
+        return lengths[index];
+    }
+
+    /**
+     * 按需解码字段为 String（UTF-8），带引号字段会还原 "" 转义
+     */
+    public String getString(int index) {
+        checkIndex(index);
+        int length = lengths[index];
+        if (length == 0) {
+            return "";
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(starts[index], scratch, 0, length);
+        if (escaped[index]) {
+            length = unescape(scratch, length);
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 直接从字节解析整数，不创建 String
+     */
+    public long getLong(int index) {
+        checkIndex(index);
+        int pos = starts[index];
+        int end = pos + lengths[index];
+        if (pos == end) {
+            throw new NumberFormatException("空字段无法解析为整数");
+        }
+        boolean negative = false;
+        byte first = buffer.get(pos);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            pos++;
+            if (pos == end) {
+                throw new NumberFormatException("非法整数：" + getString(index));
+            }
+        }
+        // 与 Long.parseLong 相同：用负数累加（负数范围多一个值），乘 10 和减去数字之前都检查下限
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyMin = limit / 10;
+        long result = 0;
+        for (; pos < end; pos++) {
+            int digit = buffer.get(pos) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("非法整数：" + getString(index));
+            }
+            if (result < multiplyMin) {
+                throw new NumberFormatException("整数溢出：" + getString(index));
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw new NumberFormatException("整数溢出：" + getString(index));
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * 复制出所有字段（脱离底层缓冲区）
+     */
+    public String[] toArray() {
+        String[] fields = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            fields[i] = getString(i);
+        }
+        return fields;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    // ===== 以下方法供扫描器填充记录 =====
+
+    void reset(ByteBuffer buffer, long offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.fieldCount = 0;
+    }
+
+    void addField(int start, int length, boolean hasEscapes) {
+        if (fieldCount == starts.length) {
+            int newSize = fieldCount * 2;
+            starts = Arrays.copyOf(starts, newSize);
+            lengths = Arrays.copyOf(lengths, newSize);
+            escaped = Arrays.copyOf(escaped, newSize);
+        }
+        starts[fieldCount] = start;
+        lengths[fieldCount] = length;
+        escaped[fieldCount] = hasEscapes;
+        fieldCount++;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("字段索引越界：" + index + "，字段数：" + fieldCount);
+        }
+    }
+
+    private static int unescape(byte[] bytes, int length) {
+        int write = 0;
+        for (int read = 0; read < length; read++) {
+            bytes[write++] = bytes[read];
+            if (bytes[read] == QUOTE && read + 1 < length && bytes[read + 1] == QUOTE) {
+                read++;
+            }
+        }
+        return write;
+    }
+}
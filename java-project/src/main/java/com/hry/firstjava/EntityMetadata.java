@@ -0,0 +1,101 @@
+package com.hry.firstjava;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 实体元数据（由注解处理器为每个 @Entity 类生成实现）
+ *
+ * 生成的代码直接调用 getter 或访问字段，运行时不需要反射扫描。
+ * 通过 EntityMetadata.lookup(Class) 获取：按注解处理器写出的注册表
+ * META-INF/firstjava/entities 查找，每个类只查一次。没有运行注解处理器时（IDE、直接 javac）
+ * 注册表不存在，lookup 返回 null，调用方回退到反射路径。
+ */
+interface EntityMetadata<T> {
+    /**
+     * 按类型查找生成的元数据，不是实体类或没有生成代码时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    static EntityMetadata<Object> lookup(Class<?> type) {
+        return (EntityMetadata<Object>) Registry.BY_TYPE.get(type);
+    }
+
+    Class<T> entityType();
+
+    /**
+     * 对应 @Entity(tableName = ...)
+     */
+    String tableName();
+
+    /**
+     * 字段名（按声明顺序）
+     */
+    String[] fieldNames();
+
+    /**
+     * 按下标读取字段值（字段访问表）
+     */
+    Object get(T entity, int index);
+
+    /**
+     * 生成的 JSON 序列化代码，输出与 JsonSerializer 的反射路径一致
+     */
+    void writeJson(T entity, JsonWriter writer);
+
+    /**
+     * 注册表：实体类名 → 生成的元数据类名，元数据实例按类型缓存
+     */
+    final class Registry {
+        static final String RESOURCE = "META-INF/firstjava/entities";
+        private static final Map<String, String> NAMES = load();
+        static final ClassValue<EntityMetadata<?>> BY_TYPE = new ClassValue<EntityMetadata<?>>() {
+            @Override
+            protected EntityMetadata<?> computeValue(Class<?> type) {
+                String metadataName = NAMES.get(type.getName());
+                if (metadataName == null) {
+                    return null;
+                }
+                try {
+                    Class<?> metadataClass = Class.forName(metadataName, true, type.getClassLoader());
+                    return (EntityMetadata<?>) MethodHandles.lookup()
+                        .findStaticGetter(metadataClass, "INSTANCE", metadataClass).invoke();
+                } catch (Throwable e) {
+                    throw new IllegalStateException("加载实体元数据失败：" + metadataName, e);
+                }
+            }
+        };
+
+        private Registry() {
+        }
+
+        private static Map<String, String> load() {
+            Map<String, String> names = new HashMap<>();
+            try {
+                Enumeration<URL> resources = EntityMetadata.class.getClassLoader().getResources(RESOURCE);
+                while (resources.hasMoreElements()) {
+                    try (BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(resources.nextElement().openStream(), StandardCharsets.UTF_8))) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            int space = line.indexOf(' ');
+                            if (space > 0) {
+                                names.put(line.substring(0, space), line.substring(space + 1).trim());
+                            }
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("读取 " + RESOURCE + " 失败", e);
+            }
+            return names;
+        }
+    }
+}
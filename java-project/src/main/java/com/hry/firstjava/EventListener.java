@@ -0,0 +1,9 @@
+package com.hry.firstjava;
+
+/**
+ * 事件监听器（EventManager 的字符串事件）
+ */
+@FunctionalInterface
+interface EventListener {
+    void onEvent(String event);
+}
@@ -0,0 +1,578 @@
+package com.hry.firstjava;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 实际应用示例：事件管理器（读多写少）
+ *
+ * 同步模式：fireEvent 在调用线程中依次调用每个监听器。
+ * 异步模式：每个监听器有自己的有界队列，fireEvent 只负责入队；同一个监听器同时最多只有一个投递任务
+ * 在 executor 中运行，所以每个监听器按发布顺序收到事件，慢监听器不会拖慢发布者和其他监听器。
+ *
+ * 路由：监听器可以按事件类型（包括子类）和主题模式订阅。路由结果缓存在分发表中（事件类型 + 主题 ->
+ * 监听器数组），订阅变化时整张表替换为空表重新填充，发布事件只查一次表，只触达相关的监听器。
+ * 主题用 . 分段，模式中 * 匹配一段，# 匹配零段或多段，例如 order.*.created、order.#。
+ *
+ * 批量监听器（BatchEventListener）按微批接收事件：攒满 maxBatchSize 条或第一条等待超过 linger 时投递，
+ * 适合写磁盘、写网络的监听器，减少系统调用次数。定时投递由一个守护线程负责，
+ * 第一个批量监听器订阅时创建，最后一个取消订阅或 close() 时结束。
+ */
+class EventManager implements AutoCloseable {
+    static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    private static final int DRAIN_BATCH = 64;  // 每次投递任务最多处理的事件数，之后让出线程
+    private static final int MAX_CACHED_TOPICS = 1024;  // 每个事件类型最多缓存的主题数，超过后每次现算
+
+    /**
+     * 异步模式下监听器队列满时的处理方式
+     */
+    enum SlowListenerPolicy {
+        DROP,       // 丢弃新事件
+        BLOCK,      // 阻塞发布者，直到有空位（发布者不能运行在只有一个线程的同一个 executor 中）
+        DISCONNECT  // 移除这个监听器
+    }
+
+    private final List<Subscriber> listeners = new CopyOnWriteArrayList<>();
+    private final Executor executor;  // 同步模式为 null
+    private final int queueCapacity;
+    private final SlowListenerPolicy policy;
+    private volatile DispatchTable table = new DispatchTable();
+    private ScheduledExecutorService flusher;  // 按 linger 定时投递批量事件，由 this 保护
+    private int batchers;                      // 使用 flusher 的批量监听器数，由 this 保护
+
+    /**
+     * 同步模式
+     */
+    public EventManager() {
+        this(null, 0, SlowListenerPolicy.BLOCK);
+    }
+
+    /**
+     * 异步模式
+     *
+     * @param executor      执行投递任务，例如共享线程池
+     * @param queueCapacity 每个监听器的队列容量
+     */
+    public EventManager(Executor executor, int queueCapacity, SlowListenerPolicy policy) {
+        if (executor != null && queueCapacity <= 0) {
+            throw new IllegalArgumentException("队列容量必须大于 0：" + queueCapacity);
+        }
+        this.executor = executor;
+        this.queueCapacity = queueCapacity;
+        this.policy = policy;
+    }
+
+    /**
+     * 异步模式，使用公共 ForkJoinPool
+     */
+    public static EventManager async(SlowListenerPolicy policy) {
+        return new EventManager(ForkJoinPool.commonPool(), DEFAULT_QUEUE_CAPACITY, policy);
+    }
+
+    /**
+     * 接收所有字符串事件
+     */
+    public void addListener(EventListener listener) {
+        addSubscriber(new Subscriber(listener, String.class, null, event -> listener.onEvent((String) event)));
+    }
+
+    /**
+     * 接收 type 及其子类的事件（不论主题）
+     */
+    public <T> void subscribe(Class<T> type, TypedEventListener<? super T> listener) {
+        addSubscriber(new Subscriber(listener, type, null, event -> listener.onEvent(type.cast(event))));
+    }
+
+    /**
+     * 接收主题匹配 topicPattern 的 type 及其子类的事件
+     */
+    public <T> void subscribe(String topicPattern, Class<T> type, TypedEventListener<? super T> listener) {
+        TopicPattern pattern = new TopicPattern(topicPattern);
+        addSubscriber(new Subscriber(listener, type, pattern, event -> listener.onEvent(type.cast(event))));
+    }
+
+    /**
+     * 批量接收 type 及其子类的事件
+     *
+     * @param maxBatchSize 每批最多的事件数，攒满立即投递
+     * @param linger       批中第一条事件最多等待多久
+     */
+    public <T> void subscribeBatch(Class<T> type, BatchEventListener<? super T> listener,
+                                   int maxBatchSize, Duration linger) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize 必须大于 0：" + maxBatchSize);
+        }
+        if (linger.isNegative() || linger.isZero()) {
+            throw new IllegalArgumentException("linger 必须大于 0：" + linger);
+        }
+        Batcher batcher = new Batcher(listener, maxBatchSize, linger.toNanos());
+        Subscriber subscriber = new Subscriber(listener, type, null, batcher);
+        batcher.failures = subscriber.failures;
+        batcher.start();  // 先启动定时器：订阅生效后随时可能被取消，stop 需要看到 timer
+        addSubscriber(subscriber);
+    }
+
+    /**
+     * 批量接收所有字符串事件
+     */
+    public void addBatchListener(BatchEventListener<String> listener, int maxBatchSize, Duration linger) {
+        subscribeBatch(String.class, listener, maxBatchSize, linger);
+    }
+
+    public void removeListener(EventListener listener) {
+        unsubscribe(listener);
+    }
+
+    /**
+     * 移除这个监听器的所有订阅（可以在监听器回调中调用）
+     */
+    public void unsubscribe(Object listener) {
+        for (Subscriber subscriber : listeners) {
+            if (subscriber.listener == listener) {
+                disconnect(subscriber);
+            }
+        }
+    }
+
+    /**
+     * 移除所有订阅：批量监听器先投递剩余事件，定时投递线程随之结束
+     */
+    @Override
+    public void close() {
+        for (Subscriber subscriber : listeners) {
+            disconnect(subscriber);
+        }
+    }
+
+    public void fireEvent(String event) {
+        publish(null, event);
+    }
+
+    /**
+     * 按事件类型分发
+     */
+    public void publish(Object event) {
+        publish(null, event);
+    }
+
+    /**
+     * 按事件类型和主题分发；topic 为 null 时只匹配没有主题模式的订阅
+     */
+    public void publish(String topic, Object event) {
+        // 遍历的是分发表中的数组快照，不需要加锁
+        for (Subscriber subscriber : route(event.getClass(), topic)) {
+            if (executor == null) {
+                subscriber.target.accept(event);
+            } else {
+                subscriber.enqueue(event);
+            }
+        }
+    }
+
+    private synchronized void addSubscriber(Subscriber subscriber) {
+        listeners.add(subscriber);
+        table = new DispatchTable();  // 订阅变化：丢弃缓存的路由
+    }
+
+    /**
+     * 批量监听器在释放 this 之后才投递剩余事件：监听器回调中可能再订阅或取消订阅
+     */
+    private void disconnect(Subscriber subscriber) {
+        synchronized (this) {
+            if (!listeners.remove(subscriber)) {
+                return;
+            }
+            table = new DispatchTable();
+        }
+        if (subscriber.target instanceof Batcher) {
+            ((Batcher) subscriber.target).stop();
+        }
+    }
+
+    private synchronized ScheduledFuture<?> scheduleFlush(Runnable task, long periodNanos) {
+        if (flusher == null) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "event-batch-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        batchers++;
+        return flusher.scheduleAtFixedRate(task, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 定时投递线程是否存在（测试用）
+     */
+    synchronized boolean hasFlusher() {
+        return flusher != null;
+    }
+
+    /**
+     * 最后一个批量监听器取消时关闭定时线程，之后再订阅会重新创建
+     */
+    private synchronized void cancelFlush(ScheduledFuture<?> timer) {
+        timer.cancel(false);
+        if (--batchers == 0) {
+            flusher.shutdown();
+            flusher = null;
+        }
+    }
+
+    private Subscriber[] route(Class<?> type, String topic) {
+        DispatchTable current = table;
+        if (topic == null) {
+            Subscriber[] targets = current.byType.get(type);
+            if (targets == null) {
+                targets = current.byType.computeIfAbsent(type, k -> current.match(k, null));
+            }
+            return targets;
+        }
+        Map<String, Subscriber[]> topics = current.byTopic.get(type);
+        if (topics == null) {
+            topics = current.byTopic.computeIfAbsent(type, k -> new ConcurrentHashMap<>());
+        }
+        Subscriber[] targets = topics.get(topic);
+        if (targets == null) {
+            targets = current.match(type, topic);
+            if (topics.size() < MAX_CACHED_TOPICS) {
+                topics.putIfAbsent(topic, targets);
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * 监听器的投递统计，监听器不存在（或已被断开）时返回 null
+     */
+    public ListenerStats getStats(Object listener) {
+        for (Subscriber subscriber : listeners) {
+            if (subscriber.listener == listener) {
+                return subscriber.stats();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 等待所有监听器的队列处理完（包括批量监听器还没投递的批次），超时返回 false
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Subscriber subscriber : listeners) {
+            while (subscriber.lag() > 0 || subscriber.scheduled.get() || subscriber.batched() > 0) {
+                if (System.nanoTime() - deadline >= 0) {
+                    return false;
+                }
+                Thread.sleep(1);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 监听器的投递统计（快照）
+     */
+    static final class ListenerStats {
+        final long published;    // 进入队列的事件数
+        final long delivered;    // 已交给监听器的事件数
+        final long dropped;      // 队列满被丢弃的事件数
+        final int lag;           // 队列中等待投递的事件数
+        final int maxLag;        // 历史最大积压
+        final long failures;     // 监听器抛出异常的次数
+
+        ListenerStats(long published, long delivered, long dropped, int lag, int maxLag, long failures) {
+            this.published = published;
+            this.delivered = delivered;
+            this.dropped = dropped;
+            this.lag = lag;
+            this.maxLag = maxLag;
+            this.failures = failures;
+        }
+
+        @Override
+        public String toString() {
+            return "投递 " + delivered + "/" + published + "，丢弃 " + dropped + "，积压 " + lag
+                + "（最大 " + maxLag + "），失败 " + failures;
+        }
+    }
+
+    /**
+     * 分发表：创建时固定订阅列表，路由结果按需计算并缓存
+     */
+    private final class DispatchTable {
+        final Subscriber[] subscribers = listeners.toArray(new Subscriber[0]);
+        final ConcurrentHashMap<Class<?>, Subscriber[]> byType = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<Class<?>, Map<String, Subscriber[]>> byTopic = new ConcurrentHashMap<>();
+
+        Subscriber[] match(Class<?> type, String topic) {
+            List<Subscriber> matched = new ArrayList<>();
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.type.isAssignableFrom(type)
+                    && (subscriber.pattern == null || topic != null && subscriber.pattern.matches(topic))) {
+                    matched.add(subscriber);
+                }
+            }
+            return matched.toArray(new Subscriber[0]);
+        }
+    }
+
+    /**
+     * 主题模式：按 . 分段，* 匹配一段，# 匹配零段或多段
+     */
+    static final class TopicPattern {
+        private final String[] segments;
+
+        TopicPattern(String pattern) {
+            if (pattern == null || pattern.isEmpty()) {
+                throw new IllegalArgumentException("主题模式不能为空");
+            }
+            this.segments = pattern.split("\\.", -1);
+        }
+
+        boolean matches(String topic) {
+            return matches(topic.split("\\.", -1), 0, 0);
+        }
+
+        private boolean matches(String[] topic, int t, int p) {
+            if (p == segments.length) {
+                return t == topic.length;
+            }
+            if (segments[p].equals("#")) {
+                for (int skip = t; skip <= topic.length; skip++) {
+                    if (matches(topic, skip, p + 1)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return t < topic.length
+                && (segments[p].equals("*") || segments[p].equals(topic[t]))
+                && matches(topic, t + 1, p + 1);
+        }
+    }
+
+    /**
+     * 把逐条事件攒成批次交给批量监听器
+     * 两个缓冲区交替使用（投递后清空），稳定运行时不分配对象。投递时在 this 锁内换出缓冲区，
+     * 回调时只持有 deliveryLock：同一个监听器不会被并发调用，批次按顺序投递，
+     * 回调中取消订阅不会再次投递正在处理的批次，订阅或关闭也不会与定时线程死锁
+     */
+    private final class Batcher implements Consumer<Object> {
+        private final BatchEventListener<Object> listener;
+        private final int maxBatchSize;
+        private final long lingerNanos;
+        private final Object deliveryLock = new Object();
+        private ArrayList<Object> buffer;  // 由 this 保护
+        private ArrayList<Object> spare;   // 由 this 保护，投递期间为 null
+        private long firstEventNanos;
+        private ScheduledFuture<?> timer;
+        LongAdder failures;
+
+        @SuppressWarnings("unchecked")
+        Batcher(BatchEventListener<?> listener, int maxBatchSize, long lingerNanos) {
+            this.listener = (BatchEventListener<Object>) listener;
+            this.maxBatchSize = maxBatchSize;
+            this.lingerNanos = lingerNanos;
+            this.buffer = new ArrayList<>(maxBatchSize);
+            this.spare = new ArrayList<>(maxBatchSize);
+        }
+
+        /**
+         * 定时检查：每 linger / 4 检查一次，批中第一条事件最多多等 linger / 4
+         */
+        void start() {
+            long period = Math.max(lingerNanos / 4, TimeUnit.MICROSECONDS.toNanos(100));
+            timer = scheduleFlush(this::flushIfLingered, period);
+        }
+
+        /**
+         * 取消订阅：停止定时器并投递剩余事件
+         */
+        void stop() {
+            if (timer != null) {
+                cancelFlush(timer);
+            }
+            flush();
+        }
+
+        @Override
+        public void accept(Object event) {
+            synchronized (deliveryLock) {  // 正在投递时等待，批次不会超过 maxBatchSize
+                boolean full;
+                synchronized (this) {
+                    if (buffer.isEmpty()) {
+                        firstEventNanos = System.nanoTime();
+                    }
+                    buffer.add(event);
+                    full = buffer.size() >= maxBatchSize;
+                }
+                if (full) {
+                    deliver(false);
+                }
+            }
+        }
+
+        synchronized int pending() {
+            return buffer.size();
+        }
+
+        void flush() {
+            deliver(false);
+        }
+
+        private void flushIfLingered() {
+            deliver(true);
+        }
+
+        private void deliver(boolean lingeredOnly) {
+            synchronized (deliveryLock) {
+                ArrayList<Object> batch;
+                synchronized (this) {
+                    if (buffer.isEmpty()
+                        || (lingeredOnly && System.nanoTime() - firstEventNanos < lingerNanos)) {
+                        return;
+                    }
+                    batch = buffer;
+                    // 回调中再次投递（例如取消自己的订阅）时备用缓冲区还在使用，只能新建
+                    buffer = spare != null ? spare : new ArrayList<>(maxBatchSize);
+                    spare = null;
+                }
+                try {
+                    listener.onEvents(batch);
+                } catch (RuntimeException e) {
+                    failures.increment();  // 这一批丢弃，不影响后续批次和定时器
+                } finally {
+                    batch.clear();
+                    synchronized (this) {
+                        spare = batch;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 一个订阅及其队列（同步模式下没有队列）
+     */
+    private final class Subscriber implements Runnable {
+        final Object listener;
+        final Class<?> type;
+        final TopicPattern pattern;   // 可以为 null
+        final Consumer<Object> target;
+        final ArrayBlockingQueue<Object> queue;
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final LongAdder published = new LongAdder();
+        final LongAdder delivered = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final AtomicLong maxLag = new AtomicLong();
+        volatile boolean disconnected;
+
+        Subscriber(Object listener, Class<?> type, TopicPattern pattern, Consumer<Object> target) {
+            this.listener = listener;
+            this.type = type;
+            this.pattern = pattern;
+            this.target = target;
+            this.queue = executor == null ? null : new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        void enqueue(Object event) {
+            if (disconnected) {
+                return;  // 发布者遍历的是断开之前的监听器列表
+            }
+            boolean added = queue.offer(event);
+            if (!added) {
+                switch (policy) {
+                    case BLOCK:
+                        try {
+                            queue.put(event);
+                            added = true;
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();  // 保留中断状态，这条事件记为丢弃
+                        }
+                        break;
+                    case DISCONNECT:
+                        disconnected = true;
+                        disconnect(this);
+                        queue.clear();
+                        break;
+                    default:
+                        break;
+                }
+            }
+            if (!added) {
+                dropped.increment();
+                return;
+            }
+            published.increment();
+            int lag = queue.size();
+            if (lag > maxLag.get()) {
+                maxLag.accumulateAndGet(lag, Math::max);
+            }
+            schedule();
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RuntimeException e) {
+                    scheduled.set(false);  // 例如 executor 已关闭：下次发布时再试
+                    throw e;
+                }
+            }
+        }
+
+        /**
+         * 投递任务：同一时刻只有一个在运行，保证这个监听器的事件顺序
+         */
+        @Override
+        public void run() {
+            for (int i = 0; i < DRAIN_BATCH; i++) {
+                Object event = queue.poll();
+                if (event == null) {
+                    break;
+                }
+                try {
+                    target.accept(event);
+                } catch (RuntimeException e) {
+                    failures.increment();  // 一个事件处理失败不影响后续事件
+                }
+                delivered.increment();
+            }
+            scheduled.set(false);
+            if (!queue.isEmpty()) {
+                schedule();  // 还有事件，或者在上面 set(false) 之前有新事件入队
+            }
+        }
+
+        int batched() {
+            return target instanceof Batcher ? ((Batcher) target).pending() : 0;
+        }
+
+        int lag() {
+            return queue == null ? 0 : queue.size();
+        }
+
+        ListenerStats stats() {
+            return new ListenerStats(published.sum(), delivered.sum(), dropped.sum(), lag(),
+                (int) maxLag.get(), failures.sum());
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package com.hry.firstjava;
+
+/**
+ * GenericCache 的淘汰策略实现
+ *
+ * 条目节点本身就是链表节点，策略只调整节点所在的队列，所有操作都是 O(1)。
+ * 非线程安全，由 GenericCache 加锁调用。
+ */
+abstract class Eviction<K, V> {
+
+    /**
+     * 缓存条目
+     */
+    static final class Node<K, V> {
+        final K key;
+        V value;
+        int weight;
+
+        Node<K, V> prev;
+        Node<K, V> next;
+        byte queue;                  // W-TinyLFU：所在的区域
+        FrequencyBucket<K, V> bucket;  // LFU：所在的频率桶
+
+        Node(K key, V value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * @param maximum         权重上限
+     * @param expectedEntries 预计的条目数，未知时传 0
+     */
+    static Eviction<?, ?> create(GenericCache.EvictionPolicy policy, long maximum, long expectedEntries) {
+        switch (policy) {
+            case LRU:
+                return new Lru<>();
+            case LFU:
+                return new Lfu<>();
+            case W_TINY_LFU:
+                return new WindowTinyLfu<>(maximum, expectedEntries);
+            default:
+                throw new IllegalArgumentException("未知的淘汰策略：" + policy);
+        }
+    }
+
+    /**
+     * 新条目加入缓存
+     */
+    abstract void onAdd(Node<K, V> node);
+
+    /**
+     * 命中
+     */
+    abstract void onAccess(Node<K, V> node);
+
+    /**
+     * 未命中（只有需要统计频率的策略关心）
+     */
+    void onMiss(K key) {
+    }
+
+    /**
+     * 已有条目的权重变化
+     */
+    void onWeightChange(Node<K, V> node, int delta) {
+    }
+
+    /**
+     * 条目被删除或淘汰
+     */
+    abstract void onRemove(Node<K, V> node);
+
+    /**
+     * 超出容量时选出下一个要淘汰的条目
+     */
+    abstract Node<K, V> victim();
+
+    /**
+     * 双向链表，头部是最早（最久未使用）的节点
+     */
+    static final class AccessQueue<K, V> {
+        Node<K, V> head;
+        Node<K, V> tail;
+
+        boolean isEmpty() {
+            return head == null;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+
+    /**
+     * LRU：淘汰最久未访问的条目
+     */
+    static final class Lru<K, V> extends Eviction<K, V> {
+        private final AccessQueue<K, V> queue = new AccessQueue<>();
+
+        @Override
+        void onAdd(Node<K, V> node) {
+            queue.addLast(node);
+        }
+
+        @Override
+        void onAccess(Node<K, V> node) {
+            queue.moveToLast(node);
+        }
+
+        @Override
+        void onRemove(Node<K, V> node) {
+            queue.remove(node);
+        }
+
+        @Override
+        Node<K, V> victim() {
+            return queue.head;
+        }
+    }
+
+    /**
+     * LFU 的频率桶：同一访问次数的条目按访问先后排列，桶按次数递增串成链表
+     */
+    static final class FrequencyBucket<K, V> {
+        final long frequency;
+        final AccessQueue<K, V> nodes = new AccessQueue<>();
+        FrequencyBucket<K, V> prev;
+        FrequencyBucket<K, V> next;
+
+        FrequencyBucket(long frequency) {
+            this.frequency = frequency;
+        }
+    }
+
+    /**
+     * LFU：淘汰访问次数最少的条目，次数相同时淘汰最久未访问的
+     */
+    static final class Lfu<K, V> extends Eviction<K, V> {
+        private FrequencyBucket<K, V> first;  // 次数最少的桶
+        private Node<K, V> lastAdded;
+
+        @Override
+        void onAdd(Node<K, V> node) {
+            lastAdded = node;
+            FrequencyBucket<K, V> bucket = first;
+            if (bucket == null || bucket.frequency != 1) {
+                bucket = new FrequencyBucket<>(1);
+                linkAfter(null, bucket);
+            }
+            node.bucket = bucket;
+            bucket.nodes.addLast(node);
+        }
+
+        @Override
+        void onAccess(Node<K, V> node) {
+            FrequencyBucket<K, V> current = node.bucket;
+            FrequencyBucket<K, V> target = current.next;
+            if (target == null || target.frequency != current.frequency + 1) {
+                target = new FrequencyBucket<>(current.frequency + 1);
+                linkAfter(current, target);
+            }
+            current.nodes.remove(node);
+            if (current.nodes.isEmpty()) {
+                unlink(current);
+            }
+            node.bucket = target;
+            target.nodes.addLast(node);
+        }
+
+        @Override
+        void onRemove(Node<K, V> node) {
+            FrequencyBucket<K, V> bucket = node.bucket;
+            bucket.nodes.remove(node);
+            if (bucket.nodes.isEmpty()) {
+                unlink(bucket);
+            }
+            node.bucket = null;
+            if (node == lastAdded) {
+                lastAdded = null;
+            }
+        }
+
+        @Override
+        Node<K, V> victim() {
+            if (first == null) {
+                return null;
+            }
+            Node<K, V> victim = first.nodes.head;
+            if (victim == lastAdded) {
+                // 刚加入的条目次数最少，不跳过的话新条目总是立即被淘汰
+                Node<K, V> other = victim.next != null ? victim.next
+                    : first.next != null ? first.next.nodes.head : null;
+                if (other != null) {
+                    return other;
+                }
+            }
+            return victim;
+        }
+
+        private void linkAfter(FrequencyBucket<K, V> prev, FrequencyBucket<K, V> bucket) {
+            FrequencyBucket<K, V> next = prev == null ? first : prev.next;
+            bucket.prev = prev;
+            bucket.next = next;
+            if (prev == null) {
+                first = bucket;
+            } else {
+                prev.next = bucket;
+            }
+            if (next != null) {
+                next.prev = bucket;
+            }
+        }
+
+        private void unlink(FrequencyBucket<K, V> bucket) {
+            if (bucket.prev == null) {
+                first = bucket.next;
+            } else {
+                bucket.prev.next = bucket.next;
+            }
+            if (bucket.next != null) {
+                bucket.next.prev = bucket.prev;
+            }
+        }
+    }
+
+    /**
+     * W-TinyLFU：新条目先进入 1% 容量的 LRU 窗口，被挤出窗口时与主区的淘汰候选比较访问频率，
+     * 频率更高的一方留下。主区是分段 LRU（试用区 20%，保护区 80%），在试用区再次命中才晋升。
+     * 一次性扫描的冷数据停留在窗口中，无法挤掉主区的热点。
+     */
+    static final class WindowTinyLfu<K, V> extends Eviction<K, V> {
+        private static final byte WINDOW = 0;
+        private static final byte PROBATION = 1;
+        private static final byte PROTECTED = 2;
+
+        private final AccessQueue<K, V> window = new AccessQueue<>();
+        private final AccessQueue<K, V> probation = new AccessQueue<>();
+        private final AccessQueue<K, V> protectedQueue = new AccessQueue<>();
+        final FrequencySketch sketch;
+
+        private final long maximum;
+        private final long maxWindow;
+        private final long maxProtected;
+        private long windowWeight;
+        private long protectedWeight;
+        private long totalWeight;
+        private long entryCount;
+
+        /**
+         * 频率表按条目数而不是权重上限分配：按字节计权重时上限远大于条目数。
+         * 条目数未知时从小表开始，随实际条目数扩大（与 Caffeine 相同）
+         */
+        WindowTinyLfu(long maximum, long expectedEntries) {
+            this.maximum = maximum;
+            this.maxWindow = Math.max(1, maximum / 100);
+            this.maxProtected = (long) ((maximum - maxWindow) * 0.8);
+            this.sketch = new FrequencySketch(expectedEntries);
+        }
+
+        @Override
+        void onAdd(Node<K, V> node) {
+            sketch.ensureCapacity(++entryCount);
+            sketch.increment(node.key);
+            node.queue = WINDOW;
+            window.addLast(node);
+            windowWeight += node.weight;
+            totalWeight += node.weight;
+            // 缓存未满时，挤出窗口的条目直接进入试用区，不需要比较
+            if (totalWeight <= maximum) {
+                while (windowWeight > maxWindow && window.head != null) {
+                    moveToProbation(window.head);
+                }
+            }
+        }
+
+        @Override
+        void onAccess(Node<K, V> node) {
+            sketch.increment(node.key);
+            switch (node.queue) {
+                case WINDOW:
+                    window.moveToLast(node);
+                    break;
+                case PROBATION:
+                    // 晋升到保护区，保护区超出时把最旧的条目降回试用区
+                    probation.remove(node);
+                    node.queue = PROTECTED;
+                    protectedQueue.addLast(node);
+                    protectedWeight += node.weight;
+                    while (protectedWeight > maxProtected && protectedQueue.head != node) {
+                        Node<K, V> demoted = protectedQueue.head;
+                        protectedQueue.remove(demoted);
+                        protectedWeight -= demoted.weight;
+                        demoted.queue = PROBATION;
+                        probation.addLast(demoted);
+                    }
+                    break;
+                default:
+                    protectedQueue.moveToLast(node);
+            }
+        }
+
+        @Override
+        void onMiss(K key) {
+            sketch.increment(key);
+        }
+
+        @Override
+        void onWeightChange(Node<K, V> node, int delta) {
+            totalWeight += delta;
+            if (node.queue == WINDOW) {
+                windowWeight += delta;
+            } else if (node.queue == PROTECTED) {
+                protectedWeight += delta;
+            }
+        }
+
+        @Override
+        void onRemove(Node<K, V> node) {
+            entryCount--;
+            totalWeight -= node.weight;
+            switch (node.queue) {
+                case WINDOW:
+                    window.remove(node);
+                    windowWeight -= node.weight;
+                    break;
+                case PROBATION:
+                    probation.remove(node);
+                    break;
+                default:
+                    protectedQueue.remove(node);
+                    protectedWeight -= node.weight;
+            }
+        }
+
+        @Override
+        Node<K, V> victim() {
+            Node<K, V> mainVictim = probation.head != null ? probation.head : protectedQueue.head;
+            if (windowWeight > maxWindow && window.head != null) {
+                Node<K, V> candidate = window.head;
+                if (mainVictim == null) {
+                    return candidate;
+                }
+                if (sketch.frequency(candidate.key) > sketch.frequency(mainVictim.key)) {
+                    moveToProbation(candidate);
+                    return mainVictim;
+                }
+                return candidate;
+            }
+            return mainVictim != null ? mainVictim : window.head;
+        }
+
+        private void moveToProbation(Node<K, V> node) {
+            window.remove(node);
+            windowWeight -= node.weight;
+            node.queue = PROBATION;
+            probation.addLast(node);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.hry.firstjava;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 结构化并发的扇出/扇入（不依赖预览版的 StructuredTaskScope）
+ *
+ * 一组子任务在调用方法内开始、也在方法内结束：返回或抛出异常之前，
+ * 未完成的子任务都已被中断并且执行完毕，不会有子任务在后台继续运行。
+ * - all：全部成功才返回结果（按提交顺序）；任一失败或超时立即取消其余
+ * - any：返回第一个成功的结果并取消其余；全部失败才抛出异常
+ *
+ * 子任务通过 executor 执行，配合 TaskExecutors.newVirtualExecutor() 时每个子任务一个虚拟线程。
+ */
+final class FanOut {
+
+    private FanOut() {
+    }
+
+    static <T> List<T> all(Executor executor, List<? extends Callable<? extends T>> tasks, Duration timeout)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        Scope<T> scope = new Scope<>(tasks.size(), false);
+        scope.forkAll(executor, tasks);
+        scope.join(timeout);
+        if (scope.failure != null) {
+            throw new ExecutionException(scope.failure);
+        }
+        return scope.results();
+    }
+
+    static <T> T any(Executor executor, List<? extends Callable<? extends T>> tasks, Duration timeout)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        if (tasks.isEmpty()) {
+            throw new IllegalArgumentException("tasks 不能为空");
+        }
+        Scope<T> scope = new Scope<>(tasks.size(), true);
+        scope.forkAll(executor, tasks);
+        scope.join(timeout);
+        if (scope.winner < 0) {
+            throw new ExecutionException(scope.failure);
+        }
+        return scope.result(scope.winner);
+    }
+
+    /**
+     * 一次扇出的状态：子任务的结果、第一个异常和正在执行的线程（取消时中断）
+     */
+    private static final class Scope<T> {
+        private final Object[] results;
+        private final Thread[] running;      // 由 this 保护
+        private final CountDownLatch finished;
+        private final boolean firstSuccessWins;
+        private boolean closed;              // 由 this 保护
+        private volatile Throwable failure;
+        private volatile int winner = -1;
+
+        Scope(int size, boolean firstSuccessWins) {
+            this.results = new Object[size];
+            this.running = new Thread[size];
+            this.finished = new CountDownLatch(size);
+            this.firstSuccessWins = firstSuccessWins;
+        }
+
+        void forkAll(Executor executor, List<? extends Callable<? extends T>> tasks) {
+            for (int i = 0; i < tasks.size(); i++) {
+                int index = i;
+                Callable<? extends T> task = tasks.get(i);
+                try {
+                    executor.execute(() -> run(index, task));
+                } catch (RuntimeException e) {
+                    onFailure(e);  // 执行器拒绝：按失败处理
+                    finished.countDown();
+                }
+            }
+        }
+
+        private void run(int index, Callable<? extends T> task) {
+            try {
+                synchronized (this) {
+                    if (closed) {
+                        return;  // 已取消：不再开始
+                    }
+                    running[index] = Thread.currentThread();
+                }
+                try {
+                    T value = task.call();
+                    results[index] = value;
+                    onSuccess(index);
+                } catch (Throwable t) {
+                    onFailure(t);
+                } finally {
+                    synchronized (this) {
+                        running[index] = null;
+                    }
+                    Thread.interrupted();  // 清除取消时留下的中断标记，线程可能属于线程池
+                }
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        private void onSuccess(int index) {
+            if (firstSuccessWins) {
+                synchronized (this) {
+                    if (winner < 0) {
+                        winner = index;
+                    }
+                }
+                cancel();
+            }
+        }
+
+        private void onFailure(Throwable t) {
+            synchronized (this) {
+                if (failure == null) {
+                    failure = t;
+                } else if (firstSuccessWins) {
+                    failure.addSuppressed(t);  // any 全部失败时保留每个异常；all 只关心第一个
+                }
+            }
+            if (!firstSuccessWins) {
+                cancel();
+            }
+        }
+
+        /**
+         * 中断正在执行的子任务，尚未开始的不再开始
+         */
+        synchronized void cancel() {
+            closed = true;
+            for (Thread thread : running) {
+                if (thread != null) {
+                    thread.interrupt();
+                }
+            }
+        }
+
+        /**
+         * 等待所有子任务结束；超时或调用方被中断时先取消，仍然等子任务结束后才返回
+         */
+        void join(Duration timeout) throws InterruptedException, TimeoutException {
+            boolean completed;
+            try {
+                completed = finished.await(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                cancel();
+                awaitUninterruptibly();
+                throw e;
+            }
+            if (!completed) {
+                cancel();
+                awaitUninterruptibly();
+                if (!firstSuccessWins || winner < 0) {
+                    throw new TimeoutException("子任务未在 " + timeout.toMillis() + " ms 内完成");
+                }
+            }
+        }
+
+        private void awaitUninterruptibly() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    finished.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        T result(int index) {
+            return (T) results[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        List<T> results() {
+            return new ArrayList<>((List<T>) Arrays.asList(results));
+        }
+    }
+}
@@ -11,6 +11,11 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Java 文件 I/O 操作演示
@@ -235,6 +240,19 @@ public class FileIODemo {
         Logger.log("这是另一条日志信息");
         System.out.println("日志已写入 app.log");
         
+        // 异步模式：后台线程批量写入，调用方只入队
+        try {
+            Logger.enableAsync(1024, 64, 100, AsyncLogger.OverflowPolicy.BLOCK);
+            for (int i = 1; i <= 100; i++) {
+                Logger.log("异步日志 " + i);
+            }
+        } catch (IOException e) {
+            System.out.println("开启异步日志失败：" + e.getMessage());
+        } finally {
+            Logger.disableAsync();
+        }
+        System.out.println("异步日志已批量写入 app.log");
+        
         // 场景 2：读取配置文件
         System.out.println("\n场景 2：读取配置文件");
         createPropertiesFile("config.properties", "name=张三\nage=25\ncity=北京");
@@ -254,6 +272,38 @@ public class FileIODemo {
             System.out.println("  " + String.join(" | ", row));
         }
         
+        // 内存映射扫描：字段按需解码，支持带引号的字段
+        createCSVFile("quoted.csv", "姓名,备注\n王五,\"喜欢\"\"咖啡\"\",也喜欢茶\"\n赵六,\"第一行\n第二行\"");
+        System.out.println("内存映射扫描（带引号字段）：");
+        for (String[] row : CSVReader.readCSVMapped("quoted.csv")) {
+            System.out.println("  " + String.join(" | ", row));
+        }
+        
+        // 流式读取：不把整个文件读入内存，可提前结束
+        System.out.println("流式读取：");
+        try {
+            long processed = CSVReader.forEach("data.csv", record -> {
+                System.out.println("  回调：" + record.getString(0));
+                return !"张三".equals(record.getString(0));  // 读到张三后停止
+            });
+            System.out.println("  回调处理了 " + processed + " 条记录");
+            
+            try (Stream<CsvRecord> records = CSVReader.stream("data.csv")) {
+                long total = records.skip(1).mapToLong(record -> record.getLong(1)).sum();
+                System.out.println("  年龄合计：" + total);
+            }
+        } catch (IOException e) {
+            System.out.println("流式读取失败：" + e.getMessage());
+        }
+        
+        // 并行分块读取：按记录边界切块，在 ForkJoinPool 上并行解析
+        try {
+            List<String[]> parallelRows = new ParallelCsvReader().readAll(Paths.get("data.csv"));
+            System.out.println("并行读取记录数：" + parallelRows.size());
+        } catch (IOException e) {
+            System.out.println("并行读取失败：" + e.getMessage());
+        }
+        
         System.out.println();
     }
     
@@ -297,7 +347,44 @@ public class FileIODemo {
 class Logger {
     private static final String LOG_FILE = "app.log";
     
+    // 异步模式：非空时日志交给后台线程批量写入
+    private static volatile AsyncLogger asyncLogger;
+    
+    /**
+     * 开启异步模式（容量、批大小、刷新间隔和背压策略可配置）
+     */
+    public static synchronized void enableAsync(int capacity, int batchSize, long flushIntervalMillis,
+                                                AsyncLogger.OverflowPolicy policy) throws IOException {
+        if (asyncLogger == null) {
+            asyncLogger = new AsyncLogger(LOG_FILE, capacity, batchSize, flushIntervalMillis, policy);
+        }
+    }
+    
+    /**
+     * 关闭异步模式，写出缓冲区中剩余的日志
+     */
+    public static synchronized void disableAsync() {
+        AsyncLogger current = asyncLogger;
+        asyncLogger = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                System.err.println("关闭日志失败：" + e.getMessage());
+            }
+        }
+    }
+    
     public static void log(String message) {
+        AsyncLogger async = asyncLogger;
+        if (async != null) {
+            try {
+                async.log(message);
+                return;
+            } catch (IllegalStateException e) {
+                // 与 disableAsync() 并发：异步记录器刚被关闭，改为同步写入
+            }
+        }
         try (BufferedWriter writer = new BufferedWriter(
                 new FileWriter(LOG_FILE, true))) {  // 追加模式
             String timestamp = LocalDateTime.now()
@@ -346,4 +433,74 @@ class CSVReader {
         
         return records;
     }
+    
+    /**
+     * 使用内存映射扫描引擎读取 CSV（支持 RFC 4180 引号规则）
+     */
+    public static List<String[]> readCSVMapped(String filename) {
+        List<String[]> records = new ArrayList<>();
+        
+        try (MappedCsvScanner scanner = new MappedCsvScanner(Paths.get(filename))) {
+            CsvRecord record = new CsvRecord();
+            while (scanner.next(record)) {
+                records.add(record.toArray());
+            }
+        } catch (IOException e) {
+            System.err.println("读取 CSV 失败：" + e.getMessage());
+        }
+        
+        return records;
+    }
+    
+    /**
+     * 推送式流式读取：逐条回调，内存占用恒定
+     * 整个过程复用同一个 CsvRecord，处理器返回 false 时提前结束
+     * 
+     * @return 已处理的记录数
+     */
+    public static long forEach(String filename, RecordHandler handler) throws IOException {
+        long count = 0;
+        try (MappedCsvScanner scanner = new MappedCsvScanner(Paths.get(filename))) {
+            CsvRecord record = new CsvRecord();
+            while (scanner.next(record)) {
+                count++;
+                if (!handler.onRecord(record)) {
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * 拉取式流式读取：返回惰性的 Stream（也可通过 iterator() 逐条拉取）
+     * 每个元素都是同一个可复用的 CsvRecord，需要保留数据时请调用 toArray；
+     * 使用 limit/findFirst 等短路操作即可提前结束，用完后需关闭 Stream
+     */
+    public static Stream<CsvRecord> stream(String filename) throws IOException {
+        MappedCsvScanner scanner = new MappedCsvScanner(Paths.get(filename));
+        CsvRecord record = new CsvRecord();
+        Spliterator<CsvRecord> spliterator = new Spliterators.AbstractSpliterator<CsvRecord>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super CsvRecord> action) {
+                try {
+                    if (!scanner.next(record)) {
+                        return false;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                action.accept(record);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                scanner.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
 }
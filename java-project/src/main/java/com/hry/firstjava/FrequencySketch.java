@@ -0,0 +1,114 @@
+package com.hry.firstjava;
+
+/**
+ * 访问频率估计（4 位计数器的 Count-Min Sketch，用于 W-TinyLFU 准入判断）
+ *
+ * 每个 long 存放 16 个 4 位计数器，计数上限为 15。每个键用 4 个哈希函数各选一个 long，
+ * 再在其中选第 start + i 个计数器（start 由哈希决定，取 0、4、8、12），
+ * 4 个计数器因此互不相同，一次访问每个只加一次。累计增加次数达到采样上限后所有计数减半（老化），
+ * 让过去的热点逐渐冷却。非线程安全，由调用方加锁。
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;  // 每个 4 位计数器右移一位后保留低 3 位
+
+    private long[] table = new long[0];
+    private int tableMask;
+    private int sampleSize;
+    private int additions;
+
+    /**
+     * @param expectedSize 预计的条目数；不确定时给一个小值，再随实际条目数调用 ensureCapacity
+     */
+    FrequencySketch(long expectedSize) {
+        ensureCapacity(expectedSize);
+    }
+
+    /**
+     * 按条目数扩大计数表（2 的幂，最多 2^24 个 long）；扩大时丢弃已有计数，与老化一样只影响准入判断的精度
+     */
+    void ensureCapacity(long expectedSize) {
+        int size = (int) Math.min(Math.max(expectedSize, 16), 1 << 24);
+        int length = Integer.highestOneBit(size - 1) << 1;
+        if (length <= table.length) {
+            return;
+        }
+        table = new long[length];
+        tableMask = length - 1;
+        sampleSize = (int) Math.min(10L * length, Integer.MAX_VALUE);
+        additions = 0;
+    }
+
+    /**
+     * 计数表的 long 个数
+     */
+    int tableLength() {
+        return table.length;
+    }
+
+    /**
+     * 估计访问次数（0~15）
+     */
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        int result = 15;
+        for (int i = 0; i < 4; i++) {
+            int shift = (start + i) << 2;
+            result = Math.min(result, (int) ((table[indexOf(hash, i)] >>> shift) & 0xF));
+        }
+        return result;
+    }
+
+    /**
+     * 记录一次访问
+     */
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * 第 index 个 long 中的第 counter 个计数器加一，已到 15 时返回 false
+     */
+    private boolean incrementAt(int index, int counter) {
+        int shift = counter << 2;
+        long mask = 0xFL << shift;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << shift;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions >>>= 1;
+    }
+
+    /**
+     * 第 i 个哈希函数选中的 long 下标
+     */
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return (int) h & tableMask;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
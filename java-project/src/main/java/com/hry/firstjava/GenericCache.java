@@ -0,0 +1,212 @@
+package com.hry.firstjava;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 实际应用：缓存系统
+ *
+ * 有界缓存：按条目数或权重限制容量，超出时按淘汰策略移除条目，并统计命中、未命中和淘汰次数。
+ * 可以配置堆外存储层：被淘汰的条目降级到堆外，再次访问时提升回堆上，堆上只保留热点数据。
+ * 方法都已同步，可以在多线程间共享。
+ */
+class GenericCache<K, V> {
+    /**
+     * 默认最大条目数
+     */
+    static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+
+    /**
+     * 淘汰策略
+     */
+    enum EvictionPolicy {
+        LRU,        // 淘汰最久未访问的条目
+        LFU,        // 淘汰访问次数最少的条目
+        W_TINY_LFU  // LRU 窗口 + 频率准入 + 分段 LRU，抗扫描，命中率通常最高
+    }
+
+    private static final Weigher<Object, Object> SINGLETON_WEIGHER = (key, value) -> 1;  // 按条目数限制容量
+
+    private final Map<K, Eviction.Node<K, V>> map = new HashMap<>();
+    private final Eviction<K, V> eviction;
+    private final Weigher<? super K, ? super V> weigher;
+    private final long maximumWeight;
+    private long weightedSize;
+    private final OffHeapStore<K, V> offHeapTier;  // 可以为 null
+
+    private long hitCount;
+    private long offHeapHitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public GenericCache() {
+        this(DEFAULT_MAXIMUM_SIZE, EvictionPolicy.W_TINY_LFU);
+    }
+
+    /**
+     * @param maximumSize 最大条目数
+     */
+    public GenericCache(long maximumSize, EvictionPolicy policy) {
+        this(maximumSize, SINGLETON_WEIGHER, policy);
+    }
+
+    /**
+     * @param maximumSize 堆上的最大条目数
+     * @param offHeapTier 堆外存储层，接收从堆上淘汰的条目
+     */
+    public GenericCache(long maximumSize, EvictionPolicy policy, OffHeapStore<K, V> offHeapTier) {
+        this(maximumSize, SINGLETON_WEIGHER, policy, offHeapTier);
+    }
+
+    /**
+     * @param maximumWeight 所有条目的权重之和上限
+     * @param weigher       计算条目权重（例如按字节数估算）
+     */
+    public GenericCache(long maximumWeight, Weigher<? super K, ? super V> weigher, EvictionPolicy policy) {
+        this(maximumWeight, weigher, policy, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public GenericCache(long maximumWeight, Weigher<? super K, ? super V> weigher, EvictionPolicy policy,
+                        OffHeapStore<K, V> offHeapTier) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("容量必须大于 0：" + maximumWeight);
+        }
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        // 按权重限制时条目数未知（1 GB 的字节预算可能只有几千个条目），由淘汰策略按实际条目数估计
+        long expectedEntries = weigher == SINGLETON_WEIGHER ? maximumWeight : 0;
+        this.eviction = (Eviction<K, V>) Eviction.create(policy, maximumWeight, expectedEntries);
+        this.offHeapTier = offHeapTier;
+    }
+
+    public synchronized void put(K key, V value) {
+        int weight = weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("权重不能为负数：" + weight);
+        }
+        if (offHeapTier != null) {
+            offHeapTier.remove(key);  // 删除堆外的旧值
+        }
+        Eviction.Node<K, V> node = map.get(key);
+        if (weight > maximumWeight) {
+            // 单个条目超过总容量：不缓存
+            if (node != null) {
+                removeNode(node);
+            }
+            evictionCount++;
+            return;
+        }
+        if (node != null) {
+            int delta = weight - node.weight;
+            node.value = value;
+            node.weight = weight;
+            weightedSize += delta;
+            eviction.onWeightChange(node, delta);
+            eviction.onAccess(node);
+        } else {
+            node = new Eviction.Node<>(key, value, weight);
+            map.put(key, node);
+            weightedSize += weight;
+            eviction.onAdd(node);
+        }
+        evictIfNeeded();
+    }
+
+    public synchronized V get(K key) {
+        Eviction.Node<K, V> node = map.get(key);
+        if (node == null) {
+            V value = offHeapTier == null ? null : offHeapTier.get(key);
+            if (value != null) {
+                // 堆外命中：提升回堆上（可能把其他条目挤到堆外）
+                hitCount++;
+                offHeapHitCount++;
+                put(key, value);
+                return value;
+            }
+            missCount++;
+            eviction.onMiss(key);
+            return null;
+        }
+        hitCount++;
+        eviction.onAccess(node);
+        return node.value;
+    }
+
+    public synchronized V remove(K key) {
+        Eviction.Node<K, V> node = map.get(key);
+        if (node == null) {
+            if (offHeapTier == null) {
+                return null;
+            }
+            V value = offHeapTier.get(key);
+            offHeapTier.remove(key);
+            return value;
+        }
+        removeNode(node);
+        return node.value;
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    /**
+     * 当前所有条目的权重之和
+     */
+    public synchronized long weightedSize() {
+        return weightedSize;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * 命中中来自堆外存储层的次数
+     */
+    public synchronized long getOffHeapHitCount() {
+        return offHeapHitCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public synchronized double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    private void evictIfNeeded() {
+        while (weightedSize > maximumWeight) {
+            Eviction.Node<K, V> victim = eviction.victim();
+            if (victim == null) {
+                break;
+            }
+            removeNode(victim);
+            evictionCount++;
+            if (offHeapTier != null) {
+                offHeapTier.put(victim.key, victim.value);  // 降级到堆外
+            }
+        }
+    }
+
+    private void removeNode(Eviction.Node<K, V> node) {
+        map.remove(node.key);
+        weightedSize -= node.weight;
+        eviction.onRemove(node);
+    }
+}
+
+/**
+ * 计算缓存条目的权重
+ */
+@FunctionalInterface
+interface Weigher<K, V> {
+    int weigh(K key, V value);
+}
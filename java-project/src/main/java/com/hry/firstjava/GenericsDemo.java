@@ -151,6 +151,35 @@ public class GenericsDemo {
         System.out.println("key1 的值：" + cache.get("key1"));
         System.out.println("缓存大小：" + cache.size());
         
+        // 有界缓存：热点 key 与一次性扫描混合访问，比较不同淘汰策略的命中率
+        for (GenericCache.EvictionPolicy policy : GenericCache.EvictionPolicy.values()) {
+            GenericCache<Integer, String> bounded = new GenericCache<>(100, policy);
+            Random random = new Random(1);
+            for (int i = 0; i < 100_000; i++) {
+                int key = i % 4 == 0 ? 1000 + i : random.nextInt(80);  // 1/4 的请求是不会重复的扫描
+                if (bounded.get(key) == null) {
+                    bounded.put(key, "v" + key);
+                }
+            }
+            System.out.printf("%-10s 命中率：%.1f%%，淘汰：%d，大小：%d%n", policy,
+                bounded.hitRate() * 100, bounded.getEvictionCount(), bounded.size());
+        }
+        
+        // 堆外存储层：堆上只保留 100 个热点，其余条目编码后放在直接内存中
+        OffHeapStore<Integer, String> offHeap = new OffHeapStore<>(ValueCodec.utf8(), 16 * 1024 * 1024, 1024 * 1024);
+        GenericCache<Integer, String> tiered = new GenericCache<>(100, GenericCache.EvictionPolicy.LRU, offHeap);
+        for (int i = 0; i < 10_000; i++) {
+            tiered.put(i, "value-" + i);
+        }
+        int found = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (("value-" + i).equals(tiered.get(i))) {
+                found++;
+            }
+        }
+        System.out.printf("分层缓存：堆上 %d 条，堆外 %d 条（%d KB），读回 %d 条，其中堆外命中 %d 次%n",
+            tiered.size(), offHeap.size(), offHeap.usedBytes() / 1024, found, tiered.getOffHeapHitCount());
+        
         // 场景 2：工具类
         System.out.println("\n场景 2：工具类");
         List<String> list1 = Arrays.asList("a", "b", "c");
@@ -173,42 +202,6 @@ public class GenericsDemo {
     }
 }
 
-/**
- * 泛型类：盒子（单个类型参数）
- */
-class Box<T> {
-    private T content;
-    
-    public void setContent(T content) {
-        this.content = content;
-    }
-    
-    public T getContent() {
-        return content;
-    }
-}
-
-/**
- * 泛型类：键值对（多个类型参数）
- */
-class Pair<K, V> {
-    private K key;
-    private V value;
-    
-    public Pair(K key, V value) {
-        this.key = key;
-        this.value = value;
-    }
-    
-    public K getKey() {
-        return key;
-    }
-    
-    public V getValue() {
-        return value;
-    }
-}
-
 /**
  * 泛型类继承示例
  */
@@ -368,25 +361,6 @@ class WildcardDemo {
     }
 }
 
-/**
- * 实际应用：缓存系统
- */
-class GenericCache<K, V> {
-    private Map<K, V> map = new HashMap<>();
-    
-    public void put(K key, V value) {
-        map.put(key, value);
-    }
-    
-    public V get(K key) {
-        return map.get(key);
-    }
-    
-    public int size() {
-        return map.size();
-    }
-}
-
 /**
  * 实际应用：人员类
  */
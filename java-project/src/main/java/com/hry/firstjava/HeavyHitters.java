@@ -0,0 +1,128 @@
+package com.hry.firstjava;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 固定内存的重度访问者（top-K）统计：Count-Min Sketch + 分条的 Space-Saving
+ *
+ * - Count-Min Sketch 无锁记录每个 key 的次数，用于任意 key 的点查询
+ * - Space-Saving 按线程分条，每条一把锁，互不竞争；查询时按可合并摘要的规则合并各条，
+ *   真实次数超过 总次数 / capacity 的 key 一定出现在结果中
+ * - 报告的次数取两者中较小的上界，误差不超过 min(epsilon × 总次数, 总次数 / capacity)
+ */
+final class HeavyHitters {
+    private static final int DEFAULT_STRIPES =
+        Math.min(16, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)));
+
+    private final CountMinSketch sketch;
+    private final SpaceSaving[] stripes;
+    private final int capacity;
+
+    /**
+     * @param epsilon  Count-Min Sketch 的相对误差
+     * @param delta    超出误差的概率
+     * @param capacity 每条 Space-Saving 监控的 key 数，决定 top-K 的误差 总次数 / capacity
+     */
+    HeavyHitters(double epsilon, double delta, int capacity) {
+        this(epsilon, delta, capacity, DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param stripes Space-Saving 的条数，必须是 2 的幂
+     */
+    HeavyHitters(double epsilon, double delta, int capacity, int stripes) {
+        if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("条数必须是 2 的幂：" + stripes);
+        }
+        this.sketch = new CountMinSketch(epsilon, delta);
+        this.capacity = capacity;
+        this.stripes = new SpaceSaving[stripes];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new SpaceSaving(capacity);
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    void add(String key, long count) {
+        sketch.add(key, count);
+        SpaceSaving stripe = stripes[stripeIndex()];
+        synchronized (stripe) {
+            stripe.add(key, count);
+        }
+    }
+
+    /**
+     * 次数估计：不会少于真实次数
+     */
+    long estimate(String key) {
+        return sketch.estimate(key);
+    }
+
+    /**
+     * 次数最多的 n 个 key（按估计次数从大到小）
+     */
+    List<Map.Entry<String, Long>> topK(int n) {
+        // 合并：某条没有监控这个 key 时，它在那一条中的次数不超过那一条的最小计数
+        long[] mins = new long[stripes.length];
+        List<List<SpaceSaving.Counter>> counters = new ArrayList<>(stripes.length);
+        for (int s = 0; s < stripes.length; s++) {
+            synchronized (stripes[s]) {
+                counters.add(stripes[s].counters());
+                mins[s] = stripes[s].minCount();
+            }
+        }
+        Map<String, Long> merged = new HashMap<>();
+        long minSum = 0;
+        for (int s = 0; s < stripes.length; s++) {
+            minSum += mins[s];
+            for (SpaceSaving.Counter counter : counters.get(s)) {
+                merged.merge(counter.key, counter.count - mins[s], Long::sum);
+            }
+        }
+        List<Map.Entry<String, Long>> result = new ArrayList<>(merged.size());
+        for (Map.Entry<String, Long> entry : merged.entrySet()) {
+            long upperBound = entry.getValue() + minSum;
+            result.add(Map.entry(entry.getKey(), Math.min(upperBound, sketch.estimate(entry.getKey()))));
+        }
+        result.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+        return result.size() > n ? new ArrayList<>(result.subList(0, n)) : result;
+    }
+
+    /**
+     * 总次数
+     */
+    long total() {
+        long total = 0;
+        for (SpaceSaving stripe : stripes) {
+            synchronized (stripe) {
+                total += stripe.total();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 清零（与并发记录之间不是原子的）
+     */
+    void clear() {
+        sketch.clear();
+        for (SpaceSaving stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    private int stripeIndex() {
+        long id = Thread.currentThread().threadId();
+        int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+}
@@ -0,0 +1,200 @@
+package com.hry.firstjava;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JSON 序列化计划（每个类只构建一次）
+ *
+ * 首次使用某个类时扫描字段，生成字段顺序、MethodHandle 访问器和预编码的
+ * "name": 前缀，缓存在 ClassValue 中；之后的序列化不再做任何反射查找。
+ * 基本类型字段使用各自类型的访问器，读取时不装箱。
+ */
+final class JsonClassPlan {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final ClassValue<JsonClassPlan> PLANS = new ClassValue<JsonClassPlan>() {
+        @Override
+        protected JsonClassPlan computeValue(Class<?> type) {
+            return new JsonClassPlan(type);
+        }
+    };
+
+    final Class<?> type;
+    final FieldPlan[] fields;
+
+    private JsonClassPlan(Class<?> type) {
+        this.type = type;
+        List<FieldPlan> plans = new ArrayList<>();
+        MethodHandles.Lookup lookup;
+        try {
+            lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+        } catch (IllegalAccessException | RuntimeException e) {
+            lookup = null;  // 无法访问的类（例如 JDK 内部类）：不输出任何字段
+        }
+        if (lookup != null) {
+            for (Field field : type.getDeclaredFields()) {
+                // 跳过静态字段、transient 字段和编译器生成的字段（如内部类的 this$0）
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+                try {
+                    MethodHandle getter = lookup.unreflectGetter(field);
+                    Class<?> fieldType = field.getType();
+                    getter = getter.asType(fieldType.isPrimitive()
+                        ? MethodType.methodType(fieldType, Object.class)
+                        : GETTER_TYPE);
+                    plans.add(new FieldPlan(field.getName(), fieldType, getter));
+                } catch (IllegalAccessException e) {
+                    // 忽略无法访问的字段
+                }
+            }
+        }
+        this.fields = plans.toArray(new FieldPlan[0]);
+    }
+
+    static JsonClassPlan of(Class<?> type) {
+        return PLANS.get(type);
+    }
+
+    /**
+     * 字段类型分类，决定使用哪个访问器
+     */
+    enum Kind {
+        OBJECT, INT, LONG, DOUBLE, FLOAT, BOOLEAN, SHORT, BYTE, CHAR
+    }
+
+    static Kind kindOf(Class<?> type) {
+        if (type == int.class) {
+            return Kind.INT;
+        } else if (type == long.class) {
+            return Kind.LONG;
+        } else if (type == double.class) {
+            return Kind.DOUBLE;
+        } else if (type == float.class) {
+            return Kind.FLOAT;
+        } else if (type == boolean.class) {
+            return Kind.BOOLEAN;
+        } else if (type == short.class) {
+            return Kind.SHORT;
+        } else if (type == byte.class) {
+            return Kind.BYTE;
+        } else if (type == char.class) {
+            return Kind.CHAR;
+        }
+        return Kind.OBJECT;
+    }
+
+    /**
+     * 单个字段的序列化计划
+     */
+    static final class FieldPlan {
+        final String name;
+        final Class<?> type;
+        final Kind kind;
+        final MethodHandle getter;   // 引用类型为 (Object)Object，基本类型为 (Object)int 等
+        final String prefix;         // "name":
+        final byte[] prefixBytes;    // "name": 的 UTF-8 编码
+
+        FieldPlan(String name, Class<?> type, MethodHandle getter) {
+            this.name = name;
+            this.type = type;
+            this.kind = kindOf(type);
+            this.getter = getter;
+            this.prefix = "\"" + name + "\":";
+            this.prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+        }
+
+        Object get(Object target) {
+            try {
+                if (kind == Kind.OBJECT) {
+                    return (Object) getter.invokeExact(target);
+                }
+                return getter.invoke(target);  // 基本类型装箱（仅用于通用读取）
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        int getInt(Object target) {
+            try {
+                return (int) getter.invokeExact(target);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        long getLong(Object target) {
+            try {
+                return (long) getter.invokeExact(target);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        double getDouble(Object target) {
+            try {
+                return (double) getter.invokeExact(target);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        float getFloat(Object target) {
+            try {
+                return (float) getter.invokeExact(target);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        boolean getBoolean(Object target) {
+            try {
+                return (boolean) getter.invokeExact(target);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        short getShort(Object target) {
+            try {
+                return (short) getter.invokeExact(target);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        byte getByte(Object target) {
+            try {
+                return (byte) getter.invokeExact(target);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        char getChar(Object target) {
+            try {
+                return (char) getter.invokeExact(target);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        private RuntimeException rethrow(Throwable t) {
+            if (t instanceof RuntimeException) {
+                return (RuntimeException) t;
+            }
+            if (t instanceof Error) {
+                throw (Error) t;
+            }
+            return new IllegalStateException("读取字段失败：" + name, t);
+        }
+    }
+}
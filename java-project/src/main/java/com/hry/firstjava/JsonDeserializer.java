@@ -0,0 +1,581 @@
+package com.hry.firstjava;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * JSON 反序列化器（JsonSerializer 的对应实现）
+ *
+ * 边读 token 边绑定到目标对象，不构建中间语法树。每个类的构造方法和 setter
+ * 在第一次使用时解析为 MethodHandle 并缓存在 ClassValue 中，之后不再做反射查找；
+ * 基本类型属性通过类型化的 MethodHandle 写入，不装箱。
+ *
+ * 目标类需要无参构造方法，或者参数与字段声明顺序、类型一致的全参构造方法（如 Pair）。
+ */
+class JsonDeserializer {
+
+    public static <T> T fromJson(String json, Class<T> type) {
+        return fromJson(json.getBytes(StandardCharsets.UTF_8), type);
+    }
+
+    public static <T> T fromJson(byte[] json, Class<T> type) {
+        JsonReader reader = new JsonReader(json);
+        Object value = readValue(reader, type);
+        reader.expectEnd();
+        return cast(type, value);
+    }
+
+    /**
+     * 从输入流边读边解析，不需要先把整个请求体读入内存
+     */
+    public static <T> T fromJson(InputStream in, Class<T> type) throws IOException {
+        try {
+            JsonReader reader = new JsonReader(in);
+            Object value = readValue(reader, type);
+            reader.expectEnd();
+            return cast(type, value);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Class<T> type, Object value) {
+        return type.isPrimitive() ? (T) value : type.cast(value);
+    }
+
+    static Object readValue(JsonReader reader, Type type) {
+        Class<?> raw = rawClass(type);
+        if (reader.consumeNull()) {
+            if (raw.isPrimitive()) {
+                throw reader.error("基本类型 " + raw.getName() + " 不能为 null");
+            }
+            return null;
+        }
+        if (raw == String.class || raw == CharSequence.class) {
+            return reader.readString();
+        } else if (raw == int.class || raw == Integer.class) {
+            return reader.readInt();
+        } else if (raw == long.class || raw == Long.class) {
+            return reader.readLong();
+        } else if (raw == double.class || raw == Double.class) {
+            return reader.readDouble();
+        } else if (raw == float.class || raw == Float.class) {
+            return (float) reader.readDouble();
+        } else if (raw == boolean.class || raw == Boolean.class) {
+            return reader.readBoolean();
+        } else if (raw == short.class || raw == Short.class) {
+            return (short) readRanged(reader, Short.MIN_VALUE, Short.MAX_VALUE);
+        } else if (raw == byte.class || raw == Byte.class) {
+            return (byte) readRanged(reader, Byte.MIN_VALUE, Byte.MAX_VALUE);
+        } else if (raw == char.class || raw == Character.class) {
+            return readChar(reader);
+        } else if (raw == BigDecimal.class) {
+            return new BigDecimal(reader.readNumberText());
+        } else if (raw == BigInteger.class) {
+            return new BigInteger(reader.readNumberText());
+        } else if (raw.isEnum()) {
+            return readEnum(reader, raw);
+        } else if (raw == Object.class) {
+            return readUntyped(reader);
+        } else if (raw.isArray()) {
+            return readArray(reader, type, raw);
+        } else if (Map.class.isAssignableFrom(raw)) {
+            return readMap(reader, type, raw);
+        } else if (Collection.class.isAssignableFrom(raw) || raw == Iterable.class) {
+            return readCollection(reader, type, raw);
+        }
+        return readObject(reader, BindingPlan.of(raw));
+    }
+
+    private static Object readObject(JsonReader reader, BindingPlan plan) {
+        reader.expect('{');
+        Object target = plan.defaultConstructor != null ? plan.newInstance() : null;
+        Object[] args = target == null ? new Object[plan.properties.length] : null;
+        if (!reader.consume('}')) {
+            do {
+                int length = reader.readStringBytes();
+                Property property = plan.find(reader.scratch(), length);
+                reader.expect(':');
+                if (property == null || (target != null && property.setter == null)) {
+                    reader.skipValue();  // 忽略未知字段和不可写的字段
+                } else if (target != null) {
+                    property.read(reader, target);
+                } else {
+                    args[property.index] = readValue(reader, property.genericType);
+                }
+            } while (reader.consume(','));
+            reader.expect('}');
+        }
+        return target != null ? target : plan.newInstance(args);
+    }
+
+    private static Object readCollection(JsonReader reader, Type type, Class<?> raw) {
+        Type elementType = typeArgument(type, 0);
+        Collection<Object> collection = newCollection(raw);
+        reader.expect('[');
+        if (!reader.consume(']')) {
+            do {
+                collection.add(readValue(reader, elementType));
+            } while (reader.consume(','));
+            reader.expect(']');
+        }
+        return collection;
+    }
+
+    private static Object readMap(JsonReader reader, Type type, Class<?> raw) {
+        Type keyType = typeArgument(type, 0);
+        Type valueType = typeArgument(type, 1);
+        Map<Object, Object> map = newMap(raw);
+        reader.expect('{');
+        if (!reader.consume('}')) {
+            do {
+                String key = reader.readString();
+                reader.expect(':');
+                map.put(convertKey(reader, key, rawClass(keyType)), readValue(reader, valueType));
+            } while (reader.consume(','));
+            reader.expect('}');
+        }
+        return map;
+    }
+
+    /**
+     * 数组：int[]、long[]、double[] 直接写入基本类型数组，不装箱
+     */
+    private static Object readArray(JsonReader reader, Type type, Class<?> raw) {
+        Class<?> component = raw.getComponentType();
+        reader.expect('[');
+        if (reader.consume(']')) {
+            return Array.newInstance(component, 0);
+        }
+        if (component == int.class) {
+            int[] values = new int[8];
+            int size = 0;
+            do {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size++] = reader.readInt();
+            } while (reader.consume(','));
+            reader.expect(']');
+            return Arrays.copyOf(values, size);
+        }
+        if (component == long.class) {
+            long[] values = new long[8];
+            int size = 0;
+            do {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size++] = reader.readLong();
+            } while (reader.consume(','));
+            reader.expect(']');
+            return Arrays.copyOf(values, size);
+        }
+        if (component == double.class) {
+            double[] values = new double[8];
+            int size = 0;
+            do {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size++] = reader.readDouble();
+            } while (reader.consume(','));
+            reader.expect(']');
+            return Arrays.copyOf(values, size);
+        }
+        Type componentType = type instanceof GenericArrayType
+            ? ((GenericArrayType) type).getGenericComponentType()
+            : component;
+        List<Object> items = new ArrayList<>();
+        do {
+            items.add(readValue(reader, componentType));
+        } while (reader.consume(','));
+        reader.expect(']');
+        Object array = Array.newInstance(component, items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Array.set(array, i, items.get(i));
+        }
+        return array;
+    }
+
+    /**
+     * 目标类型为 Object 时：对象 -> LinkedHashMap，数组 -> ArrayList，
+     * 整数 -> Long，小数 -> Double
+     */
+    private static Object readUntyped(JsonReader reader) {
+        int c = reader.peek();
+        switch (c) {
+            case '{':
+                return readMap(reader, Map.class, LinkedHashMap.class);
+            case '[':
+                return readCollection(reader, List.class, ArrayList.class);
+            case '"':
+                return reader.readString();
+            case 't':
+            case 'f':
+                return reader.readBoolean();
+            default:
+                String number = reader.readNumberText();
+                if (number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0) {
+                    try {
+                        return Long.parseLong(number);
+                    } catch (NumberFormatException e) {
+                        return new BigInteger(number);
+                    }
+                }
+                return Double.parseDouble(number);
+        }
+    }
+
+    private static long readRanged(JsonReader reader, long min, long max) {
+        long value = reader.readLong();
+        if (value < min || value > max) {
+            throw reader.error("数值超出范围：" + value);
+        }
+        return value;
+    }
+
+    private static char readChar(JsonReader reader) {
+        String value = reader.readString();
+        if (value.length() != 1) {
+            throw reader.error("期望单个字符：" + value);
+        }
+        return value.charAt(0);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object readEnum(JsonReader reader, Class<?> raw) {
+        String name = reader.readString();
+        try {
+            return Enum.valueOf((Class) raw, name);
+        } catch (IllegalArgumentException e) {
+            throw reader.error("未知的枚举值：" + name);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object convertKey(JsonReader reader, String key, Class<?> keyType) {
+        try {
+            if (keyType == String.class || keyType == Object.class || keyType == CharSequence.class) {
+                return key;
+            } else if (keyType == Integer.class) {
+                return Integer.valueOf(key);
+            } else if (keyType == Long.class) {
+                return Long.valueOf(key);
+            } else if (keyType.isEnum()) {
+                return Enum.valueOf((Class) keyType, key);
+            }
+        } catch (IllegalArgumentException e) {
+            throw reader.error("非法的 Map 键：" + key);
+        }
+        throw reader.error("不支持的 Map 键类型：" + keyType.getName());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Object> newCollection(Class<?> raw) {
+        if (raw.isInterface() || Modifier.isAbstract(raw.getModifiers())) {
+            if (SortedSet.class.isAssignableFrom(raw)) {
+                return new TreeSet<>();
+            }
+            if (Set.class.isAssignableFrom(raw)) {
+                return new LinkedHashSet<>();
+            }
+            return new ArrayList<>();
+        }
+        return (Collection<Object>) instantiate(raw);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> newMap(Class<?> raw) {
+        if (raw.isInterface() || Modifier.isAbstract(raw.getModifiers())) {
+            return SortedMap.class.isAssignableFrom(raw) ? new TreeMap<>() : new LinkedHashMap<>();
+        }
+        return (Map<Object, Object>) instantiate(raw);
+    }
+
+    /**
+     * 具体的集合类型（如 ArrayDeque）：使用缓存的公共无参构造方法
+     */
+    private static Object instantiate(Class<?> raw) {
+        try {
+            return (Object) PUBLIC_CONSTRUCTORS.get(raw).invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("创建对象失败：" + raw.getName(), t);
+        }
+    }
+
+    private static final ClassValue<MethodHandle> PUBLIC_CONSTRUCTORS = new ClassValue<MethodHandle>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            try {
+                return MethodHandles.publicLookup()
+                    .findConstructor(type, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("缺少公共无参构造方法：" + type.getName(), e);
+            }
+        }
+    };
+
+    static Class<?> rawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        } else if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        } else if (type instanceof GenericArrayType) {
+            Class<?> component = rawClass(((GenericArrayType) type).getGenericComponentType());
+            return Array.newInstance(component, 0).getClass();
+        } else if (type instanceof TypeVariable) {
+            Type[] bounds = ((TypeVariable<?>) type).getBounds();
+            return bounds.length > 0 ? rawClass(bounds[0]) : Object.class;
+        } else if (type instanceof WildcardType) {
+            Type[] bounds = ((WildcardType) type).getUpperBounds();
+            return bounds.length > 0 ? rawClass(bounds[0]) : Object.class;
+        }
+        return Object.class;
+    }
+
+    private static Type typeArgument(Type type, int index) {
+        if (type instanceof ParameterizedType) {
+            Type[] args = ((ParameterizedType) type).getActualTypeArguments();
+            if (index < args.length) {
+                return args[index];
+            }
+        }
+        return Object.class;
+    }
+
+    /**
+     * 单个属性的绑定信息
+     */
+    static final class Property {
+        final int index;
+        final byte[] nameBytes;
+        final Type genericType;
+        final JsonClassPlan.Kind kind;
+        final MethodHandle setter;   // 引用类型为 (Object,Object)void，基本类型为 (Object,int)void 等
+
+        Property(int index, String name, Type genericType, Class<?> type, MethodHandle setter) {
+            this.index = index;
+            this.nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            this.genericType = genericType;
+            this.kind = JsonClassPlan.kindOf(type);
+            this.setter = setter == null ? null : setter.asType(MethodType.methodType(
+                void.class, Object.class, type.isPrimitive() ? type : Object.class));
+        }
+
+        boolean matches(byte[] bytes, int length) {
+            return nameBytes.length == length
+                && Arrays.equals(nameBytes, 0, length, bytes, 0, length);
+        }
+
+        /**
+         * 读取一个值并写入目标对象；基本类型不装箱，null 保持字段默认值
+         */
+        void read(JsonReader reader, Object target) {
+            try {
+                switch (kind) {
+                    case INT:
+                        if (!reader.consumeNull()) {
+                            setter.invokeExact(target, reader.readInt());
+                        }
+                        break;
+                    case LONG:
+                        if (!reader.consumeNull()) {
+                            setter.invokeExact(target, reader.readLong());
+                        }
+                        break;
+                    case DOUBLE:
+                        if (!reader.consumeNull()) {
+                            setter.invokeExact(target, reader.readDouble());
+                        }
+                        break;
+                    case BOOLEAN:
+                        if (!reader.consumeNull()) {
+                            setter.invokeExact(target, reader.readBoolean());
+                        }
+                        break;
+                    case OBJECT:
+                        setter.invokeExact(target, readValue(reader, genericType));
+                        break;
+                    default:
+                        // float、short、byte、char：较少使用，走通用路径
+                        if (!reader.consumeNull()) {
+                            setter.invoke(target, readValue(reader, genericType));
+                        }
+                }
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException("写入属性失败：" + new String(nameBytes, StandardCharsets.UTF_8), t);
+            }
+        }
+    }
+
+    /**
+     * 反序列化绑定计划（每个类只构建一次）
+     */
+    static final class BindingPlan {
+        private static final ClassValue<BindingPlan> PLANS = new ClassValue<BindingPlan>() {
+            @Override
+            protected BindingPlan computeValue(Class<?> type) {
+                return new BindingPlan(type);
+            }
+        };
+
+        final Class<?> type;
+        final Property[] properties;
+        final MethodHandle defaultConstructor;   // ()Object，没有无参构造方法时为 null
+        final MethodHandle allArgsConstructor;   // (Object[])Object
+
+        private BindingPlan(Class<?> type) {
+            this.type = type;
+            MethodHandles.Lookup lookup;
+            try {
+                lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            } catch (IllegalAccessException | RuntimeException e) {
+                throw new IllegalArgumentException("无法访问类：" + type.getName(), e);
+            }
+
+            List<Field> fields = new ArrayList<>();
+            for (Field field : type.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()) {
+                    fields.add(field);
+                }
+            }
+
+            MethodHandle noArgs = null;
+            MethodHandle allArgs = null;
+            try {
+                noArgs = lookup.findConstructor(type, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                allArgs = findAllArgsConstructor(lookup, type, fields);
+            }
+            this.defaultConstructor = noArgs;
+            this.allArgsConstructor = allArgs;
+
+            Property[] props = new Property[fields.size()];
+            for (int i = 0; i < props.length; i++) {
+                Field field = fields.get(i);
+                MethodHandle setter = noArgs != null ? findSetter(lookup, type, field) : null;
+                props[i] = new Property(i, field.getName(), field.getGenericType(), field.getType(), setter);
+            }
+            this.properties = props;
+        }
+
+        static BindingPlan of(Class<?> type) {
+            return PLANS.get(type);
+        }
+
+        Property find(byte[] name, int length) {
+            for (Property property : properties) {
+                if (property.matches(name, length)) {
+                    return property;
+                }
+            }
+            return null;
+        }
+
+        Object newInstance() {
+            try {
+                return (Object) defaultConstructor.invokeExact();
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException("创建对象失败：" + type.getName(), t);
+            }
+        }
+
+        Object newInstance(Object[] args) {
+            for (int i = 0; i < args.length; i++) {
+                // JSON 中缺失的基本类型参数使用默认值
+                Class<?> paramType = rawClass(properties[i].genericType);
+                if (args[i] == null && paramType.isPrimitive()) {
+                    args[i] = Array.get(Array.newInstance(paramType, 1), 0);
+                }
+            }
+            try {
+                return (Object) allArgsConstructor.invokeExact(args);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException("创建对象失败：" + type.getName(), t);
+            }
+        }
+
+        /**
+         * 优先使用 setXxx 方法，没有时直接写字段；final 字段无法写入则忽略
+         */
+        private static MethodHandle findSetter(MethodHandles.Lookup lookup, Class<?> type, Field field) {
+            String name = field.getName();
+            String setterName = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            try {
+                Method method = type.getDeclaredMethod(setterName, field.getType());
+                if (!Modifier.isStatic(method.getModifiers())) {
+                    return lookup.unreflect(method);
+                }
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                // 没有 setter，退回到直接写字段
+            }
+            try {
+                return Modifier.isFinal(field.getModifiers()) ? null : lookup.unreflectSetter(field);
+            } catch (IllegalAccessException e) {
+                return null;
+            }
+        }
+
+        private static MethodHandle findAllArgsConstructor(MethodHandles.Lookup lookup, Class<?> type,
+                                                           List<Field> fields) {
+            Class<?>[] fieldTypes = new Class<?>[fields.size()];
+            for (int i = 0; i < fieldTypes.length; i++) {
+                fieldTypes[i] = fields.get(i).getType();
+            }
+            for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+                if (Arrays.equals(constructor.getParameterTypes(), fieldTypes)) {
+                    try {
+                        return lookup.unreflectConstructor(constructor)
+                            .asSpreader(Object[].class, fieldTypes.length)
+                            .asType(MethodType.methodType(Object.class, Object[].class));
+                    } catch (IllegalAccessException e) {
+                        break;
+                    }
+                }
+            }
+            throw new IllegalArgumentException("缺少无参构造方法或全参构造方法：" + type.getName());
+        }
+    }
+}
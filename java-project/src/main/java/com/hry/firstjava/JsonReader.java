@@ -0,0 +1,420 @@
+package com.hry.firstjava;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * JSON 词法读取器（拉取式）
+ *
+ * 逐个读取 token，不构建中间语法树；输入可以是字节数组，也可以是按需填充缓冲区的输入流。
+ * 字符串先解码到内部复用的字节缓冲区，调用方可以直接比较字节，避免创建 String。
+ */
+final class JsonReader {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final InputStream in;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private long consumed;  // 已经丢弃的字节数，用于错误信息中的位置
+
+    private byte[] scratch = new byte[64];
+    private int scratchLength;
+
+    JsonReader(byte[] data) {
+        this.in = null;
+        this.buffer = data;
+        this.limit = data.length;
+    }
+
+    JsonReader(InputStream in) {
+        this.in = in;
+        this.buffer = new byte[BUFFER_SIZE];
+    }
+
+    /**
+     * 跳过空白后查看下一个字节（不消费），输入结束时返回 -1
+     */
+    int peek() {
+        while (true) {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            byte b = buffer[position];
+            if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                position++;
+            } else {
+                return b & 0xFF;
+            }
+        }
+    }
+
+    /**
+     * 如果下一个非空白字节是 c 则消费它
+     */
+    boolean consume(char c) {
+        if (peek() == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    void expect(char c) {
+        if (!consume(c)) {
+            throw error("期望 '" + c + "'");
+        }
+    }
+
+    /**
+     * 下一个值是 null 时消费它并返回 true
+     */
+    boolean consumeNull() {
+        if (peek() != 'n') {
+            return false;
+        }
+        expectLiteral("null");
+        return true;
+    }
+
+    boolean readBoolean() {
+        int c = peek();
+        if (c == 't') {
+            expectLiteral("true");
+            return true;
+        }
+        if (c == 'f') {
+            expectLiteral("false");
+            return false;
+        }
+        throw error("期望布尔值");
+    }
+
+    /**
+     * 读取字符串并解码到内部缓冲区，返回 UTF-8 字节长度
+     * 结果通过 scratch() 访问，在下一次读取前有效
+     */
+    int readStringBytes() {
+        expect('"');
+        scratchLength = 0;
+        while (true) {
+            int b = read();
+            if (b == '"') {
+                return scratchLength;
+            }
+            if (b == '\\') {
+                readEscape();
+            } else if (b < 0) {
+                throw error("字符串未结束");
+            } else {
+                append((byte) b);
+            }
+        }
+    }
+
+    String readString() {
+        int length = readStringBytes();
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    byte[] scratch() {
+        return scratch;
+    }
+
+    /**
+     * 读取一个整数；带小数或指数但值为整数（如 2.0、1e3）时也接受
+     */
+    long readLong() {
+        int length = readNumberToken();
+        byte[] digits = scratch;
+        int i = 0;
+        boolean negative = digits[0] == '-';
+        if (negative) {
+            i++;
+        }
+        if (i == length) {
+            throw error("非法数字");
+        }
+        // 与 Long.parseLong 相同：用负数累加（负数范围多一个值），乘 10 和减去数字之前都检查下限
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyMin = limit / 10;
+        long result = 0;
+        for (; i < length; i++) {
+            int d = digits[i] - '0';
+            if (d < 0 || d > 9) {
+                return exactLong(Double.parseDouble(tokenString(length)));
+            }
+            if (result < multiplyMin) {
+                throw error("整数溢出：" + tokenString(length));
+            }
+            result *= 10;
+            if (result < limit + d) {
+                throw error("整数溢出：" + tokenString(length));
+            }
+            result -= d;
+        }
+        return negative ? result : -result;
+    }
+
+    int readInt() {
+        long value = readLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw error("超出 int 范围：" + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * 读取浮点数；不超过 15 位的纯整数不经过 Double.parseDouble
+     */
+    double readDouble() {
+        int length = readNumberToken();
+        byte[] digits = scratch;
+        int start = digits[0] == '-' ? 1 : 0;
+        if (length - start > 0 && length - start <= 15) {
+            long value = 0;
+            int i = start;
+            for (; i < length; i++) {
+                int d = digits[i] - '0';
+                if (d < 0 || d > 9) {
+                    break;
+                }
+                value = value * 10 + d;
+            }
+            if (i == length) {
+                return start == 1 ? -(double) value : (double) value;
+            }
+        }
+        return Double.parseDouble(tokenString(length));
+    }
+
+    /**
+     * 读取数字的原始文本（用于 BigDecimal 等）
+     */
+    String readNumberText() {
+        return tokenString(readNumberToken());
+    }
+
+    /**
+     * 跳过任意一个值（未知字段）
+     */
+    void skipValue() {
+        int c = peek();
+        switch (c) {
+            case '{':
+                position++;
+                if (consume('}')) {
+                    return;
+                }
+                do {
+                    readStringBytes();
+                    expect(':');
+                    skipValue();
+                } while (consume(','));
+                expect('}');
+                return;
+            case '[':
+                position++;
+                if (consume(']')) {
+                    return;
+                }
+                do {
+                    skipValue();
+                } while (consume(','));
+                expect(']');
+                return;
+            case '"':
+                readStringBytes();
+                return;
+            case 't':
+            case 'f':
+                readBoolean();
+                return;
+            case 'n':
+                expectLiteral("null");
+                return;
+            default:
+                readNumberToken();
+        }
+    }
+
+    /**
+     * 确认输入中没有多余内容
+     */
+    void expectEnd() {
+        if (peek() != -1) {
+            throw error("JSON 结束后还有多余内容");
+        }
+    }
+
+    IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("JSON 解析错误（位置 " + (consumed + position) + "）：" + message);
+    }
+
+    private int readNumberToken() {
+        int c = peek();
+        if (c != '-' && (c < '0' || c > '9')) {
+            throw error("期望数字");
+        }
+        scratchLength = 0;
+        while (true) {
+            if (position == limit && !fill()) {
+                break;
+            }
+            byte b = buffer[position];
+            if ((b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E') {
+                append(b);
+                position++;
+            } else {
+                break;
+            }
+        }
+        return scratchLength;
+    }
+
+    private String tokenString(int length) {
+        return new String(scratch, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    private long exactLong(double value) {
+        long result = (long) value;
+        if (result != value || value >= 0x1p63) {  // 2^63 转换时被截成 Long.MAX_VALUE
+            throw error("期望整数：" + value);
+        }
+        return result;
+    }
+
+    private void readEscape() {
+        int e = read();
+        switch (e) {
+            case '"': append((byte) '"'); break;
+            case '\\': append((byte) '\\'); break;
+            case '/': append((byte) '/'); break;
+            case 'b': append((byte) '\b'); break;
+            case 'f': append((byte) '\f'); break;
+            case 'n': append((byte) '\n'); break;
+            case 'r': append((byte) '\r'); break;
+            case 't': append((byte) '\t'); break;
+            case 'u':
+                int cp = readHex4();
+                // 只有后面紧跟 \\u 时才当作代理对；否则输出 '?'，后面的转义照常处理
+                if (Character.isHighSurrogate((char) cp) && peekRaw(0) == '\\' && peekRaw(1) == 'u') {
+                    position += 2;
+                    int low = readHex4();
+                    if (Character.isLowSurrogate((char) low)) {
+                        cp = Character.toCodePoint((char) cp, (char) low);
+                    } else {
+                        appendCodePoint('?');
+                        cp = low;
+                    }
+                } else if (Character.isSurrogate((char) cp)) {
+                    cp = '?';  // 不成对的代理字符
+                }
+                appendCodePoint(cp);
+                break;
+            default:
+                throw error("非法转义字符");
+        }
+    }
+
+    private int readHex4() {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int c = read();
+            int digit = Character.digit(c, 16);
+            if (c < 0 || digit < 0) {
+                throw error("非法的 \\u 转义");
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    private void appendCodePoint(int cp) {
+        if (Character.isSurrogate((char) cp) && cp < 0x10000) {
+            cp = '?';
+        }
+        if (cp < 0x80) {
+            append((byte) cp);
+        } else if (cp < 0x800) {
+            append((byte) (0xC0 | (cp >> 6)));
+            append((byte) (0x80 | (cp & 0x3F)));
+        } else if (cp < 0x10000) {
+            append((byte) (0xE0 | (cp >> 12)));
+            append((byte) (0x80 | ((cp >> 6) & 0x3F)));
+            append((byte) (0x80 | (cp & 0x3F)));
+        } else {
+            append((byte) (0xF0 | (cp >> 18)));
+            append((byte) (0x80 | ((cp >> 12) & 0x3F)));
+            append((byte) (0x80 | ((cp >> 6) & 0x3F)));
+            append((byte) (0x80 | (cp & 0x3F)));
+        }
+    }
+
+    private void expectLiteral(String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            if (read() != literal.charAt(i)) {
+                throw error("期望 " + literal);
+            }
+        }
+    }
+
+    private void append(byte b) {
+        if (scratchLength == scratch.length) {
+            scratch = Arrays.copyOf(scratch, scratchLength * 2);
+        }
+        scratch[scratchLength++] = b;
+    }
+
+    private int read() {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    /**
+     * 查看 position 之后第 offset 个字节（不消费）；缓冲区里不够时把剩余字节移到开头再读
+     */
+    private int peekRaw(int offset) {
+        if (limit - position <= offset && in != null) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            consumed += position;
+            limit -= position;
+            position = 0;
+            try {
+                while (limit <= offset) {
+                    int n = in.read(buffer, limit, buffer.length - limit);
+                    if (n <= 0) {
+                        break;
+                    }
+                    limit += n;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return position + offset < limit ? buffer[position + offset] & 0xFF : -1;
+    }
+
+    private boolean fill() {
+        if (in == null) {
+            return false;
+        }
+        try {
+            int n = in.read(buffer, 0, buffer.length);
+            if (n <= 0) {
+                return false;
+            }
+            consumed += limit;
+            position = 0;
+            limit = n;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.hry.firstjava;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * JSON 序列化器（使用反射）
+ * 每个类的字段访问器只在第一次使用时构建，之后复用缓存的 JsonClassPlan；
+ * 输出直接编码为 UTF-8 写入线程复用的缓冲区
+ *
+ * 支持嵌套对象、数组、Collection/Iterable、Map（键转为字符串）和枚举，
+ * 基本类型字段通过类型化的访问器写出，不装箱；遇到循环引用时抛出 IllegalArgumentException。
+ * @Entity 类优先使用注解处理器生成的序列化代码（见 EntityProcessor）。
+ */
+class JsonSerializer {
+    public static String toJson(Object obj) {
+        JsonWriter writer = JsonWriter.acquire(null, null);
+        try {
+            writeValue(writer, obj);
+            return writer.toUtf8String();
+        } finally {
+            writer.release();
+        }
+    }
+
+    /**
+     * 直接把 UTF-8 编码的 JSON 写入输出流（不生成中间 String）
+     */
+    public static void toJson(Object obj, OutputStream out) throws IOException {
+        JsonWriter writer = JsonWriter.acquire(out, null);
+        try {
+            writeValue(writer, obj);
+            writer.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            writer.release();
+        }
+    }
+
+    /**
+     * 直接把 UTF-8 编码的 JSON 写入 ByteBuffer，空间不足时抛出 BufferOverflowException
+     */
+    public static void toJson(Object obj, ByteBuffer target) {
+        JsonWriter writer = JsonWriter.acquire(null, target);
+        try {
+            writeValue(writer, obj);
+            writer.flush();
+        } finally {
+            writer.release();
+        }
+    }
+
+    /**
+     * 顶层对象只走反射路径（忽略生成的实体代码），用于校验生成代码的输出
+     */
+    static String toJsonReflective(Object obj) {
+        JsonWriter writer = JsonWriter.acquire(null, null);
+        try {
+            writeObject(writer, obj);
+            return writer.toUtf8String();
+        } finally {
+            writer.release();
+        }
+    }
+
+    static void writeValue(JsonWriter writer, Object value) {
+        if (value == null) {
+            writer.writeNull();
+        } else if (value instanceof CharSequence) {
+            writer.writeString((CharSequence) value);  // 转义引号、反斜杠和控制字符
+        } else if (value instanceof Integer || value instanceof Long
+                || value instanceof Short || value instanceof Byte) {
+            writer.writeLong(((Number) value).longValue());
+        } else if (value instanceof Double) {
+            writer.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            writer.writeFloat((Float) value);
+        } else if (value instanceof Boolean) {
+            writer.writeBoolean((Boolean) value);
+        } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+            writer.writeRaw(value.toString());
+        } else if (value instanceof DoubleAdder || value instanceof DoubleAccumulator) {
+            writer.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Number && isJdkValueType(value.getClass())) {
+            // AtomicLong、LongAdder 等 JDK 整数类型：写成数字，不走下面的 toString 字符串
+            writer.writeLong(((Number) value).longValue());
+        } else if (value instanceof Character) {
+            writer.writeString(value.toString());
+        } else if (value instanceof Enum) {
+            writer.writeString(((Enum<?>) value).name());
+        } else if (value instanceof Optional) {
+            writeValue(writer, ((Optional<?>) value).orElse(null));
+        } else if (value instanceof Map) {
+            writeMap(writer, (Map<?, ?>) value);
+        } else if (value instanceof List && value instanceof RandomAccess) {
+            writeList(writer, (List<?>) value);
+        } else if (value instanceof Iterable) {
+            writeIterable(writer, (Iterable<?>) value);
+        } else if (value.getClass().isArray()) {
+            writeArray(writer, value);
+        } else if (isJdkValueType(value.getClass())) {
+            // 日期、UUID 等 JDK 值类型：字段不可访问，使用 toString
+            writer.writeString(value.toString());
+        } else {
+            EntityMetadata<Object> entity = EntityMetadata.lookup(value.getClass());
+            if (entity != null) {
+                entity.writeJson(value, writer);  // @Entity 类：使用编译期生成的代码
+            } else {
+                writeObject(writer, value);
+            }
+        }
+    }
+
+    private static void writeObject(JsonWriter writer, Object obj) {
+        JsonClassPlan plan = JsonClassPlan.of(obj.getClass());
+        writer.enter(obj);
+        writer.writeByte((byte) '{');
+        boolean first = true;
+
+        for (JsonClassPlan.FieldPlan field : plan.fields) {
+            if (!first) {
+                writer.writeByte((byte) ',');
+            }
+            writer.writeBytes(field.prefixBytes);
+
+            switch (field.kind) {
+                case INT:
+                    writer.writeLong(field.getInt(obj));
+                    break;
+                case LONG:
+                    writer.writeLong(field.getLong(obj));
+                    break;
+                case DOUBLE:
+                    writer.writeDouble(field.getDouble(obj));
+                    break;
+                case FLOAT:
+                    writer.writeFloat(field.getFloat(obj));
+                    break;
+                case BOOLEAN:
+                    writer.writeBoolean(field.getBoolean(obj));
+                    break;
+                case SHORT:
+                    writer.writeLong(field.getShort(obj));
+                    break;
+                case BYTE:
+                    writer.writeLong(field.getByte(obj));
+                    break;
+                case CHAR:
+                    writer.writeString(String.valueOf(field.getChar(obj)));
+                    break;
+                default:
+                    writeValue(writer, field.get(obj));
+            }
+            first = false;
+        }
+
+        writer.writeByte((byte) '}');
+        writer.exit();
+    }
+
+    private static void writeMap(JsonWriter writer, Map<?, ?> map) {
+        writer.enter(map);
+        writer.writeByte((byte) '{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!first) {
+                writer.writeByte((byte) ',');
+            }
+            Object key = entry.getKey();
+            writer.writeString(key instanceof CharSequence ? (CharSequence) key : String.valueOf(key));
+            writer.writeByte((byte) ':');
+            writeValue(writer, entry.getValue());
+            first = false;
+        }
+        writer.writeByte((byte) '}');
+        writer.exit();
+    }
+
+    /**
+     * 支持随机访问的 List 按下标遍历，不创建 Iterator
+     */
+    private static void writeList(JsonWriter writer, List<?> list) {
+        writer.enter(list);
+        writer.writeByte((byte) '[');
+        int size = list.size();
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                writer.writeByte((byte) ',');
+            }
+            writeValue(writer, list.get(i));
+        }
+        writer.writeByte((byte) ']');
+        writer.exit();
+    }
+
+    private static void writeIterable(JsonWriter writer, Iterable<?> items) {
+        writer.enter(items);
+        writer.writeByte((byte) '[');
+        boolean first = true;
+        for (Object item : items) {
+            if (!first) {
+                writer.writeByte((byte) ',');
+            }
+            writeValue(writer, item);
+            first = false;
+        }
+        writer.writeByte((byte) ']');
+        writer.exit();
+    }
+
+    /**
+     * 数组：基本类型数组逐个元素直接写出，不装箱
+     */
+    private static void writeArray(JsonWriter writer, Object array) {
+        writer.enter(array);
+        writer.writeByte((byte) '[');
+        if (array instanceof int[]) {
+            int[] values = (int[]) array;
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.writeByte((byte) ',');
+                }
+                writer.writeLong(values[i]);
+            }
+        } else if (array instanceof long[]) {
+            long[] values = (long[]) array;
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.writeByte((byte) ',');
+                }
+                writer.writeLong(values[i]);
+            }
+        } else if (array instanceof double[]) {
+            double[] values = (double[]) array;
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.writeByte((byte) ',');
+                }
+                writer.writeDouble(values[i]);
+            }
+        } else if (array instanceof float[]) {
+            float[] values = (float[]) array;
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.writeByte((byte) ',');
+                }
+                writer.writeFloat(values[i]);
+            }
+        } else if (array instanceof boolean[]) {
+            boolean[] values = (boolean[]) array;
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.writeByte((byte) ',');
+                }
+                writer.writeBoolean(values[i]);
+            }
+        } else if (array instanceof short[]) {
+            short[] values = (short[]) array;
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.writeByte((byte) ',');
+                }
+                writer.writeLong(values[i]);
+            }
+        } else if (array instanceof byte[]) {
+            byte[] values = (byte[]) array;
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.writeByte((byte) ',');
+                }
+                writer.writeLong(values[i]);
+            }
+        } else if (array instanceof char[]) {
+            char[] values = (char[]) array;
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.writeByte((byte) ',');
+                }
+                writer.writeString(String.valueOf(values[i]));
+            }
+        } else {
+            Object[] values = (Object[]) array;
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.writeByte((byte) ',');
+                }
+                writeValue(writer, values[i]);
+            }
+        }
+        writer.writeByte((byte) ']');
+        writer.exit();
+    }
+
+    private static boolean isJdkValueType(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.");
+    }
+}
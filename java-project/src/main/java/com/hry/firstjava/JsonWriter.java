@@ -0,0 +1,343 @@
+package com.hry.firstjava;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * JSON 字节写入器
+ *
+ * 直接把 UTF-8 编码写入可复用的字节缓冲区，缓冲区满时刷到 OutputStream 或 ByteBuffer；
+ * 没有输出目标时缓冲区自动扩容（用于生成 String）。每个线程复用一个实例。
+ * 同时记录当前序列化路径上的容器对象，用于检测循环引用。
+ */
+final class JsonWriter {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_POOLED_SIZE = 1024 * 1024;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MIN_LONG = "-9223372036854775808".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_DEPTH = 1000;
+
+    private static final ThreadLocal<JsonWriter> POOL = ThreadLocal.withInitial(JsonWriter::new);
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private OutputStream out;
+    private ByteBuffer target;
+    private boolean inUse;
+    private Object[] path = new Object[16];
+    private int depth;
+
+    private JsonWriter() {
+    }
+
+    /**
+     * 获取当前线程复用的写入器，用完后必须调用 release
+     * 嵌套调用（例如在 toString 中再次序列化）时返回一个新的临时实例
+     */
+    static JsonWriter acquire(OutputStream out, ByteBuffer target) {
+        JsonWriter writer = POOL.get();
+        if (writer.inUse) {
+            writer = new JsonWriter();
+        }
+        writer.inUse = true;
+        writer.out = out;
+        writer.target = target;
+        writer.position = 0;
+        return writer;
+    }
+
+    void release() {
+        out = null;
+        target = null;
+        position = 0;
+        Arrays.fill(path, 0, depth, null);
+        depth = 0;
+        inUse = false;
+        // 避免一次超大输出让线程长期持有大缓冲区
+        if (buffer.length > MAX_POOLED_SIZE) {
+            buffer = new byte[BUFFER_SIZE];
+        }
+    }
+
+    /**
+     * 把缓冲区剩余内容写到输出目标
+     */
+    void flush() {
+        if (position == 0) {
+            return;
+        }
+        if (out != null) {
+            try {
+                out.write(buffer, 0, position);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else if (target != null) {
+            target.put(buffer, 0, position);  // 空间不足时抛出 BufferOverflowException
+        } else {
+            return;
+        }
+        position = 0;
+    }
+
+    /**
+     * 没有输出目标时，把已写入的内容解码为 String
+     */
+    String toUtf8String() {
+        return new String(buffer, 0, position, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 进入一个对象/数组/集合，如果它已经在当前路径上则说明存在循环引用
+     * 路径通常很浅，线性查找比 IdentityHashMap 更省内存分配
+     */
+    void enter(Object container) {
+        for (int i = 0; i < depth; i++) {
+            if (path[i] == container) {
+                throw new IllegalArgumentException("检测到循环引用：" + container.getClass().getName());
+            }
+        }
+        if (depth == MAX_DEPTH) {
+            throw new IllegalArgumentException("对象嵌套层数超过 " + MAX_DEPTH);
+        }
+        if (depth == path.length) {
+            path = Arrays.copyOf(path, depth * 2);
+        }
+        path[depth++] = container;
+    }
+
+    void exit() {
+        path[--depth] = null;
+    }
+
+    void writeNull() {
+        writeBytes(NULL);
+    }
+
+    void writeBoolean(boolean value) {
+        writeBytes(value ? TRUE : FALSE);
+    }
+
+    /**
+     * 直接写出十进制数字，不创建 String
+     */
+    void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeBytes(MIN_LONG);
+            return;
+        }
+        ensure(20);
+        byte[] buf = buffer;
+        if (value < 0) {
+            buf[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        int end = position + digits;
+        for (int i = end - 1; i >= position; i--) {
+            buf[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position = end;
+    }
+
+    /**
+     * 写出浮点数；NaN 和无穷大在 JSON 中没有表示，输出 null
+     * [0.001, 10^7) 范围内最多三位小数的值走快速路径（不创建 String），
+     * 输出的十进制文本能精确还原为同一个 double
+     */
+    void writeDouble(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            writeNull();
+            return;
+        }
+        double abs = Math.abs(value);
+        if (abs >= 1e-3 && abs < 1e7) {
+            long scaled = Math.round(abs * 1000);
+            if (scaled / 1000.0 == abs) {
+                if (value < 0) {
+                    writeByte((byte) '-');
+                }
+                writeLong(scaled / 1000);
+                writeByte((byte) '.');
+                int fraction = (int) (scaled % 1000);
+                if (fraction == 0) {
+                    writeByte((byte) '0');
+                } else {
+                    // 去掉末尾的 0：250 -> "25"，5 -> "005"
+                    int digits = 3;
+                    while (fraction % 10 == 0) {
+                        fraction /= 10;
+                        digits--;
+                    }
+                    for (int pow = digits - 1; pow >= 0; pow--) {
+                        int divisor = pow == 2 ? 100 : pow == 1 ? 10 : 1;
+                        writeByte((byte) ('0' + fraction / divisor % 10));
+                    }
+                }
+                return;
+            }
+        } else if (value == 0) {
+            writeRaw(1 / value > 0 ? "0.0" : "-0.0");
+            return;
+        }
+        writeRaw(Double.toString(value));
+    }
+
+    void writeFloat(float value) {
+        if (Float.isNaN(value) || Float.isInfinite(value)) {
+            writeNull();
+        } else if (value == (long) value && Math.abs(value) < 1e7f
+                && (value != 0 || 1 / value > 0)) {
+            writeLong((long) value);
+            writeByte((byte) '.');
+            writeByte((byte) '0');
+        } else {
+            writeRaw(Float.toString(value));
+        }
+    }
+
+    void writeByte(byte b) {
+        if (position == buffer.length) {
+            makeRoom(1);
+        }
+        buffer[position++] = b;
+    }
+
+    void writeBytes(byte[] bytes) {
+        if (position + bytes.length > buffer.length) {
+            makeRoom(bytes.length);
+            if (bytes.length > buffer.length) {
+                flush();
+                writeLarge(bytes);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    /**
+     * 写入带引号并转义的 JSON 字符串
+     */
+    void writeString(CharSequence value) {
+        writeByte((byte) '"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c >= 0x20 && c != '"' && c != '\\') {
+                    writeByte((byte) c);
+                } else {
+                    writeEscaped(c);
+                }
+            } else {
+                i = writeUtf8(value, i, c);
+            }
+        }
+        writeByte((byte) '"');
+    }
+
+    /**
+     * 写入不加引号、不转义的文本（数字、true/false 等）
+     */
+    void writeRaw(CharSequence value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                writeByte((byte) c);
+            } else {
+                i = writeUtf8(value, i, c);
+            }
+        }
+    }
+
+    private void writeEscaped(char c) {
+        ensure(6);
+        byte[] buf = buffer;
+        buf[position++] = '\\';
+        switch (c) {
+            case '"': buf[position++] = '"'; break;
+            case '\\': buf[position++] = '\\'; break;
+            case '\b': buf[position++] = 'b'; break;
+            case '\f': buf[position++] = 'f'; break;
+            case '\n': buf[position++] = 'n'; break;
+            case '\r': buf[position++] = 'r'; break;
+            case '\t': buf[position++] = 't'; break;
+            default:
+                buf[position++] = 'u';
+                buf[position++] = '0';
+                buf[position++] = '0';
+                buf[position++] = HEX[c >> 4];
+                buf[position++] = HEX[c & 0xF];
+        }
+    }
+
+    /**
+     * 写入一个非 ASCII 字符的 UTF-8 编码，返回最后消费的字符下标
+     */
+    private int writeUtf8(CharSequence value, int index, char c) {
+        ensure(4);
+        byte[] buf = buffer;
+        if (c < 0x800) {
+            buf[position++] = (byte) (0xC0 | (c >> 6));
+            buf[position++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && index + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(index + 1))) {
+            int cp = Character.toCodePoint(c, value.charAt(index + 1));
+            buf[position++] = (byte) (0xF0 | (cp >> 18));
+            buf[position++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+            buf[position++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+            buf[position++] = (byte) (0x80 | (cp & 0x3F));
+            return index + 1;
+        } else if (Character.isSurrogate(c)) {
+            buf[position++] = '?';  // 不成对的代理字符，与 String.getBytes 的行为一致
+        } else {
+            buf[position++] = (byte) (0xE0 | (c >> 12));
+            buf[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buf[position++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return index;
+    }
+
+    private void ensure(int bytes) {
+        if (position + bytes > buffer.length) {
+            makeRoom(bytes);
+        }
+    }
+
+    /**
+     * 有输出目标时先刷出；否则扩容
+     */
+    private void makeRoom(int bytes) {
+        if (out != null || target != null) {
+            flush();
+        }
+        if (position + bytes > buffer.length && out == null && target == null) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+        }
+    }
+
+    private void writeLarge(byte[] bytes) {
+        if (out != null) {
+            try {
+                out.write(bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            target.put(bytes);
+        }
+    }
+}
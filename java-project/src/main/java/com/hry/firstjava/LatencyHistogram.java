@@ -0,0 +1,146 @@
+package com.hry.firstjava;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 对数分桶的延迟直方图（HdrHistogram 的思路）
+ *
+ * 每个 2 的幂区间再线性分成 2^precisionBits 个子桶，相对误差不超过 1 / 2^precisionBits；
+ * 记录一次只是一次数组下标计算和一次原子加，不保存样本，内存只与可记录的范围和精度有关。
+ */
+class LatencyHistogram {
+    static final int DEFAULT_PRECISION_BITS = 7;                          // 误差 < 0.8%
+    static final long DEFAULT_HIGHEST_VALUE = TimeUnit.HOURS.toNanos(1);  // 超过的值按最大值记录
+
+    private final int precisionBits;
+    private final long highestValue;
+    private final AtomicLongArray counts;
+    private final AtomicLong maxValue = new AtomicLong();
+
+    public LatencyHistogram() {
+        this(DEFAULT_HIGHEST_VALUE, DEFAULT_PRECISION_BITS);
+    }
+
+    /**
+     * @param highestValue  可记录的最大值
+     * @param precisionBits 每个 2 的幂区间的子桶数 = 2^precisionBits
+     */
+    public LatencyHistogram(long highestValue, int precisionBits) {
+        if (precisionBits < 1 || precisionBits > 16) {
+            throw new IllegalArgumentException("precisionBits 必须在 1 到 16 之间：" + precisionBits);
+        }
+        if (highestValue < 1) {
+            throw new IllegalArgumentException("highestValue 必须大于 0：" + highestValue);
+        }
+        this.precisionBits = precisionBits;
+        this.highestValue = highestValue;
+        this.counts = new AtomicLongArray(indexOf(highestValue) + 1);
+    }
+
+    /**
+     * 记录一个值（例如纳秒延迟），负数按 0 记录
+     */
+    public void record(long value) {
+        long clamped = Math.min(Math.max(value, 0), highestValue);
+        counts.incrementAndGet(indexOf(clamped));
+        if (clamped > maxValue.get()) {
+            maxValue.accumulateAndGet(clamped, Math::max);
+        }
+    }
+
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    public long max() {
+        return maxValue.get();
+    }
+
+    /**
+     * 百分位数，例如 percentile(99.9)；返回所在桶的上界（不超过记录过的最大值），没有记录时返回 0
+     */
+    public long percentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("百分位必须在 0 到 100 之间：" + percentile);
+        }
+        long[] snapshot = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValueAt(i), maxValue.get());
+            }
+        }
+        return maxValue.get();
+    }
+
+    public double mean() {
+        long total = 0;
+        double sum = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            long n = counts.get(i);
+            if (n > 0) {
+                total += n;
+                sum += (double) n * (lowestValueAt(i) + highestValueAt(i)) / 2;
+            }
+        }
+        return total == 0 ? 0 : sum / total;
+    }
+
+    /**
+     * 清零（与并发记录之间不是原子的，清零期间的记录可能丢失）
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        maxValue.set(0);
+    }
+
+    /**
+     * 小于 2^p 的值每个值一个桶；之后每个 2 的幂区间 2^p 个桶
+     */
+    int indexOf(long value) {
+        int subBuckets = 1 << precisionBits;
+        if (value < subBuckets) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - precisionBits;
+        long mantissa = value >>> shift;  // [2^p, 2^(p+1))
+        return (shift + 1) * subBuckets + (int) (mantissa - subBuckets);
+    }
+
+    long lowestValueAt(int index) {
+        int subBuckets = 1 << precisionBits;
+        if (index < subBuckets) {
+            return index;
+        }
+        int shift = index / subBuckets - 1;
+        long mantissa = subBuckets + index % subBuckets;
+        return mantissa << shift;
+    }
+
+    long highestValueAt(int index) {
+        int subBuckets = 1 << precisionBits;
+        if (index < subBuckets) {
+            return index;
+        }
+        int shift = index / subBuckets - 1;
+        return lowestValueAt(index) + (1L << shift) - 1;
+    }
+}
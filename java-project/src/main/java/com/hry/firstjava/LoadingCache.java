@@ -0,0 +1,259 @@
+package com.hry.firstjava;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongSupplier;
+
+/**
+ * 自动加载的缓存
+ *
+ * 未命中时调用 CacheLoader 加载。同一个 key 的并发未命中共享同一个进行中的 CompletableFuture，
+ * 只加载一次；getAll 把所有未命中的 key 合并成一次 loadAll 调用。
+ * 设置了 refreshAfterWrite 时，过了刷新间隔的条目在后台重新加载，期间继续返回旧值。
+ * 加载器在加载某个 key 时又同步读取同一个 key 会自己等自己，此时抛出 IllegalStateException。
+ */
+class LoadingCache<K, V> extends ConcurrentCache<K, V> {
+    private final CacheLoader<K, V> loader;
+    private final ConcurrentHashMap<K, Loading<V>> loading = new ConcurrentHashMap<>();
+
+    public LoadingCache(CacheLoader<K, V> loader, long maximumSize, Duration expireAfterWrite) {
+        this(loader, maximumSize, expireAfterWrite, null, ForkJoinPool.commonPool());
+    }
+
+    public LoadingCache(CacheLoader<K, V> loader, long maximumSize, Duration expireAfterWrite,
+                        Duration refreshAfterWrite, Executor executor) {
+        this(loader, maximumSize, expireAfterWrite, refreshAfterWrite, executor, System::nanoTime);
+    }
+
+    LoadingCache(CacheLoader<K, V> loader, long maximumSize, Duration expireAfterWrite,
+                 Duration refreshAfterWrite, Executor executor, LongSupplier ticker) {
+        super(maximumSize, expireAfterWrite, refreshAfterWrite, null, executor, ticker);
+        this.loader = loader;
+    }
+
+    /**
+     * 读取缓存，未命中时加载（在调用线程中执行，其他线程等待同一次加载）
+     * 加载失败时抛出加载器的异常（受检异常包装在 CompletionException 中）
+     */
+    @Override
+    public V get(K key) {
+        V value = super.get(key);
+        if (value != null) {
+            return value;
+        }
+        Loading<V> future = new Loading<>(Thread.currentThread());
+        Loading<V> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            return join(key, existing);
+        }
+        try {
+            value = loadIfAbsent(key);
+        } catch (Throwable t) {
+            loading.remove(key, future);
+            future.completeExceptionally(t);
+            throw propagate(t);
+        }
+        loading.remove(key, future);
+        future.complete(value);
+        return value;
+    }
+
+    /**
+     * 只读缓存，不加载
+     */
+    public V getIfPresent(K key) {
+        return super.get(key);
+    }
+
+    /**
+     * 异步读取：未命中时在 executor 中加载
+     */
+    public CompletableFuture<V> getAsync(K key) {
+        V value = super.get(key);
+        if (value != null) {
+            return CompletableFuture.completedFuture(value);
+        }
+        Loading<V> future = new Loading<>(null);
+        Loading<V> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(() -> {
+                future.owner = Thread.currentThread();
+                V loaded;
+                try {
+                    loaded = loadIfAbsent(key);
+                } catch (Throwable t) {
+                    loading.remove(key, future);
+                    future.completeExceptionally(t);
+                    return;
+                }
+                loading.remove(key, future);
+                future.complete(loaded);
+            });
+        } catch (RuntimeException e) {
+            // 执行器拒绝（RejectedExecutionException 等）：不能留下永远不会完成的任务
+            loading.remove(key, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 批量读取，所有未命中且没有在加载中的 key 合并为一次 loadAll 调用
+     * 返回结果按参数顺序排列，不包含不存在的 key
+     */
+    public Map<K, V> getAll(Iterable<? extends K> keys) {
+        List<K> order = new ArrayList<>();
+        for (K key : keys) {
+            order.add(key);
+        }
+        Map<K, V> result = new LinkedHashMap<>();
+        Map<K, Loading<V>> waiting = new LinkedHashMap<>();
+        Map<K, Loading<V>> owned = new LinkedHashMap<>();
+        for (K key : order) {
+            if (result.containsKey(key) || waiting.containsKey(key)) {
+                continue;
+            }
+            V value = super.get(key);
+            if (value != null) {
+                result.put(key, value);
+                continue;
+            }
+            Loading<V> future = new Loading<>(Thread.currentThread());
+            Loading<V> existing = loading.putIfAbsent(key, future);
+            if (existing == null) {
+                owned.put(key, future);
+                waiting.put(key, future);
+            } else {
+                waiting.put(key, existing);
+            }
+        }
+
+        if (!owned.isEmpty()) {
+            Throwable failure = null;
+            try {
+                Map<K, V> loaded = loader.loadAll(new LinkedHashSet<>(owned.keySet()));
+                if (loaded != null) {  // null 按空结果处理
+                    for (Map.Entry<K, Loading<V>> entry : owned.entrySet()) {
+                        V value = loaded.get(entry.getKey());
+                        if (value != null) {
+                            put(entry.getKey(), value);
+                        }
+                        loading.remove(entry.getKey(), entry.getValue());
+                        entry.getValue().complete(value);
+                    }
+                }
+            } catch (Throwable e) {
+                failure = e;
+                throw propagate(e);
+            } finally {
+                // 无论成功与否，本线程持有的每个任务都要完成，否则等待它们的线程会永远阻塞
+                for (Map.Entry<K, Loading<V>> entry : owned.entrySet()) {
+                    if (!entry.getValue().isDone()) {
+                        loading.remove(entry.getKey(), entry.getValue());
+                        if (failure == null) {
+                            entry.getValue().complete(null);
+                        } else {
+                            entry.getValue().completeExceptionally(failure);
+                        }
+                    }
+                }
+            }
+        }
+
+        // 按参数顺序合并
+        Map<K, V> ordered = new LinkedHashMap<>();
+        for (K key : order) {
+            V value = result.get(key);
+            if (value == null) {
+                Loading<V> future = waiting.get(key);
+                value = future == null ? null : join(key, future);
+            }
+            if (value != null) {
+                ordered.put(key, value);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * 主动异步刷新：已缓存时后台重新加载并继续返回旧值，未缓存时异步加载
+     */
+    public CompletableFuture<V> refresh(K key) {
+        Entry<K, V> entry = data.get(key);
+        if (entry == null || isExpired(entry, now())) {
+            return getAsync(key);
+        }
+        return refresh(entry);
+    }
+
+    /**
+     * 持有某个 key 的加载权之后调用：先写入缓存再移除进行中的任务，后来的线程一定能读到
+     */
+    private V loadIfAbsent(K key) throws Exception {
+        // 拿到加载权之前可能刚好有其他线程加载完成
+        Entry<K, V> entry = data.get(key);
+        if (entry != null && !isExpired(entry, now())) {
+            return entry.value;
+        }
+        V value = loader.load(key);
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    CompletableFuture<V> reload(Entry<K, V> entry) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return loader.reload(entry.key, entry.value);
+            } catch (Exception e) {
+                throw propagate(e);
+            }
+        }, executor);
+    }
+
+    private static <V> V join(Object key, Loading<V> future) {
+        if (!future.isDone() && future.owner == Thread.currentThread()) {
+            throw new IllegalStateException("加载器递归读取了正在加载的 key：" + key);
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw propagate(e.getCause());
+        }
+    }
+
+    private static RuntimeException propagate(Throwable t) {
+        if (t instanceof RuntimeException) {
+            return (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new CompletionException(t);
+    }
+
+    /**
+     * 进行中的加载，记录执行加载的线程用于发现递归加载
+     */
+    private static final class Loading<V> extends CompletableFuture<V> {
+        volatile Thread owner;
+
+        Loading(Thread owner) {
+            this.owner = owner;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.hry.firstjava;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 基于内存映射的 CSV 扫描引擎（零拷贝）
+ *
+ * 通过 FileChannel.map 按窗口映射文件，直接在字节缓冲区中查找分隔符和换行符，
+ * 字段以偏移量/长度的形式暴露在 CsvRecord 中。支持 RFC 4180 引号规则：
+ * 带引号字段可包含分隔符、换行符，"" 表示一个双引号。
+ */
+class MappedCsvScanner implements AutoCloseable {
+    private static final byte QUOTE = '"';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long fileSize;  // 扫描范围的结束位置（默认为文件大小）
+    private final byte delimiter;
+
+    private int windowSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int position;
+
+    public MappedCsvScanner(Path path) throws IOException {
+        this(path, (byte) ',', DEFAULT_WINDOW_SIZE);
+    }
+
+    public MappedCsvScanner(Path path, byte delimiter, int windowSize) throws IOException {
+        this(path, delimiter, windowSize, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * 只扫描 [start, end) 范围内的字节（用于并行分块）
+     * start 必须位于记录边界上，end 之后的数据视为不存在
+     */
+    public MappedCsvScanner(Path path, byte delimiter, int windowSize, long start, long end) throws IOException {
+        if (delimiter == QUOTE || delimiter == CR || delimiter == LF) {
+            throw new IllegalArgumentException("非法分隔符：" + delimiter);
+        }
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize 必须大于 0");
+        }
+        if (start < 0 || start > end) {
+            throw new IllegalArgumentException("非法扫描范围：[" + start + ", " + end + ")");
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.fileSize = Math.min(end, channel.size());
+        this.delimiter = delimiter;
+        this.windowSize = windowSize;
+        map(Math.min(start, fileSize));
+        if (start == 0) {
+            skipBom();
+        }
+    }
+
+    /**
+     * 读取下一条记录到 record 中（复用同一个对象）
+     *
+     * @return 文件已读完时返回 false
+     */
+    public boolean next(CsvRecord record) throws IOException {
+        while (true) {
+            if (windowStart + position >= fileSize) {
+                return false;
+            }
+            if (position == window.limit()) {
+                map(windowStart + position);
+                continue;
+            }
+            int end = parseRecord(record, position);
+            if (end >= 0) {
+                position = end;
+                return true;
+            }
+            // 记录跨越了窗口末尾：从记录起点重新映射
+            if (position == 0) {
+                if (windowSize == Integer.MAX_VALUE) {
+                    throw new IOException("单条记录超过 2GB，偏移量：" + windowStart);
+                }
+                windowSize = (int) Math.min(Integer.MAX_VALUE, windowSize * 2L);
+            }
+            map(windowStart + position);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    /**
+     * 从 start 开始解析一条记录
+     *
+     * @return 下一条记录在窗口中的起点；数据不完整（需要重新映射）时返回 -1
+     */
+    private int parseRecord(CsvRecord record, int start) {
+        MappedByteBuffer buf = window;
+        int limit = buf.limit();
+        boolean lastWindow = windowStart + limit >= fileSize;
+        int pos = start;
+        record.reset(buf, windowStart + start);
+
+        while (true) {
+            if (pos == limit) {
+                if (!lastWindow) {
+                    return -1;
+                }
+                // 文件以分隔符结尾：补一个空字段
+                record.addField(pos, 0, false);
+                return pos;
+            }
+
+            if (buf.get(pos) == QUOTE) {
+                int fieldStart = ++pos;
+                boolean hasEscapes = false;
+                int fieldEnd;
+                while (true) {
+                    if (pos >= limit) {
+                        if (!lastWindow) {
+                            return -1;
+                        }
+                        fieldEnd = limit;  // 缺少结束引号：宽松处理，读到文件末尾
+                        break;
+                    }
+                    if (buf.get(pos) == QUOTE) {
+                        if (pos + 1 < limit && buf.get(pos + 1) == QUOTE) {
+                            hasEscapes = true;
+                            pos += 2;
+                            continue;
+                        }
+                        if (pos + 1 >= limit && !lastWindow) {
+                            return -1;
+                        }
+                        fieldEnd = pos++;
+                        break;
+                    }
+                    pos++;
+                }
+                // 结束引号后到分隔符前的多余字符直接忽略
+                while (pos < limit && !isFieldEnd(buf.get(pos))) {
+                    pos++;
+                }
+                if (pos == limit && !lastWindow) {
+                    return -1;
+                }
+                record.addField(fieldStart, fieldEnd - fieldStart, hasEscapes);
+            } else {
+                int fieldStart = pos;
+                while (pos < limit && !isFieldEnd(buf.get(pos))) {
+                    pos++;
+                }
+                if (pos == limit && !lastWindow) {
+                    return -1;
+                }
+                record.addField(fieldStart, pos - fieldStart, false);
+            }
+
+            if (pos == limit) {
+                return pos;
+            }
+            byte b = buf.get(pos++);
+            if (b == delimiter) {
+                continue;
+            }
+            if (b == CR) {
+                if (pos < limit) {
+                    if (buf.get(pos) == LF) {
+                        pos++;
+                    }
+                } else if (!lastWindow) {
+                    return -1;
+                }
+            }
+            return pos;
+        }
+    }
+
+    private boolean isFieldEnd(byte b) {
+        return b == delimiter || b == LF || b == CR;
+    }
+
+    private void map(long start) throws IOException {
+        long size = Math.min(windowSize, fileSize - start);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        windowStart = start;
+        position = 0;
+    }
+
+    private void skipBom() {
+        if (window.limit() >= 3
+                && (window.get(0) & 0xFF) == 0xEF
+                && (window.get(1) & 0xFF) == 0xBB
+                && (window.get(2) & 0xFF) == 0xBF) {
+            position = 3;
+        }
+    }
+}
@@ -1,5 +1,10 @@
 package com.hry.firstjava;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -106,7 +111,7 @@ public class MultiThreadDetectionDemo {
         System.out.println("  ✅ 多个任务可能同时执行");
         System.out.println("  ⚠️ 需要使用线程安全的集合");
         
-        ExecutorService executor = Executors.newFixedThreadPool(5);
+        ExecutorService executor = TaskExecutors.newExecutor(TaskExecutors.Mode.PLATFORM, 5);
         
         // 提交多个任务
         for (int i = 0; i < 10; i++) {
@@ -122,8 +127,50 @@ public class MultiThreadDetectionDemo {
         executor.awaitTermination(5, TimeUnit.SECONDS);
         
         System.out.println("\n完成的任务数：" + results.size());
+
+        // ✅ 阻塞型任务：平台线程池的并发度就是线程数，虚拟线程每个任务一个
+        System.out.println("\n10000 个阻塞 10 ms 的任务：");
+        runBlockingTasks(TaskExecutors.Mode.PLATFORM, 200);
+        runBlockingTasks(TaskExecutors.Mode.VIRTUAL, 10_000);
+        runBlockingTasks(TaskExecutors.Mode.VIRTUAL, 1_000);  // 限制同时访问下游的任务数
+        System.out.println("⚠️ 虚拟线程适合阻塞 I/O；CPU 密集的任务仍然受核数限制，用平台线程池");
+
+        // ✅ 扇出/扇入：查询三个副本，取最先成功的结果，其余自动取消
+        try (ExecutorService virtual = TaskExecutors.newVirtualExecutor()) {
+            List<Callable<String>> replicas = List.of(
+                () -> { Thread.sleep(50); return "副本 A"; },
+                () -> { throw new IllegalStateException("副本 B 不可用"); },
+                () -> { Thread.sleep(10); return "副本 C"; });
+            System.out.println("FanOut.any：" + FanOut.any(virtual, replicas, Duration.ofSeconds(1)));
+            List<Callable<Integer>> parts = List.of(() -> 1, () -> 2, () -> 3);
+            System.out.println("FanOut.all：" + FanOut.all(virtual, parts, Duration.ofSeconds(1)));
+        } catch (ExecutionException | TimeoutException e) {
+            System.out.println("扇出失败：" + e);
+        }
         System.out.println();
     }
+
+    private static void runBlockingTasks(TaskExecutors.Mode mode, int maxConcurrency) throws InterruptedException {
+        int tasks = 10_000;
+        CountDownLatch done = new CountDownLatch(tasks);
+        long start = System.nanoTime();
+        ExecutorService executor = TaskExecutors.newExecutor(mode, maxConcurrency);
+        for (int i = 0; i < tasks; i++) {
+            executor.execute(() -> {
+                try {
+                    Thread.sleep(10);  // 模拟一次远程调用
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        System.out.println("  " + mode + "（并发上限 " + maxConcurrency + "）：耗时 " + millis + " ms");
+    }
     
     /**
      * 多线程环境示例（共享资源）
@@ -187,6 +234,87 @@ public class MultiThreadDetectionDemo {
         System.out.println("        // 需要使用线程安全的 Map");
         System.out.println("    }");
         
+        // 实际运行：多个线程同时读写一个有界、带过期时间的缓存
+        Cache cache = new Cache(1_000, Duration.ofMinutes(5));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            int seed = t;
+            pool.submit(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 50_000; i++) {
+                    String key = "user:" + random.nextInt(i % 10 == 0 ? 100_000 : 500);
+                    if (cache.get(key) == null) {
+                        cache.put(key, key.toUpperCase());
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        try {
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        cache.cleanUp();
+        System.out.printf("  8 个线程读写后：大小 %d，命中 %d，未命中 %d，淘汰 %d%n",
+            cache.size(), cache.getHitCount(), cache.getMissCount(), cache.getEvictionCount());
+        
+        // 热重启：关闭时写快照，重新创建的缓存第一次访问时才从映射文件中读取
+        Path snapshotFile = Paths.get("cache-snapshot.dat");
+        try {
+            try (Cache before = new Cache(10_000, Duration.ofMinutes(5), snapshotFile, Duration.ofMinutes(1))) {
+                for (int i = 0; i < 10_000; i++) {
+                    before.put("user:" + i, "profile " + i);
+                }
+            }
+            try (Cache restarted = new Cache(10_000, Duration.ofMinutes(5), snapshotFile, Duration.ofMinutes(1))) {
+                int found = 0;
+                for (int i = 0; i < 10_000; i += 10) {
+                    if (restarted.get("user:" + i) != null) {
+                        found++;
+                    }
+                }
+                System.out.printf("  重启后访问 %d 个 key，从快照命中 %d 个（快照 %d KB）%n",
+                    1_000, found, Files.size(snapshotFile) / 1024);
+            }
+            Files.deleteIfExists(snapshotFile);
+        } catch (IOException e) {
+            System.out.println("  ⚠️ 快照读写失败：" + e.getMessage());
+        }
+        
+        // 自动加载：8 个线程同时未命中同一个 key，只加载一次
+        AtomicInteger loads = new AtomicInteger();
+        LoadingCache<String, String> loadingCache = new LoadingCache<>(key -> {
+            loads.incrementAndGet();
+            Thread.sleep(100);  // 模拟查询数据库
+            return "profile of " + key;
+        }, 1_000, Duration.ofMinutes(5));
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    ready.await();
+                    loadingCache.get("user:1");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+        ready.countDown();
+        for (Thread reader : readers) {
+            try {
+                reader.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        System.out.println("  8 个线程同时未命中，加载次数：" + loads.get());
+        System.out.println("  批量加载：" + loadingCache.getAll(List.of("user:1", "user:2", "user:3")).keySet()
+            + "，加载次数：" + loads.get());
+        
         System.out.println("\n场景 3：事件监听器");
         System.out.println("  ✅ 事件可能在多个线程中触发");
         System.out.println("  ✅ 监听器列表可能被多个线程修改");
@@ -197,6 +325,25 @@ public class MultiThreadDetectionDemo {
         System.out.println("        // 需要使用线程安全的 List");
         System.out.println("    }");
         
+        // 高吞吐场景：预分配的环形缓冲区，事件对象原地复用，3 个处理器各自批量读取
+        long[] totals = new long[3];
+        RingBufferEventBus<OrderEvent> bus =
+            new RingBufferEventBus<>(OrderEvent::new, 1 << 14, WaitStrategy.parking(50_000));
+        for (int h = 0; h < totals.length; h++) {
+            int index = h;
+            bus.addHandler((event, sequence, endOfBatch) -> totals[index] += event.amount);
+        }
+        bus.start();
+        int events = 5_000_000;
+        long start = System.nanoTime();
+        for (long i = 0; i < events; i++) {
+            bus.publishLong(OrderEvent::set, i);
+        }
+        bus.close();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("  环形缓冲区事件总线：%d 个事件 × 3 个处理器，%.1f 百万事件/秒，处理器合计 %s%n",
+            events, events / seconds / 1e6, Arrays.toString(totals));
+        
         System.out.println();
     }
 }
@@ -237,19 +384,39 @@ class UserController {
 
 /**
  * 模拟缓存系统（演示实际应用场景）
+ * 基于 ConcurrentCache：支持容量上限、过期时间，读操作不竞争全局锁
  */
-class Cache {
-    // ⚠️ 共享资源（单例对象）
-    private Map<String, Object> cache = new ConcurrentHashMap<>();  // ✅ 使用线程安全的 Map
+class Cache extends ConcurrentCache<String, Object> implements AutoCloseable {
+    // ⚠️ 共享资源（单例对象），多个线程可能同时读写
+    private CacheSnapshot<String, Object> snapshot;  // 可以为 null
+    
+    public Cache() {
+        super();  // 无界、不过期
+    }
     
-    public Object get(String key) {
-        // 多个线程可能同时读取
-        return cache.get(key);
+    public Cache(long maximumSize, Duration expireAfterWrite) {
+        super(maximumSize, expireAfterWrite);
     }
     
-    public void put(String key, Object value) {
-        // 多个线程可能同时写入
-        cache.put(key, value);
+    /**
+     * 热重启：从快照文件按需加载上次的内容，并在后台定期写新快照
+     * 值使用 Java 序列化，必须实现 Serializable
+     */
+    public Cache(long maximumSize, Duration expireAfterWrite, Path snapshotFile, Duration snapshotInterval) {
+        super(maximumSize, expireAfterWrite);
+        this.snapshot = new CacheSnapshot<>(snapshotFile, ValueCodec.utf8(), ValueCodec.serialized());
+        warmUpFrom(snapshot);
+        snapshot.scheduleEvery(this, snapshotInterval);
+    }
+    
+    /**
+     * 停止后台快照并写最后一次
+     */
+    @Override
+    public void close() throws IOException {
+        if (snapshot != null) {
+            snapshot.close();
+        }
     }
 }
 
@@ -277,3 +444,16 @@ class EventManagerExample {
 interface EventListenerExample {
     void onEvent(String event);
 }
+
+/**
+ * 可复用的事件对象（环形缓冲区中的槽位）
+ */
+class OrderEvent {
+    long orderId;
+    long amount;
+    
+    static void set(OrderEvent event, long orderId) {
+        event.orderId = orderId;
+        event.amount = orderId % 100;
+    }
+}
@@ -0,0 +1,324 @@
+package com.hry.firstjava;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 堆外存储层
+ *
+ * 值通过 ValueCodec 编码后存放在直接内存中（SlabAllocator），堆上只有 key -> 位置 的索引，
+ * 数据量再大也不会增加 GC 扫描和复制的负担。写入和释放持有写锁；读取使用 StampedLock 乐观读，
+ * 先把字节复制到堆上并校验版本，校验通过后再解码，不与其他读取竞争。
+ * 空间不足时先整理碎片，仍然不够再按写入顺序淘汰最早的条目。
+ */
+class OffHeapStore<K, V> {
+    /**
+     * 默认 slab 大小
+     */
+    static final int DEFAULT_SLAB_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * 索引项：值在堆外的位置
+     */
+    static final class Slot<K> {
+        final K key;
+        final long address;
+        final int length;
+        final long expiresAt;
+
+        Slot(K key, long address, int length, long expiresAt) {
+            this.key = key;
+            this.address = address;
+            this.length = length;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final ValueCodec<V> codec;
+    private final SlabAllocator allocator;
+    private final ConcurrentHashMap<K, Slot<K>> index = new ConcurrentHashMap<>();
+    private final ArrayDeque<Slot<K>> writeOrder = new ArrayDeque<>();  // 写锁内访问，淘汰时使用
+    private final StampedLock lock = new StampedLock();
+    private long usedBytes;
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * @param maximumBytes 堆外内存上限；按不超过 DEFAULT_SLAB_SIZE 的等大 slab 切分，
+     *                     可用总量与它相差不到 8 × slab 数字节（对齐）
+     */
+    public OffHeapStore(ValueCodec<V> codec, long maximumBytes) {
+        this(codec, maximumBytes, slabSizeFor(maximumBytes));
+    }
+
+    public OffHeapStore(ValueCodec<V> codec, long maximumBytes, int slabSize) {
+        this.codec = codec;
+        this.allocator = new SlabAllocator(maximumBytes, slabSize);
+    }
+
+    /**
+     * 写入，值超过一个 slab 时返回 false
+     */
+    public boolean put(K key, V value) {
+        return put(key, value, Long.MAX_VALUE);
+    }
+
+    /**
+     * 写入，并记录由调用方定义的过期时间（get(key, now) 时比较）
+     */
+    boolean put(K key, V value, long expiresAt) {
+        byte[] bytes = codec.encode(value);  // 在锁外编码
+        long stamp = lock.writeLock();
+        try {
+            long address = allocateOrMakeRoom(bytes.length);
+            if (address < 0) {
+                removeLocked(key);
+                return false;
+            }
+            allocator.buffer(address).put(SlabAllocator.offset(address), bytes);
+            Slot<K> slot = new Slot<>(key, address, bytes.length, expiresAt);
+            Slot<K> old = index.put(key, slot);
+            if (old != null) {
+                release(old);
+            }
+            writeOrder.add(slot);
+            usedBytes += SlabAllocator.align(bytes.length);
+            if (writeOrder.size() > 2 * index.size() + 64) {
+                writeOrder.removeIf(s -> index.get(s.key) != s);  // 清理已被替换或删除的旧 Slot
+            }
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public V get(K key) {
+        return get(key, Long.MIN_VALUE);
+    }
+
+    /**
+     * 读取，过期时间早于 now 的条目视为不存在
+     */
+    V get(K key, long now) {
+        byte[] bytes = null;
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                bytes = copy(index.get(key), now);
+            } catch (RuntimeException e) {
+                bytes = null;  // 读到正在被释放的 slab，下面加锁重读
+            }
+            if (!lock.validate(stamp)) {
+                bytes = null;
+                stamp = 0;
+            }
+        }
+        if (stamp == 0) {
+            stamp = lock.readLock();
+            try {
+                bytes = copy(index.get(key), now);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return bytes == null ? null : codec.decode(bytes);
+    }
+
+    /**
+     * 条目的过期时间，不存在时返回 Long.MAX_VALUE
+     */
+    long expiresAt(K key) {
+        Slot<K> slot = index.get(key);
+        return slot == null ? Long.MAX_VALUE : slot.expiresAt;
+    }
+
+    public boolean containsKey(K key) {
+        return index.containsKey(key);
+    }
+
+    public boolean remove(K key) {
+        if (!index.containsKey(key)) {
+            return false;
+        }
+        long stamp = lock.writeLock();
+        try {
+            return removeLocked(key);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * 条目占用的字节数（按对齐后计算）
+     */
+    public long usedBytes() {
+        long stamp = lock.readLock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 所有 slab 都申请后的直接内存总量
+     */
+    public long capacityBytes() {
+        return allocator.capacityBytes();
+    }
+
+    /**
+     * 已申请的直接内存
+     */
+    public long reservedBytes() {
+        long stamp = lock.readLock();
+        try {
+            return allocator.reservedBytes();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * 整理碎片：把使用率低于 1/4 的 slab 中的条目搬到其他 slab，然后释放这些 slab
+     * 返回释放的 slab 数
+     */
+    public int compact() {
+        long stamp = lock.writeLock();
+        try {
+            return compactLocked();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private byte[] copy(Slot<K> slot, long now) {
+        if (slot == null || slot.expiresAt <= now) {
+            return null;
+        }
+        byte[] bytes = new byte[slot.length];
+        allocator.buffer(slot.address).get(SlabAllocator.offset(slot.address), bytes);
+        return bytes;
+    }
+
+    private long allocateOrMakeRoom(int length) {
+        long address = allocator.allocate(length);
+        if (address >= 0 || SlabAllocator.align(length) > allocator.slabSize()) {
+            return address;
+        }
+        // 总量够但碎片化：先整理
+        if (allocator.reservedBytes() - usedBytes >= SlabAllocator.align(length) && compactLocked() > 0) {
+            address = allocator.allocate(length);
+        }
+        // 按写入顺序淘汰最早的条目
+        while (address < 0 && !writeOrder.isEmpty()) {
+            Slot<K> oldest = writeOrder.poll();
+            if (index.remove(oldest.key, oldest)) {
+                release(oldest);
+                evictionCount.increment();
+                address = allocator.allocate(length);
+            }
+        }
+        return address;
+    }
+
+    /**
+     * 先按 DEFAULT_SLAB_SIZE 算出需要几个 slab，再把 maximumBytes 平分给它们（向下对齐到 8 字节），
+     * 避免 127 MB 只得到一个 64 MB 的 slab，或者不是 8 的倍数的小预算被拒绝
+     */
+    static int slabSizeFor(long maximumBytes) {
+        long aligned = maximumBytes & -SlabAllocator.ALIGNMENT;
+        long count = Math.max(1, (aligned + DEFAULT_SLAB_SIZE - 1) / DEFAULT_SLAB_SIZE);
+        long size = (aligned / count) & -SlabAllocator.ALIGNMENT;
+        return (int) Math.max(SlabAllocator.ALIGNMENT, size);
+    }
+
+    private boolean removeLocked(K key) {
+        Slot<K> slot = index.remove(key);
+        if (slot == null) {
+            return false;
+        }
+        release(slot);
+        return true;
+    }
+
+    /**
+     * 释放堆外空间；writeOrder 中的旧 Slot 在淘汰时按身份比较跳过
+     */
+    private void release(Slot<K> slot) {
+        allocator.free(slot.address, slot.length);
+        usedBytes -= SlabAllocator.align(slot.length);
+    }
+
+    /**
+     * 把使用率不超过 1/4 的 slab 中的条目搬到其他 slab，搬空的 slab 归还给系统
+     *
+     * 先遍历一次索引，按 slab 分组待搬的条目，再逐个 slab 搬动，总代价与条目数成正比
+     */
+    private int compactLocked() {
+        int slabCount = allocator.slabCount();
+        List<List<Slot<K>>> moving = new ArrayList<>(slabCount);
+        boolean any = false;
+        for (int i = 0; i < slabCount; i++) {
+            long used = allocator.usedBytes(i);
+            boolean sparse = used >= 0 && used <= allocator.slabSize() / 4;
+            moving.add(sparse ? new ArrayList<>() : null);
+            any |= sparse;
+        }
+        if (!any) {
+            return 0;
+        }
+        for (Slot<K> slot : index.values()) {
+            List<Slot<K>> slots = moving.get(SlabAllocator.slabIndex(slot.address));
+            if (slots != null) {
+                slots.add(slot);
+            }
+        }
+
+        int released = 0;
+        for (int i = 0; i < slabCount; i++) {
+            List<Slot<K>> slots = moving.get(i);
+            if (slots == null || allocator.usedBytes(i) > allocator.slabSize() / 4) {
+                continue;  // 前面的 slab 搬进来的条目让它不再稀疏
+            }
+            boolean moved = true;
+            for (Slot<K> slot : slots) {
+                long target = allocator.allocate(slot.length, i, false);
+                if (target < 0) {
+                    moved = false;  // 其他 slab 也放不下，保留剩余条目
+                    break;
+                }
+                byte[] bytes = new byte[slot.length];
+                allocator.buffer(slot.address).get(SlabAllocator.offset(slot.address), bytes);
+                allocator.buffer(target).put(SlabAllocator.offset(target), bytes);
+                Slot<K> relocated = new Slot<>(slot.key, target, slot.length, slot.expiresAt);
+                index.put(slot.key, relocated);
+                writeOrder.add(relocated);  // 搬动过的条目排到队尾，淘汰顺序只是近似的写入顺序
+                allocator.free(slot.address, slot.length);
+                List<Slot<K>> targetSlots = moving.get(SlabAllocator.slabIndex(target));
+                if (targetSlots != null) {
+                    targetSlots.add(relocated);  // 搬进了后面待整理的 slab：轮到它时一起搬走
+                }
+            }
+            if (moved && allocator.usedBytes(i) < 0) {
+                released++;
+            }
+        }
+        if (released > 0) {
+            writeOrder.removeIf(slot -> index.get(slot.key) != slot);
+        }
+        return released;
+    }
+}
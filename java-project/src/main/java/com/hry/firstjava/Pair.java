@@ -0,0 +1,22 @@
+package com.hry.firstjava;
+
+/**
+ * 泛型类：键值对（多个类型参数）
+ */
+class Pair<K, V> {
+    private K key;
+    private V value;
+    
+    public Pair(K key, V value) {
+        this.key = key;
+        this.value = value;
+    }
+    
+    public K getKey() {
+        return key;
+    }
+    
+    public V getValue() {
+        return value;
+    }
+}
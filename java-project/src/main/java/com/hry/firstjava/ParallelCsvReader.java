@@ -0,0 +1,221 @@
+package com.hry.firstjava;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntFunction;
+
+/**
+ * 并行分块 CSV 读取器
+ *
+ * 把文件切成若干字节范围，每个范围的起点对齐到记录边界，
+ * 然后在 ForkJoinPool 上用 MappedCsvScanner 并行解析各块。
+ *
+ * 对齐方法：先并行统计每块的引号数量，再按前缀奇偶性判断块起点是否位于引号内，
+ * 从而找到块内第一个不在引号中的换行符。要求文件使用 LF 或 CRLF 换行。
+ *
+ * 限制：奇偶性只在引号严格按 RFC 4180 使用时成立，即引号只出现在带引号字段的两端，
+ * 字段内的引号写成 ""。未加引号的字段里出现单个引号（如 12" 显示器）会让之后所有块的
+ * 奇偶性反转，切分点可能落在记录中间；这类文件应使用单线程的 MappedCsvScanner。
+ * 任一块解析失败时，尚未开始的块被取消，异常抛给调用方。
+ */
+class ParallelCsvReader {
+    private static final byte QUOTE = '"';
+    private static final byte LF = '\n';
+    private static final long DEFAULT_MIN_CHUNK_SIZE = 1024 * 1024;
+    private static final long MAX_CHUNK_SIZE = 256L * 1024 * 1024;
+    private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final ForkJoinPool pool;
+    private final byte delimiter;
+    private final long minChunkSize;
+
+    public ParallelCsvReader() {
+        this(ForkJoinPool.commonPool(), (byte) ',');
+    }
+
+    public ParallelCsvReader(ForkJoinPool pool, byte delimiter) {
+        this(pool, delimiter, DEFAULT_MIN_CHUNK_SIZE);
+    }
+
+    ParallelCsvReader(ForkJoinPool pool, byte delimiter, long minChunkSize) {
+        this.pool = pool;
+        this.delimiter = delimiter;
+        this.minChunkSize = minChunkSize;
+    }
+
+    /**
+     * 并行解析并按文件顺序合并所有记录
+     */
+    public List<String[]> readAll(Path path) throws IOException {
+        long[] bounds = split(path);
+        List<ForkJoinTask<List<String[]>>> tasks = new ArrayList<>();
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            long start = bounds[i];
+            long end = bounds[i + 1];
+            tasks.add(pool.submit(() -> {
+                List<String[]> records = new ArrayList<>();
+                scan(path, start, end, record -> {
+                    records.add(record.toArray());
+                    return true;
+                });
+                return records;
+            }));
+        }
+        List<String[]> result = new ArrayList<>();
+        for (List<String[]> records : joinAll(tasks)) {
+            result.addAll(records);
+        }
+        return result;
+    }
+
+    /**
+     * 并行解析，每个块交给各自的处理器（块内按顺序回调，块之间并发）
+     *
+     * @param handlerFactory 根据块序号创建处理器，处理器返回 false 只会结束当前块
+     * @return 所有块处理的记录总数
+     */
+    public long forEachChunk(Path path, IntFunction<RecordHandler> handlerFactory) throws IOException {
+        long[] bounds = split(path);
+        List<ForkJoinTask<Long>> tasks = new ArrayList<>();
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            RecordHandler handler = handlerFactory.apply(i);
+            long start = bounds[i];
+            long end = bounds[i + 1];
+            tasks.add(pool.submit(() -> scan(path, start, end, handler)));
+        }
+        long total = 0;
+        for (long count : joinAll(tasks)) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * 计算对齐到记录边界的块边界，返回长度为 块数+1 的数组
+     */
+    long[] split(Path path) throws IOException {
+        long size;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = channel.size();
+        }
+        long byParallelism = (long) pool.getParallelism() * 4;
+        long chunks = Math.max(byParallelism, (size + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+        chunks = Math.max(1, Math.min(chunks, size / minChunkSize));
+        int n = (int) chunks;
+
+        long[] starts = new long[n + 1];
+        for (int i = 0; i <= n; i++) {
+            starts[i] = size * i / n;
+        }
+
+        // 第一遍：并行统计每块的引号数和两种奇偶状态下的第一个换行符
+        List<ForkJoinTask<ChunkStats>> tasks = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            long start = starts[i];
+            long end = starts[i + 1];
+            tasks.add(pool.submit(() -> ChunkStats.of(path, start, end)));
+        }
+        ChunkStats[] stats = joinAll(tasks).toArray(new ChunkStats[0]);
+
+        // 第二步：按引号数前缀奇偶性确定每块真正的起点
+        boolean[] startsInQuote = new boolean[n];
+        long quotes = 0;
+        for (int i = 0; i < n; i++) {
+            startsInQuote[i] = (quotes & 1) == 1;
+            quotes += stats[i].quoteCount;
+        }
+        long[] bounds = new long[n + 1];
+        bounds[n] = size;
+        for (int i = n - 1; i > 0; i--) {
+            long lf = startsInQuote[i] ? stats[i].firstLfOdd : stats[i].firstLfEven;
+            // 块内没有记录边界：与后一块合并
+            bounds[i] = lf >= 0 ? lf + 1 : bounds[i + 1];
+        }
+        bounds[0] = 0;
+        return bounds;
+    }
+
+    private long scan(Path path, long start, long end, RecordHandler handler) {
+        if (start >= end) {
+            return 0;
+        }
+        long count = 0;
+        try (MappedCsvScanner scanner = new MappedCsvScanner(path, delimiter, WINDOW_SIZE, start, end)) {
+            CsvRecord record = new CsvRecord();
+            while (scanner.next(record)) {
+                count++;
+                if (!handler.onRecord(record)) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count;
+    }
+
+    /**
+     * 按顺序等待所有块；某一块失败时取消其余的块再抛出异常
+     */
+    private static <T> List<T> joinAll(List<ForkJoinTask<T>> tasks) throws IOException {
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            for (ForkJoinTask<T> task : tasks) {
+                results.add(task.join());
+            }
+        } catch (RuntimeException | Error e) {
+            for (ForkJoinTask<T> task : tasks) {
+                task.cancel(true);
+            }
+            if (e instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e).getCause();
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    /**
+     * 单个块的统计信息
+     */
+    private static class ChunkStats {
+        long quoteCount;
+        long firstLfEven = -1;  // 块内引号数为偶数时遇到的第一个换行符
+        long firstLfOdd = -1;   // 块内引号数为奇数时遇到的第一个换行符
+
+        static ChunkStats of(Path path, long start, long end) {
+            ChunkStats stats = new ChunkStats();
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                int limit = buf.limit();
+                long quotes = 0;
+                for (int i = 0; i < limit; i++) {
+                    byte b = buf.get(i);
+                    if (b == QUOTE) {
+                        quotes++;
+                    } else if (b == LF) {
+                        if ((quotes & 1) == 0) {
+                            if (stats.firstLfEven < 0) {
+                                stats.firstLfEven = start + i;
+                            }
+                        } else if (stats.firstLfOdd < 0) {
+                            stats.firstLfOdd = start + i;
+                        }
+                    }
+                }
+                stats.quoteCount = quotes;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return stats;
+        }
+    }
+}
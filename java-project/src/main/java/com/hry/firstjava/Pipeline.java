@@ -0,0 +1,398 @@
+package com.hry.firstjava;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 生产者-消费者流水线：source → transform → ... → sink
+ *
+ * 每个阶段有自己的工作线程数，相邻阶段之间是一个有界队列（RingBlockingQueue，
+ * 按两端线程数选 spsc / mpsc / mpmc）。下游消费不过来时队列变满，上游 put 阻塞，
+ * 压力一级一级传回 source（背压）。工作线程先 take 一个元素，再用 drainTo 一次取走一批，
+ * 减少每个元素的唤醒开销。
+ *
+ * 定义是不可变的：map / batchSize 返回新的 Pipeline，to() 创建线程并启动，返回 Run。
+ * transform 返回 null 表示丢弃该元素；source 返回 null 表示数据结束。
+ */
+class Pipeline<T> {
+    static final int DEFAULT_BATCH_SIZE = 64;
+
+    /** 数据结束标记：上游全部结束后放入队列，每个下游线程看到后放回并退出 */
+    private static final Object END = new Object();
+
+    private final List<Stage> stages;
+    private final int batchSize;
+
+    private Pipeline(List<Stage> stages, int batchSize) {
+        this.stages = stages;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 数据源：workers 个线程并发调用 source，直到返回 null（workers > 1 时 source 需要线程安全）
+     */
+    static <T> Pipeline<T> from(String name, int workers, Callable<? extends T> source) {
+        return new Pipeline<>(List.of(new Stage(name, workers, 0, source, null)), DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * 追加一个转换阶段
+     *
+     * @param queueCapacity 本阶段输入队列的容量（向上取整为 2 的幂）
+     */
+    @SuppressWarnings("unchecked")
+    <R> Pipeline<R> map(String name, int workers, int queueCapacity, Function<? super T, ? extends R> transform) {
+        return append(new Stage(name, workers, queueCapacity, null, (Function<Object, Object>) transform));
+    }
+
+    /**
+     * 之后的阶段每次最多从队列取出的元素数
+     */
+    Pipeline<T> batchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize 必须大于 0：" + batchSize);
+        }
+        return new Pipeline<>(stages, batchSize);
+    }
+
+    /**
+     * 追加终点阶段并启动流水线
+     */
+    @SuppressWarnings("unchecked")
+    Run to(String name, int workers, int queueCapacity, Consumer<? super T> sink) {
+        Consumer<Object> consumer = (Consumer<Object>) sink;
+        Pipeline<Void> complete = append(new Stage(name, workers, queueCapacity, null, item -> {
+            consumer.accept(item);
+            return null;
+        }));
+        return new Run(complete.stages);
+    }
+
+    private <R> Pipeline<R> append(Stage stage) {
+        List<Stage> extended = new ArrayList<>(stages);
+        extended.add(stage.withBatchSize(batchSize));
+        return new Pipeline<>(Collections.unmodifiableList(extended), batchSize);
+    }
+
+    /**
+     * 阶段定义
+     */
+    private static final class Stage {
+        final String name;
+        final int workers;
+        final int queueCapacity;
+        final Callable<?> source;
+        final Function<Object, Object> transform;
+        final int batchSize;
+
+        Stage(String name, int workers, int queueCapacity, Callable<?> source, Function<Object, Object> transform) {
+            this(name, workers, queueCapacity, source, transform, DEFAULT_BATCH_SIZE);
+        }
+
+        private Stage(String name, int workers, int queueCapacity, Callable<?> source,
+                      Function<Object, Object> transform, int batchSize) {
+            if (workers <= 0) {
+                throw new IllegalArgumentException("workers 必须大于 0：" + workers);
+            }
+            if (source == null && queueCapacity <= 0) {
+                throw new IllegalArgumentException("queueCapacity 必须大于 0：" + queueCapacity);
+            }
+            this.name = name;
+            this.workers = workers;
+            this.queueCapacity = queueCapacity;
+            this.source = source;
+            this.transform = transform;
+            this.batchSize = batchSize;
+        }
+
+        Stage withBatchSize(int batchSize) {
+            return new Stage(name, workers, queueCapacity, source, transform, batchSize);
+        }
+    }
+
+    /**
+     * 运行中的流水线
+     */
+    static final class Run implements AutoCloseable {
+        private final StageRunner[] runners;
+        private final List<Thread> threads = new ArrayList<>();
+        private volatile boolean cancelled;
+
+        private Run(List<Stage> stages) {
+            runners = new StageRunner[stages.size()];
+            for (int i = stages.size() - 1; i >= 0; i--) {
+                Stage stage = stages.get(i);
+                StageRunner next = i + 1 < runners.length ? runners[i + 1] : null;
+                BlockingQueue<Object> input = i == 0 ? null
+                    : queue(stage.queueCapacity, stages.get(i - 1).workers, stage.workers);
+                runners[i] = new StageRunner(stage, input, next);
+            }
+            for (StageRunner runner : runners) {
+                for (int w = 0; w < runner.stage.workers; w++) {
+                    Thread thread = new Thread(runner, "pipeline-" + runner.stage.name + "-" + w);
+                    thread.setDaemon(true);
+                    threads.add(thread);
+                }
+            }
+            threads.forEach(Thread::start);
+        }
+
+        /**
+         * 等待所有阶段处理完数据
+         *
+         * @return 超时前完成返回 true
+         */
+        boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            for (Thread thread : threads) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return isDone();
+                }
+                TimeUnit.NANOSECONDS.timedJoin(thread, remaining);
+            }
+            return isDone();
+        }
+
+        boolean isDone() {
+            for (Thread thread : threads) {
+                if (thread.isAlive()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 中断所有工作线程，队列中未处理的元素被丢弃
+         */
+        void cancel() {
+            cancelled = true;
+            threads.forEach(Thread::interrupt);
+        }
+
+        /**
+         * 按阶段顺序返回统计信息
+         */
+        List<StageStats> stats() {
+            List<StageStats> stats = new ArrayList<>(runners.length);
+            for (StageRunner runner : runners) {
+                stats.add(runner.stats());
+            }
+            return stats;
+        }
+
+        void printStats() {
+            for (StageStats stats : stats()) {
+                System.out.println("  " + stats);
+            }
+        }
+
+        /**
+         * 取消并等待所有工作线程退出；等待期间被中断时仍然等完，返回前恢复中断标记
+         */
+        @Override
+        public void close() {
+            cancel();
+            boolean interrupted = false;
+            for (Thread thread : threads) {
+                while (true) {
+                    try {
+                        thread.join();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * 只有一个生产线程/消费线程的一端不需要 CAS
+         */
+        private static BlockingQueue<Object> queue(int capacity, int producers, int consumers) {
+            if (consumers > 1) {
+                return RingBlockingQueue.mpmc(capacity);
+            }
+            return producers > 1 ? RingBlockingQueue.mpsc(capacity) : RingBlockingQueue.spsc(capacity);
+        }
+
+        /**
+         * 一个阶段的所有工作线程共享的状态
+         */
+        private final class StageRunner implements Runnable {
+            final Stage stage;
+            final BlockingQueue<Object> input;  // source 阶段为 null
+            final StageRunner next;             // sink 阶段为 null
+            final AtomicInteger running;
+            final LongAdder processed = new LongAdder();
+            final LongAdder failures = new LongAdder();
+            final LongAdder blockedNanos = new LongAdder();
+            final AtomicInteger maxQueueDepth = new AtomicInteger();
+            final LatencyHistogram latency = new LatencyHistogram();
+
+            StageRunner(Stage stage, BlockingQueue<Object> input, StageRunner next) {
+                this.stage = stage;
+                this.input = input;
+                this.next = next;
+                this.running = new AtomicInteger(stage.workers);
+            }
+
+            @Override
+            public void run() {
+                try {
+                    if (input == null) {
+                        produce();
+                    } else {
+                        consume();
+                    }
+                } catch (InterruptedException e) {
+                    // 被 cancel()：直接退出
+                } finally {
+                    if (running.decrementAndGet() == 0) {
+                        finish();
+                    }
+                }
+            }
+
+            /**
+             * 阶段的最后一个线程退出：取走放回的 END，通知下一阶段
+             */
+            private void finish() {
+                if (input != null) {
+                    while (input.poll() != null) {
+                        // 正常结束时只剩 END；cancel 时剩余元素一并丢弃
+                    }
+                }
+                if (next != null && !cancelled) {
+                    try {
+                        next.input.put(END);
+                    } catch (InterruptedException e) {
+                        // 被 cancel()
+                    }
+                }
+            }
+
+            private void produce() throws InterruptedException {
+                while (!cancelled) {
+                    long start = System.nanoTime();
+                    Object item;
+                    try {
+                        item = stage.source.call();
+                    } catch (InterruptedException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        failures.increment();  // 数据源出错：本线程结束
+                        return;
+                    }
+                    if (item == null) {
+                        return;
+                    }
+                    latency.record(System.nanoTime() - start);
+                    processed.increment();
+                    emit(item);
+                }
+            }
+
+            private void consume() throws InterruptedException {
+                List<Object> batch = new ArrayList<>(stage.batchSize);
+                while (!cancelled) {
+                    batch.add(input.take());
+                    int depth = input.size();
+                    input.drainTo(batch, stage.batchSize - 1);
+                    if (depth > maxQueueDepth.get()) {
+                        maxQueueDepth.accumulateAndGet(depth, Math::max);
+                    }
+                    for (Object item : batch) {
+                        if (item == END) {
+                            // END 一定是最后一个元素；放回去让同阶段的其他线程也能看到
+                            if (stage.workers > 1) {
+                                input.put(END);
+                            }
+                            return;
+                        }
+                        long start = System.nanoTime();
+                        Object out;
+                        try {
+                            out = stage.transform.apply(item);
+                        } catch (RuntimeException e) {
+                            failures.increment();  // 丢弃该元素，继续处理
+                            continue;
+                        }
+                        latency.record(System.nanoTime() - start);
+                        processed.increment();
+                        if (out != null) {
+                            emit(out);
+                        }
+                    }
+                    batch.clear();
+                }
+            }
+
+            /**
+             * 交给下一阶段；队列满时阻塞，阻塞时间计入本阶段的 blocked
+             */
+            private void emit(Object item) throws InterruptedException {
+                if (next == null || next.input.offer(item)) {
+                    return;
+                }
+                long start = System.nanoTime();
+                next.input.put(item);
+                blockedNanos.add(System.nanoTime() - start);
+            }
+
+            StageStats stats() {
+                return new StageStats(stage.name, stage.workers, processed.sum(), failures.sum(),
+                    input == null ? 0 : input.size(), maxQueueDepth.get(),
+                    TimeUnit.NANOSECONDS.toMillis(blockedNanos.sum()),
+                    latency.percentile(50), latency.percentile(99));
+            }
+        }
+    }
+
+    /**
+     * 阶段统计信息
+     */
+    static final class StageStats {
+        final String name;
+        final int workers;
+        final long processed;       // 处理完成的元素数（source 为产生的元素数）
+        final long failures;        // 处理时抛出异常的次数
+        final int queueDepth;       // 输入队列当前积压
+        final int maxQueueDepth;    // 输入队列历史最大积压
+        final long blockedMillis;   // 等待下游队列空位的总时间（背压）
+        final long p50Nanos;        // 单个元素处理耗时的中位数
+        final long p99Nanos;
+
+        StageStats(String name, int workers, long processed, long failures, int queueDepth, int maxQueueDepth,
+                   long blockedMillis, long p50Nanos, long p99Nanos) {
+            this.name = name;
+            this.workers = workers;
+            this.processed = processed;
+            this.failures = failures;
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.blockedMillis = blockedMillis;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s（%d 线程）：处理 %d，失败 %d，积压 %d（最大 %d），背压阻塞 %d ms，p50 %.1f µs，p99 %.1f µs",
+                name, workers, processed, failures, queueDepth, maxQueueDepth, blockedMillis,
+                p50Nanos / 1e3, p99Nanos / 1e3);
+        }
+    }
+}
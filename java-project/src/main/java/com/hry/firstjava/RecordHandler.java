@@ -0,0 +1,14 @@
+package com.hry.firstjava;
+
+/**
+ * CSV 记录处理器（推送式流式读取）
+ */
+@FunctionalInterface
+interface RecordHandler {
+    /**
+     * 处理一条记录，record 在回调返回后会被复用
+     * 
+     * @return 返回 false 表示停止读取
+     */
+    boolean onRecord(CsvRecord record);
+}
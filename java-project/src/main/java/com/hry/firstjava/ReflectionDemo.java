@@ -1,7 +1,18 @@
 package com.hry.firstjava;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
 
 /**
  * Java 反射机制演示
@@ -261,6 +272,17 @@ public class ReflectionDemo {
         String json = JsonSerializer.toJson(person);
         System.out.println("JSON：" + json);
         
+        // 直接写入 ByteBuffer（UTF-8），字符串中的引号会被正确转义
+        person.setName("带\"引号\"的名字");
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        JsonSerializer.toJson(person, buffer);
+        System.out.println("写入 ByteBuffer 的字节数：" + buffer.position());
+        System.out.println("JSON：" + new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8));
+        
+        // 反序列化：边读 token 边通过缓存的构造方法和 setter 绑定
+        ReflectionPerson parsed = JsonDeserializer.fromJson(json, ReflectionPerson.class);
+        System.out.println("反序列化：" + parsed);
+        
         // 场景 2：注解处理
         System.out.println("\n场景 2：注解处理");
         Class<?> clazz = ReflectionPerson.class;
@@ -269,32 +291,80 @@ public class ReflectionDemo {
             System.out.println("实体类，表名：" + entity.tableName());
         }
         
-        // 场景 3：方法调用统计
-        System.out.println("\n场景 3：方法调用统计");
+        // 编译期生成的实体元数据：不需要运行时反射扫描
+        EntityMetadata<Object> metadata = EntityMetadata.lookup(clazz);
+        if (metadata != null) {
+            System.out.println("生成的元数据，表名：" + metadata.tableName()
+                + "，字段：" + Arrays.toString(metadata.fieldNames()));
+        }
+        
+        // 场景 3：高性能方法调用
+        // 几千次循环加 currentTimeMillis 测不出真实差距（JIT 预热、死代码消除），
+        // 性能对比见 benchmarks 模块（JMH）；这里演示基准测试中最快的调用方式
+        System.out.println("\n场景 3：高性能方法调用");
         try {
             ReflectionPerson testPerson = new ReflectionPerson("统计", 25);
-            Method method = clazz.getMethod("getName");
+            Function<ReflectionPerson, String> getName =
+                FastInvoker.getter(ReflectionPerson.class, "getName", String.class);
+            ObjIntConsumer<ReflectionPerson> setAge = FastInvoker.intSetter(ReflectionPerson.class, "setAge");
             
-            long start = System.currentTimeMillis();
-            for (int i = 0; i < 10000; i++) {
-                method.invoke(testPerson);
-            }
-            long end = System.currentTimeMillis();
-            System.out.println("反射调用 10000 次耗时：" + (end - start) + " 毫秒");
-            
-            start = System.currentTimeMillis();
-            for (int i = 0; i < 10000; i++) {
-                testPerson.getName();
-            }
-            end = System.currentTimeMillis();
-            System.out.println("直接调用 10000 次耗时：" + (end - start) + " 毫秒");
-            
-        } catch (Exception e) {
-            System.out.println("统计失败：" + e.getMessage());
+            setAge.accept(testPerson, 26);
+            System.out.println("LambdaMetafactory 调用：" + getName.apply(testPerson) + "，年龄：" + testPerson.getAge());
+        } catch (IllegalArgumentException e) {
+            System.out.println("绑定失败：" + e.getMessage());
         }
         
+        // 场景 4：嵌套对象、集合与泛型类的序列化
+        System.out.println("\n场景 4：嵌套对象与集合序列化");
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("pair", new Pair<>("年龄", 25));
+        payload.put("box", new Box<>());
+        payload.put("scores", new int[]{90, 85});
+        payload.put("people", List.of(new ReflectionPerson("甲", 1), new ReflectionPerson("乙", 2)));
+        System.out.println("JSON：" + JsonSerializer.toJson(payload));
+        
+        // 场景 5：深层对象图的序列化分配量
+        System.out.println("\n场景 5：深层对象图序列化的内存分配");
+        measureSerializationAllocation();
+        
         System.out.println();
     }
+    
+    /**
+     * 统计序列化深层对象图时每次调用分配的字节数
+     * 使用 HotSpot 的线程分配计数器，比计时更能反映“是否产生垃圾”；
+     * 这里只是粗略演示，准确的数字见 benchmarks 模块的 JsonSerializerBenchmark（-prof gc）
+     */
+    private static void measureSerializationAllocation() {
+        Category root = Category.build(6, 3);  // 6 层、每层 3 个子节点
+        OutputStream sink = OutputStream.nullOutputStream();
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            System.out.println("当前 JVM 不支持统计线程内存分配");
+            return;
+        }
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        long threadId = Thread.currentThread().threadId();
+        try {
+            // 预热，让 JIT 完成编译
+            for (int i = 0; i < 2000; i++) {
+                JsonSerializer.toJson(root, sink);
+            }
+            int iterations = 1000;
+            long before = threadBean.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                JsonSerializer.toJson(root, sink);
+            }
+            long elapsed = System.nanoTime() - start;
+            long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+            System.out.println("节点数：" + root.count());
+            System.out.println("每次序列化分配：" + allocated / iterations + " 字节");
+            System.out.println("每次序列化耗时：" + elapsed / iterations / 1000 + " 微秒");
+        } catch (IOException e) {
+            System.out.println("序列化失败：" + e.getMessage());
+        }
+    }
 }
 
 /**
@@ -347,55 +417,48 @@ class ReflectionPerson {
 }
 
 /**
- * 实体注解
+ * 测试类：Category（用于演示深层对象图的序列化）
  */
-@interface Entity {
-    String tableName();
+class Category {
+    private String name;
+    private int level;
+    private double weight;
+    private long[] tags;
+    private List<Category> children = new ArrayList<>();
+    
+    Category() {
+    }
+    
+    Category(String name, int level) {
+        this.name = name;
+        this.level = level;
+        this.weight = level * 1.5;
+        this.tags = new long[]{level, level * 10L};
+    }
+    
+    static Category build(int depth, int fanOut) {
+        Category node = new Category("分类-" + depth, depth);
+        if (depth > 1) {
+            for (int i = 0; i < fanOut; i++) {
+                node.children.add(build(depth - 1, fanOut));
+            }
+        }
+        return node;
+    }
+    
+    int count() {
+        int total = 1;
+        for (Category child : children) {
+            total += child.count();
+        }
+        return total;
+    }
 }
 
 /**
- * JSON 序列化器（使用反射）
+ * 实体注解
+ * 编译时由 EntityProcessor 生成对应的 EntityMetadata 实现
  */
-class JsonSerializer {
-    public static String toJson(Object obj) {
-        if (obj == null) {
-            return "null";
-        }
-        
-        Class<?> clazz = obj.getClass();
-        Field[] fields = clazz.getDeclaredFields();
-        
-        StringBuilder json = new StringBuilder("{");
-        boolean first = true;
-        
-        for (Field field : fields) {
-            // 跳过静态字段
-            if (Modifier.isStatic(field.getModifiers())) {
-                continue;
-            }
-            
-            field.setAccessible(true);
-            try {
-                Object value = field.get(obj);
-                if (!first) {
-                    json.append(",");
-                }
-                json.append("\"").append(field.getName()).append("\":");
-                
-                if (value == null) {
-                    json.append("null");
-                } else if (value instanceof String) {
-                    json.append("\"").append(value).append("\"");
-                } else {
-                    json.append(value);
-                }
-                first = false;
-            } catch (IllegalAccessException e) {
-                // 忽略无法访问的字段
-            }
-        }
-        
-        json.append("}");
-        return json.toString();
-    }
+@interface Entity {
+    String tableName();
 }
@@ -0,0 +1,79 @@
+package com.hry.firstjava;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 请求指标：总数（ThreadSafeCounter）+ 滑动窗口计数 + 延迟直方图
+ *
+ * 每次请求调用一次 record(key, latencyNanos)，全程无锁，适合在请求路径上直接记录。
+ */
+class RequestMetrics {
+    static final Duration ONE_SECOND = Duration.ofSeconds(1);
+    static final Duration ONE_MINUTE = Duration.ofMinutes(1);
+    static final Duration FIVE_MINUTES = Duration.ofMinutes(5);
+
+    private final ThreadSafeCounter totals = new ThreadSafeCounter(ThreadSafeCounter.Mode.STRIPED);
+    private final SlidingWindowCounter windows;
+    private final ConcurrentHashMap<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+
+    public RequestMetrics() {
+        this(new SlidingWindowCounter(ONE_SECOND, ONE_MINUTE, FIVE_MINUTES));
+    }
+
+    RequestMetrics(int buckets, LongSupplier ticker) {
+        this(new SlidingWindowCounter(buckets, ticker, ONE_SECOND, ONE_MINUTE, FIVE_MINUTES));
+    }
+
+    private RequestMetrics(SlidingWindowCounter windows) {
+        this.windows = windows;
+    }
+
+    public void record(String key, long latencyNanos) {
+        totals.increment(key);
+        windows.increment(key);
+        LatencyHistogram histogram = latencies.get(key);  // 快速路径：不加锁
+        if (histogram == null) {
+            histogram = latencies.computeIfAbsent(key, k -> new LatencyHistogram());
+        }
+        histogram.record(latencyNanos);
+    }
+
+    /**
+     * 启动以来的总数
+     */
+    public long getTotal(String key) {
+        return totals.getCount(key);
+    }
+
+    /**
+     * 最近 window（1 秒、1 分钟或 5 分钟）内的次数
+     */
+    public long getCount(String key, Duration window) {
+        return windows.getCount(key, window);
+    }
+
+    public double rate(String key, Duration window) {
+        return windows.rate(key, window);
+    }
+
+    /**
+     * 延迟百分位（纳秒），例如 latency(key, 99.9)
+     */
+    public long latency(String key, double percentile) {
+        LatencyHistogram histogram = latencies.get(key);
+        return histogram == null ? 0 : histogram.percentile(percentile);
+    }
+
+    public void printAll() {
+        for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()) {
+            String key = entry.getKey();
+            LatencyHistogram histogram = entry.getValue();
+            System.out.printf("  %s：总数 %d，1 分钟 %d，p50 %.2f ms，p99 %.2f ms，p999 %.2f ms%n",
+                key, getTotal(key), getCount(key, ONE_MINUTE),
+                histogram.percentile(50) / 1e6, histogram.percentile(99) / 1e6, histogram.percentile(99.9) / 1e6);
+        }
+    }
+}
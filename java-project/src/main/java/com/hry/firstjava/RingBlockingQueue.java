@@ -0,0 +1,651 @@
+package com.hry.firstjava;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 基于无锁环形缓冲区的有界阻塞队列（ArrayBlockingQueue 的替代品）
+ *
+ * 容量向上取整为 2 的幂（至少为 2：MPMC 的槽序号要区分“本圈已写”和“下一圈可写”），
+ * 下标用位与计算；生产者和消费者的序号用填充过的 Sequence，互不产生伪共享。offer / poll 不加锁，按使用方式选择实现：
+ * - mpmc：多生产者多消费者，每个槽带一个序号（Vyukov 算法），两端都用 CAS 抢占
+ * - mpsc：多生产者单消费者，只有生产端 CAS
+ * - spsc：单生产者单消费者，两端都不需要 CAS
+ *
+ * put / take 先自旋、再 yield，仍然等不到时才挂起在 Condition 上。
+ * 挂起使用有上限的超时（PARK_NANOS），快速路径因此不需要内存屏障：
+ * 唤醒信号偶尔丢失时，等待方最多晚 PARK_NANOS 发现新元素。
+ *
+ * iterator() 是弱一致的快照：创建时按序号从 head 读到 tail，跳过读取期间已被取走的槽，
+ * 因此 contains / toArray / toString 可用，但不反映之后的修改。
+ *
+ * remove(Object) 和迭代器的 remove 是加锁的慢路径：不移动其他元素，只把元素记为已删除，
+ * 出队时丢弃（ThreadPoolExecutor 的 remove / purge / shutdownNow 依赖它）。已删除的元素在出队前仍占用容量。
+ * 只有 mpmc 支持删除：出队的 CAS 保证删除方和出队方至少一方看到对方；mpsc / spsc 的出队没有 CAS，
+ * 要支持删除就得在每次出队时加内存屏障，所以删除时抛出 UnsupportedOperationException，不能用作线程池的工作队列。
+ */
+abstract class RingBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 10;
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    protected final int capacity;
+    protected final int mask;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private volatile int waitingConsumers;
+    private volatile int waitingProducers;
+    private final List<Object> removed = new ArrayList<>();  // 已删除但还没出队的元素，由 lock 保护
+    private volatile int removing;  // removed 的大小加上正在查找的删除调用数，只在 lock 内修改
+
+    RingBlockingQueue(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity 必须在 1 到 2^30 之间：" + capacity);
+        }
+        this.capacity = Math.max(2, 1 << -Integer.numberOfLeadingZeros(capacity - 1));
+        this.mask = this.capacity - 1;
+    }
+
+    /**
+     * 多生产者多消费者
+     */
+    static <E> RingBlockingQueue<E> mpmc(int capacity) {
+        return new Mpmc<>(capacity);
+    }
+
+    /**
+     * 多生产者单消费者：poll / take / drainTo 只能由同一个线程调用
+     */
+    static <E> RingBlockingQueue<E> mpsc(int capacity) {
+        return new Mpsc<>(capacity);
+    }
+
+    /**
+     * 单生产者单消费者：两端各自只能由一个线程调用
+     */
+    static <E> RingBlockingQueue<E> spsc(int capacity) {
+        return new Spsc<>(capacity);
+    }
+
+    /**
+     * 不阻塞地入队，队列满时返回 false
+     */
+    @Override
+    public final boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        if (!tryOffer(e)) {
+            return false;
+        }
+        if (waitingConsumers > 0) {
+            signal(notEmpty);
+        }
+        return true;
+    }
+
+    /**
+     * 不阻塞地出队，队列空时返回 null
+     */
+    @Override
+    public final E poll() {
+        E e = tryPoll();
+        if (e == null) {
+            return null;
+        }
+        // 先出队再读 removing：与 removeElement 先写 removing 再读 head 配对
+        while (removing != 0 && e != null && dropRemoved(e)) {
+            e = tryPoll();
+        }
+        if (waitingProducers > 0) {
+            signal(notFull);
+        }
+        return e;
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        offer(e, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        return poll(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (offer(e)) {
+            return true;
+        }
+        long deadline = deadline(timeout, unit);
+        for (int i = 0; i < SPIN_TRIES + YIELD_TRIES; i++) {
+            idle(i);
+            if (offer(e)) {
+                return true;
+            }
+        }
+        lock.lockInterruptibly();
+        try {
+            waitingProducers++;
+            while (!offer(e)) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                notFull.awaitNanos(Math.min(remaining, PARK_NANOS));
+            }
+            return true;
+        } finally {
+            waitingProducers--;
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e = poll();
+        if (e != null) {
+            return e;
+        }
+        long deadline = deadline(timeout, unit);
+        for (int i = 0; i < SPIN_TRIES + YIELD_TRIES; i++) {
+            idle(i);
+            if ((e = poll()) != null) {
+                return e;
+            }
+        }
+        lock.lockInterruptibly();
+        try {
+            waitingConsumers++;
+            while ((e = poll()) == null) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+                notEmpty.awaitNanos(Math.min(remaining, PARK_NANOS));
+            }
+            return e;
+        } finally {
+            waitingConsumers--;
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException("不能把队列倒入自身");
+        }
+        int n = 0;
+        boolean polled = false;
+        E e;
+        while (n < maxElements && (e = tryPoll()) != null) {
+            polled = true;
+            if (removing != 0 && dropRemoved(e)) {
+                continue;
+            }
+            c.add(e);
+            n++;
+        }
+        if (polled && waitingProducers > 0) {
+            signal(notFull);
+        }
+        return n;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return capacity - occupied();  // 已删除未出队的元素仍占用槽
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 弱一致的快照迭代器：包含创建时仍在队列中的元素（按出队顺序）
+     * remove 删除上一个返回的元素（同一个对象），元素已经出队时什么也不做
+     */
+    @Override
+    public Iterator<E> iterator() {
+        long head = consumerIndex();
+        long tail = producerIndex();
+        List<E> snapshot = new ArrayList<>((int) Math.max(0, Math.min(capacity, tail - head)));
+        for (long i = Math.max(head, tail - capacity); i < tail; i++) {
+            E e = elementAt(i);
+            if (e != null) {
+                snapshot.add(e);
+            }
+        }
+        if (removing != 0) {
+            lock.lock();
+            try {
+                List<Object> pending = new ArrayList<>(removed);
+                snapshot.removeIf(e -> removeSame(pending, e));
+            } finally {
+                lock.unlock();
+            }
+        }
+        Iterator<E> it = snapshot.iterator();
+        return new Iterator<E>() {
+            private E last;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public E next() {
+                last = it.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                removeElement(last, true);
+                last = null;
+            }
+        };
+    }
+
+    /**
+     * 删除一个与 o 相等的元素（加锁的慢路径，只有 mpmc 支持）
+     */
+    @Override
+    public boolean remove(Object o) {
+        return o != null && removeElement(o, false);
+    }
+
+    /**
+     * 已入队未出队的元素个数（并发修改时是近似值）
+     */
+    @Override
+    public int size() {
+        return Math.max(0, occupied() - removing);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * 占用的槽数，包括已删除还没出队的元素
+     */
+    private int occupied() {
+        // 先读消费者序号：两次读取之间出队的元素只会让结果偏大，不会为负
+        long head = consumerIndex();
+        long tail = producerIndex();
+        return (int) Math.max(0, Math.min(capacity, tail - head));
+    }
+
+    /**
+     * 出队方和删除方用“先写后读”配对：删除方先增加 removing 再确认元素还没被取走，
+     * 出队方先取走元素再读 removing，两个写都是 volatile 的，所以至少一方能看到另一方：
+     * 要么删除方发现元素已出队（返回 false），要么出队方在锁内找到删除记录并丢弃它
+     */
+    private boolean removeElement(Object o, boolean sameObject) {
+        if (!supportsRemoval()) {
+            throw new UnsupportedOperationException("只有 mpmc 队列支持删除中间的元素");
+        }
+        lock.lock();
+        try {
+            removing++;
+            List<Object> pending = new ArrayList<>(removed);  // 已删除的元素抵消排在前面的同一个对象
+            long tail = producerIndex();
+            for (long i = Math.max(consumerIndex(), tail - capacity); i < tail; i++) {
+                E e = elementAt(i);
+                if (e == null || consumerIndex() > i || removeSame(pending, e)) {
+                    continue;
+                }
+                if (sameObject ? e == o : o.equals(e)) {
+                    removed.add(e);
+                    return true;
+                }
+            }
+            removing--;
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 出队的元素已被删除时丢弃它
+     */
+    private boolean dropRemoved(E e) {
+        lock.lock();
+        try {
+            if (removeSame(removed, e)) {
+                removing--;
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean removeSame(List<Object> list, Object e) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == e) {
+                list.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 有删除记录时，队首可能是已删除的元素
+     */
+    protected final boolean hasRemovals() {
+        return removing != 0;
+    }
+
+    /**
+     * 出队是否有 CAS，能与 removeElement 配对
+     */
+    protected boolean supportsRemoval() {
+        return false;
+    }
+
+    protected abstract boolean tryOffer(E e);
+
+    protected abstract E tryPoll();
+
+    protected abstract long producerIndex();
+
+    protected abstract long consumerIndex();
+
+    /**
+     * 序号为 index 的元素；已被取走或还没写入时返回 null
+     */
+    protected abstract E elementAt(long index);
+
+    private void signal(Condition condition) {
+        lock.lock();
+        try {
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void idle(int round) {
+        if (round < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+    }
+
+    private static long deadline(long timeout, TimeUnit unit) {
+        long nanos = unit.toNanos(timeout);
+        long now = System.nanoTime();
+        return nanos >= Long.MAX_VALUE - now ? Long.MAX_VALUE : now + nanos;
+    }
+
+    /**
+     * Vyukov 有界 MPMC 队列：槽 i 的序号等于 tail 时可写，等于 head + 1 时可读
+     */
+    static final class Mpmc<E> extends RingBlockingQueue<E> {
+        private final Object[] buffer;
+        private final AtomicLongArray sequences;
+        private final Sequence tail = new Sequence(0);
+        private final Sequence head = new Sequence(0);
+
+        Mpmc(int capacity) {
+            super(capacity);
+            this.buffer = new Object[this.capacity];
+            this.sequences = new AtomicLongArray(this.capacity);
+            for (int i = 0; i < this.capacity; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        @Override
+        protected boolean tryOffer(E e) {
+            while (true) {
+                long t = tail.get();
+                int index = (int) t & mask;
+                long diff = sequences.getAcquire(index) - t;
+                if (diff == 0) {
+                    if (tail.compareAndSet(t, t + 1)) {
+                        buffer[index] = e;
+                        sequences.setRelease(index, t + 1);  // 发布元素
+                        return true;
+                    }
+                } else if (diff < 0) {
+                    return false;  // 槽还没被上一圈的消费者释放：队列满
+                }
+                // diff > 0：别的生产者已抢到这个槽，重读 tail
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected E tryPoll() {
+            while (true) {
+                long h = head.get();
+                int index = (int) h & mask;
+                long diff = sequences.getAcquire(index) - (h + 1);
+                if (diff == 0) {
+                    if (head.compareAndSet(h, h + 1)) {
+                        E e = (E) buffer[index];
+                        buffer[index] = null;
+                        sequences.setRelease(index, h + capacity);  // 槽留给下一圈的生产者
+                        return e;
+                    }
+                } else if (diff < 0) {
+                    return null;  // 槽还没写入：队列空
+                }
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E peek() {
+            if (hasRemovals()) {
+                Iterator<E> it = iterator();  // 慢路径：跳过已删除的元素
+                return it.hasNext() ? it.next() : null;
+            }
+            while (true) {
+                long h = head.get();
+                int index = (int) h & mask;
+                if (sequences.getAcquire(index) != h + 1) {
+                    return null;
+                }
+                E e = (E) buffer[index];
+                if (head.get() == h) {
+                    return e;  // 读取期间没有被取走
+                }
+            }
+        }
+
+        @Override
+        protected boolean supportsRemoval() {
+            return true;
+        }
+
+        @Override
+        protected long producerIndex() {
+            return tail.get();
+        }
+
+        @Override
+        protected long consumerIndex() {
+            return head.get();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected E elementAt(long index) {
+            int slot = (int) index & mask;
+            if (sequences.getAcquire(slot) != index + 1) {
+                return null;
+            }
+            E e = (E) buffer[slot];
+            // 读取前后槽的序号不变：元素没有被取走，槽也没有被下一圈复用
+            return sequences.getAcquire(slot) == index + 1 ? e : null;
+        }
+    }
+
+    /**
+     * 多生产者单消费者：生产者 CAS 抢占下标后写槽，消费者以槽是否为 null 判断可读
+     */
+    static final class Mpsc<E> extends RingBlockingQueue<E> {
+        private final AtomicReferenceArray<E> buffer;
+        private final Sequence tail = new Sequence(0);
+        private final Sequence head = new Sequence(0);
+
+        Mpsc(int capacity) {
+            super(capacity);
+            this.buffer = new AtomicReferenceArray<>(this.capacity);
+        }
+
+        @Override
+        protected boolean tryOffer(E e) {
+            long t;
+            do {
+                t = tail.get();
+                if (t - head.get() >= capacity) {
+                    return false;
+                }
+            } while (!tail.compareAndSet(t, t + 1));
+            buffer.setRelease((int) t & mask, e);
+            return true;
+        }
+
+        @Override
+        protected E tryPoll() {
+            long h = head.get();
+            int index = (int) h & mask;
+            E e = buffer.getAcquire(index);
+            if (e == null) {
+                if (h == tail.get()) {
+                    return null;
+                }
+                // 生产者已抢到下标但还没写入：等它写完，保证按下标顺序出队
+                do {
+                    Thread.onSpinWait();
+                    e = buffer.getAcquire(index);
+                } while (e == null);
+            }
+            buffer.lazySet(index, null);
+            head.set(h + 1);
+            return e;
+        }
+
+        @Override
+        public E peek() {
+            long h = head.get();
+            int index = (int) h & mask;
+            E e = buffer.getAcquire(index);
+            while (e == null && h != tail.get()) {
+                Thread.onSpinWait();
+                e = buffer.getAcquire(index);
+            }
+            return e;
+        }
+
+        @Override
+        protected long producerIndex() {
+            return tail.get();
+        }
+
+        @Override
+        protected long consumerIndex() {
+            return head.get();
+        }
+
+        @Override
+        protected E elementAt(long index) {
+            E e = buffer.getAcquire((int) index & mask);
+            // 消费者还没越过 index 时，生产者不能复用这个槽
+            return head.get() <= index ? e : null;
+        }
+    }
+
+    /**
+     * 单生产者单消费者：两端只用 release 写，槽非空即队列满/可读
+     */
+    static final class Spsc<E> extends RingBlockingQueue<E> {
+        private final AtomicReferenceArray<E> buffer;
+        private final Sequence tail = new Sequence(0);
+        private final Sequence head = new Sequence(0);
+
+        Spsc(int capacity) {
+            super(capacity);
+            this.buffer = new AtomicReferenceArray<>(this.capacity);
+        }
+
+        @Override
+        protected boolean tryOffer(E e) {
+            long t = tail.get();
+            int index = (int) t & mask;
+            if (buffer.getAcquire(index) != null) {
+                return false;
+            }
+            buffer.setRelease(index, e);
+            tail.set(t + 1);
+            return true;
+        }
+
+        @Override
+        protected E tryPoll() {
+            long h = head.get();
+            int index = (int) h & mask;
+            E e = buffer.getAcquire(index);
+            if (e == null) {
+                return null;
+            }
+            buffer.setRelease(index, null);
+            head.set(h + 1);
+            return e;
+        }
+
+        @Override
+        public E peek() {
+            return buffer.getAcquire((int) head.get() & mask);
+        }
+
+        @Override
+        protected long producerIndex() {
+            return tail.get();
+        }
+
+        @Override
+        protected long consumerIndex() {
+            return head.get();
+        }
+
+        @Override
+        protected E elementAt(long index) {
+            E e = buffer.getAcquire((int) index & mask);
+            // 消费者还没越过 index 时，生产者不能复用这个槽
+            return head.get() <= index ? e : null;
+        }
+    }
+}
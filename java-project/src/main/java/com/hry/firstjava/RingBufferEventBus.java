@@ -0,0 +1,249 @@
+package com.hry.firstjava;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * 基于环形缓冲区的事件总线（LMAX Disruptor 的思路）
+ *
+ * - 启动时预先创建所有事件对象，发布时在槽位上原地修改，稳定运行时不创建对象
+ * - 单个发布线程：申请序号不需要 CAS；发布时 release 写游标，消费者读到游标后就能看到槽位内容
+ * - 每个处理器一个线程和一个序号，读取 [自己的序号 + 1, 游标] 之间的所有事件（批量），互不等待；
+ *   发布者只在即将覆盖最慢的处理器还没读取的槽位时等待
+ * 处理器必须在 start() 之前注册；发布方法只能由同一个线程调用。
+ */
+class RingBufferEventBus<E> implements AutoCloseable {
+    private final Object[] entries;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+    private final Sequence cursor = new Sequence();
+    private final List<HandlerThread> handlers = new ArrayList<>();
+    private Sequence[] gatingSequences = new Sequence[0];
+    private volatile boolean running;
+    private volatile boolean alerted;
+
+    // 只由发布线程访问
+    private long nextValue = Sequence.INITIAL_VALUE;
+    private long cachedGatingSequence = Sequence.INITIAL_VALUE;
+
+    /**
+     * @param factory    创建事件对象，每个槽位调用一次
+     * @param bufferSize 槽位数，必须是 2 的幂
+     */
+    public RingBufferEventBus(Supplier<E> factory, int bufferSize, WaitStrategy waitStrategy) {
+        if (bufferSize <= 0 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("bufferSize 必须是 2 的幂：" + bufferSize);
+        }
+        this.entries = new Object[bufferSize];
+        for (int i = 0; i < bufferSize; i++) {
+            entries[i] = factory.get();
+        }
+        this.mask = bufferSize - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    public synchronized void addHandler(EventHandler<? super E> handler) {
+        if (running) {
+            throw new IllegalStateException("事件总线已启动，不能再注册处理器");
+        }
+        handlers.add(new HandlerThread(handler, "event-handler-" + handlers.size()));
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        if (handlers.isEmpty()) {
+            throw new IllegalStateException("没有注册处理器");
+        }
+        Sequence[] sequences = new Sequence[handlers.size()];
+        for (int i = 0; i < sequences.length; i++) {
+            sequences[i] = handlers.get(i).sequence;
+        }
+        gatingSequences = sequences;
+        running = true;
+        for (HandlerThread handler : handlers) {
+            handler.thread.start();
+        }
+    }
+
+    /**
+     * 申请一个槽位，写入事件内容，然后发布
+     * translator 应该是不捕获变量的 lambda（或静态方法引用），这样每次调用不创建对象
+     */
+    public <A> void publish(BiConsumer<? super E, A> translator, A argument) {
+        long sequence = next();
+        try {
+            translator.accept(get(sequence), argument);
+        } finally {
+            publish(sequence);
+        }
+    }
+
+    /**
+     * 参数为 long 的版本，避免装箱
+     */
+    public void publishLong(ObjLongConsumer<? super E> translator, long argument) {
+        long sequence = next();
+        try {
+            translator.accept(get(sequence), argument);
+        } finally {
+            publish(sequence);
+        }
+    }
+
+    /**
+     * 申请下一个序号；环形缓冲区已满（最慢的处理器还没读到 sequence - bufferSize）时等待
+     *
+     * @throws IllegalStateException 等待期间发现处理器线程已经退出（处理器抛出了 Error），它的序号不会再前进
+     */
+    long next() {
+        if (!running) {
+            throw new IllegalStateException("事件总线未启动或已关闭");
+        }
+        long next = nextValue + 1;
+        long wrapPoint = next - entries.length;
+        if (wrapPoint > cachedGatingSequence) {
+            long minimum;
+            int spins = 0;
+            while (wrapPoint > (minimum = Sequence.minimum(gatingSequences, next - 1))) {
+                if (++spins < 100) {
+                    Thread.onSpinWait();
+                } else {
+                    checkHandlersAlive();
+                    LockSupport.parkNanos(1);
+                }
+            }
+            cachedGatingSequence = minimum;
+        }
+        nextValue = next;
+        return next;
+    }
+
+    @SuppressWarnings("unchecked")
+    E get(long sequence) {
+        return (E) entries[(int) (sequence & mask)];
+    }
+
+    void publish(long sequence) {
+        cursor.set(sequence);
+    }
+
+    /**
+     * 已发布的最大序号
+     */
+    public long cursor() {
+        return cursor.get();
+    }
+
+    public int bufferSize() {
+        return entries.length;
+    }
+
+    /**
+     * 处理器抛出异常的总次数（异常不会中断处理，序号照常前进）
+     */
+    public long failureCount() {
+        long total = 0;
+        for (HandlerThread handler : handlers) {
+            total += handler.failures.sum();
+        }
+        return total;
+    }
+
+    /**
+     * 等待所有处理器处理完已发布的事件，然后停止处理器线程
+     * 已经退出的处理器线程不再等待；等待期间被中断时仍然等处理器线程结束，返回前恢复中断标记
+     */
+    @Override
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        long published = cursor.get();
+        for (HandlerThread handler : handlers) {
+            while (handler.sequence.get() < published && handler.thread.isAlive()) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+            }
+        }
+        alerted = true;
+        boolean interrupted = false;
+        for (HandlerThread handler : handlers) {
+            while (true) {
+                try {
+                    handler.thread.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void checkHandlersAlive() {
+        for (HandlerThread handler : handlers) {
+            if (!handler.thread.isAlive()) {
+                throw new IllegalStateException("处理器线程已退出：" + handler.thread.getName());
+            }
+        }
+    }
+
+    /**
+     * 处理器线程：批量读取已发布的事件
+     */
+    private final class HandlerThread implements Runnable {
+        final EventHandler<? super E> handler;
+        final Sequence sequence = new Sequence();
+        final LongAdder failures = new LongAdder();
+        final Thread thread;
+
+        HandlerThread(EventHandler<? super E> handler, String name) {
+            this.handler = handler;
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            BooleanSupplier closed = () -> alerted;  // 在循环外创建，等待时不分配对象
+            long next = sequence.get() + 1;
+            while (true) {
+                long available = waitStrategy.waitFor(next, cursor, closed);
+                if (available < next) {
+                    return;  // 已关闭
+                }
+                for (; next <= available; next++) {
+                    try {
+                        handler.onEvent(get(next), next, next == available);
+                    } catch (RuntimeException e) {
+                        failures.increment();
+                    }
+                }
+                sequence.set(available);  // 整批处理完才更新一次序号
+            }
+        }
+    }
+}
+
+/**
+ * 环形缓冲区事件处理器
+ */
+@FunctionalInterface
+interface EventHandler<E> {
+    /**
+     * @param event      槽位中的事件对象，返回后会被复用，不能保存引用
+     * @param endOfBatch 是否为这一批中的最后一个事件（可以在这里批量刷盘）
+     */
+    void onEvent(E event, long sequence, boolean endOfBatch);
+}
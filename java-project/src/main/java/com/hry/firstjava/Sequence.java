@@ -0,0 +1,73 @@
+package com.hry.firstjava;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 带缓存行填充的序号（环形缓冲区的游标）
+ *
+ * value 前后各填充 56 字节，保证它独占一个缓存行：生产者和各个消费者的序号频繁写入，
+ * 放在同一缓存行会互相使对方的缓存失效（伪共享）。
+ */
+class SequenceLeftPadding {
+    protected long p01, p02, p03, p04, p05, p06, p07;
+}
+
+class SequenceValue extends SequenceLeftPadding {
+    protected volatile long value;
+}
+
+class SequenceRightPadding extends SequenceValue {
+    protected long p11, p12, p13, p14, p15, p16, p17;
+}
+
+final class Sequence extends SequenceRightPadding {
+    static final long INITIAL_VALUE = -1L;
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    Sequence() {
+        this(INITIAL_VALUE);
+    }
+
+    Sequence(long initialValue) {
+        VALUE.setRelease(this, initialValue);
+    }
+
+    long get() {
+        return value;
+    }
+
+    /**
+     * release 写：之前对事件槽的写入对读到这个序号的线程可见，比 volatile 写便宜
+     */
+    void set(long value) {
+        VALUE.setRelease(this, value);
+    }
+
+    boolean compareAndSet(long expected, long value) {
+        return VALUE.compareAndSet(this, expected, value);
+    }
+
+    /**
+     * 一组序号中的最小值
+     */
+    static long minimum(Sequence[] sequences, long minimum) {
+        for (Sequence sequence : sequences) {
+            minimum = Math.min(minimum, sequence.get());
+        }
+        return minimum;
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(get());
+    }
+}
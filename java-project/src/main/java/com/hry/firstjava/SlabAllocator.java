@@ -0,0 +1,199 @@
+package com.hry.firstjava;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 堆外内存分配器
+ *
+ * 按需申请固定大小的直接内存块（slab），块内用空闲链表管理：
+ * - 分配：在各个 slab 中按大小找最合适的空闲区（best-fit），切下需要的部分
+ * - 释放：与相邻的空闲区合并，避免碎片越来越小
+ * - 整个 slab 都空闲时释放它（至少保留一个），交给 GC 回收直接内存
+ * 地址 = slab 序号 << 32 | 块内偏移。非线程安全，由 OffHeapStore 加锁调用。
+ */
+final class SlabAllocator {
+    static final int ALIGNMENT = 8;
+
+    private final int slabSize;
+    private final Slab[] slabs;
+    private int allocatedSlabs;
+
+    /**
+     * 一个 slab 及其空闲区
+     */
+    static final class Slab {
+        final ByteBuffer buffer;
+        final TreeMap<Integer, Integer> freeByOffset = new TreeMap<>();  // 偏移 -> 长度
+        final TreeSet<Long> freeBySize = new TreeSet<>();                // 长度 << 32 | 偏移
+        long usedBytes;
+
+        Slab(int size) {
+            this.buffer = ByteBuffer.allocateDirect(size);
+            addFree(0, size);
+        }
+
+        void addFree(int offset, int length) {
+            freeByOffset.put(offset, length);
+            freeBySize.add(sizeKey(offset, length));
+        }
+
+        void removeFree(int offset, int length) {
+            freeByOffset.remove(offset);
+            freeBySize.remove(sizeKey(offset, length));
+        }
+
+        static long sizeKey(int offset, int length) {
+            return ((long) length << 32) | offset;
+        }
+    }
+
+    /**
+     * @param maximumBytes 堆外内存上限
+     * @param slabSize     每个 slab 的大小
+     */
+    SlabAllocator(long maximumBytes, int slabSize) {
+        if (slabSize <= 0 || slabSize % ALIGNMENT != 0) {
+            throw new IllegalArgumentException("slab 大小必须是 " + ALIGNMENT + " 的正整数倍：" + slabSize);
+        }
+        long count = Math.max(1, maximumBytes / slabSize);
+        if (count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("slab 数量过多：" + count);
+        }
+        this.slabSize = slabSize;
+        this.slabs = new Slab[(int) count];
+    }
+
+    int slabSize() {
+        return slabSize;
+    }
+
+    int slabCount() {
+        return slabs.length;
+    }
+
+    /**
+     * 分配 size 字节，空间不足时返回 -1
+     */
+    long allocate(int size) {
+        return allocate(size, -1, true);
+    }
+
+    /**
+     * @param excludedSlab 不在这个 slab 中分配（整理时使用），-1 表示不限制
+     * @param allowNewSlab 已有 slab 放不下时是否申请新的
+     */
+    long allocate(int size, int excludedSlab, boolean allowNewSlab) {
+        int aligned = align(size);
+        if (aligned > slabSize || aligned < 0) {
+            return -1;
+        }
+        int emptyIndex = -1;
+        int bestSlab = -1;
+        long bestKey = Long.MAX_VALUE;
+        for (int i = 0; i < slabs.length; i++) {
+            Slab slab = slabs[i];
+            if (i == excludedSlab) {
+                continue;
+            }
+            if (slab == null) {
+                if (emptyIndex < 0) {
+                    emptyIndex = i;
+                }
+                continue;
+            }
+            Long key = slab.freeBySize.ceiling(Slab.sizeKey(0, aligned));
+            if (key != null && key < bestKey) {
+                bestKey = key;
+                bestSlab = i;
+            }
+        }
+        if (bestSlab < 0) {
+            if (emptyIndex < 0 || !allowNewSlab) {
+                return -1;
+            }
+            slabs[emptyIndex] = new Slab(slabSize);  // 已有 slab 都放不下时才申请新的
+            allocatedSlabs++;
+            bestSlab = emptyIndex;
+            bestKey = Slab.sizeKey(0, slabSize);
+        }
+
+        Slab slab = slabs[bestSlab];
+        int offset = (int) bestKey;
+        int length = (int) (bestKey >>> 32);
+        slab.removeFree(offset, length);
+        if (length > aligned) {
+            slab.addFree(offset + aligned, length - aligned);
+        }
+        slab.usedBytes += aligned;
+        return ((long) bestSlab << 32) | offset;
+    }
+
+    /**
+     * 释放，并与前后相邻的空闲区合并
+     */
+    void free(long address, int size) {
+        Slab slab = slabs[slabIndex(address)];
+        int offset = offset(address);
+        int length = align(size);
+        slab.usedBytes -= length;
+
+        Map.Entry<Integer, Integer> before = slab.freeByOffset.floorEntry(offset);
+        if (before != null && before.getKey() + before.getValue() == offset) {
+            slab.removeFree(before.getKey(), before.getValue());
+            offset = before.getKey();
+            length += before.getValue();
+        }
+        Integer afterLength = slab.freeByOffset.get(offset + length);
+        if (afterLength != null) {
+            slab.removeFree(offset + length, afterLength);
+            length += afterLength;
+        }
+        slab.addFree(offset, length);
+
+        if (slab.usedBytes == 0 && allocatedSlabs > 1) {
+            slabs[slabIndex(address)] = null;  // 保留最后一个，避免反复申请
+            allocatedSlabs--;
+        }
+    }
+
+    ByteBuffer buffer(long address) {
+        return slabs[slabIndex(address)].buffer;
+    }
+
+    /**
+     * 这个 slab 中已分配的字节数，未申请的 slab 返回 -1
+     */
+    long usedBytes(int slabIndex) {
+        Slab slab = slabs[slabIndex];
+        return slab == null ? -1 : slab.usedBytes;
+    }
+
+    /**
+     * 所有 slab 都申请后的总量
+     */
+    long capacityBytes() {
+        return (long) slabs.length * slabSize;
+    }
+
+    /**
+     * 已申请的直接内存
+     */
+    long reservedBytes() {
+        return (long) allocatedSlabs * slabSize;
+    }
+
+    static int slabIndex(long address) {
+        return (int) (address >>> 32);
+    }
+
+    static int offset(long address) {
+        return (int) address;
+    }
+
+    static int align(int size) {
+        return (Math.max(size, 1) + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+}
@@ -0,0 +1,136 @@
+package com.hry.firstjava;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * 滑动窗口计数器
+ *
+ * 每个 key 在每个窗口上有一个环形桶数组，桶宽 = 窗口 / 桶数。每个桶是一个 long：
+ * 高 24 位是桶的时间序号，低 40 位是计数；记录时一次 CAS 同时完成“过期桶清零”和“加一”，不加锁。
+ * 查询时只累加时间序号仍在窗口内的桶，所以结果覆盖 [窗口 - 一个桶宽, 窗口] 的时间范围。
+ * 时间序号只保留 24 位，一个桶连续 2^24 个桶宽没有写入时旧计数可能被重新算入（100 ms 的桶约为 19 天）。
+ * 计数只能增加，单个桶的计数在 2^40 - 1 处饱和，不会进位到时间序号。
+ */
+class SlidingWindowCounter {
+    static final int DEFAULT_BUCKETS = 10;
+    private static final int COUNT_BITS = 40;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long EPOCH_MASK = (1L << (64 - COUNT_BITS)) - 1;
+
+    private final Duration[] windows;
+    private final long[] bucketNanos;
+    private final int buckets;
+    private final LongSupplier ticker;
+    private final ConcurrentHashMap<String, AtomicLongArray[]> rings = new ConcurrentHashMap<>();
+
+    /**
+     * @param windows 需要统计的窗口，例如 1 秒、1 分钟、5 分钟
+     */
+    public SlidingWindowCounter(Duration... windows) {
+        this(DEFAULT_BUCKETS, System::nanoTime, windows);
+    }
+
+    SlidingWindowCounter(int buckets, LongSupplier ticker, Duration... windows) {
+        if (windows.length == 0) {
+            throw new IllegalArgumentException("至少需要一个窗口");
+        }
+        if (buckets < 2) {
+            throw new IllegalArgumentException("桶数至少为 2：" + buckets);
+        }
+        this.windows = windows.clone();
+        this.bucketNanos = new long[windows.length];
+        for (int i = 0; i < windows.length; i++) {
+            bucketNanos[i] = windows[i].toNanos() / buckets;
+            if (bucketNanos[i] <= 0) {
+                throw new IllegalArgumentException("窗口太小：" + windows[i]);
+            }
+        }
+        this.buckets = buckets;
+        this.ticker = ticker;
+    }
+
+    public void increment(String key) {
+        add(key, 1);
+    }
+
+    /**
+     * @param delta 增量，不能为负数（负数会借走时间序号的位）
+     */
+    public void add(String key, long delta) {
+        if (delta < 0) {
+            throw new IllegalArgumentException("delta 不能为负数：" + delta);
+        }
+        AtomicLongArray[] ring = rings.get(key);  // 快速路径：不加锁
+        if (ring == null) {
+            ring = rings.computeIfAbsent(key, k -> newRing());
+        }
+        long now = ticker.getAsLong();
+        for (int w = 0; w < windows.length; w++) {
+            long epoch = now / bucketNanos[w];
+            int slot = (int) Math.floorMod(epoch, (long) buckets);
+            long stamp = epoch & EPOCH_MASK;
+            AtomicLongArray counts = ring[w];
+            long current;
+            long next;
+            do {
+                current = counts.get(slot);
+                long count = (current >>> COUNT_BITS) == stamp ? current & COUNT_MASK : 0;  // 桶已过期：从 0 开始
+                next = (stamp << COUNT_BITS) | (delta >= COUNT_MASK - count ? COUNT_MASK : count + delta);
+            } while (!counts.compareAndSet(slot, current, next));
+        }
+    }
+
+    /**
+     * key 在 window 内的计数，window 必须是构造时指定的窗口之一
+     */
+    public long getCount(String key, Duration window) {
+        AtomicLongArray[] ring = rings.get(key);
+        if (ring == null) {
+            return 0;
+        }
+        int w = indexOf(window);
+        long epoch = ticker.getAsLong() / bucketNanos[w];
+        AtomicLongArray counts = ring[w];
+        long sum = 0;
+        for (int slot = 0; slot < buckets; slot++) {
+            long value = counts.get(slot);
+            long age = (epoch - (value >>> COUNT_BITS)) & EPOCH_MASK;
+            if (age < buckets) {
+                sum += value & COUNT_MASK;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 每秒平均次数
+     */
+    public double rate(String key, Duration window) {
+        return getCount(key, window) * 1e9 / window.toNanos();
+    }
+
+    Duration[] windows() {
+        return windows.clone();
+    }
+
+    private AtomicLongArray[] newRing() {
+        AtomicLongArray[] ring = new AtomicLongArray[windows.length];
+        for (int w = 0; w < ring.length; w++) {
+            ring[w] = new AtomicLongArray(buckets);
+        }
+        return ring;
+    }
+
+    private int indexOf(Duration window) {
+        for (int i = 0; i < windows.length; i++) {
+            if (windows[i].equals(window)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("未配置的窗口：" + window + "，可用窗口：" + Arrays.toString(windows));
+    }
+}
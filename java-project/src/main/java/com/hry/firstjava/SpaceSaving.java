@@ -0,0 +1,135 @@
+package com.hry.firstjava;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving 重度访问者统计
+ *
+ * 只保留 capacity 个计数器（按次数组成最小堆）。新 key 到来且计数器已满时，替换次数最少的那个，
+ * 并继承它的次数（新 key 的次数因此可能被高估）。保证：真实次数超过 总次数 / capacity 的 key 一定在其中，
+ * 每个计数的高估不超过 总次数 / capacity。非线程安全，由 HeavyHitters 分条加锁。
+ */
+final class SpaceSaving {
+
+    /**
+     * 被监控的 key
+     */
+    static final class Counter {
+        final String key;
+        final long count;  // 真实次数的上界
+
+        Counter(String key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+    }
+
+    private final int capacity;
+    private final String[] keys;
+    private final long[] counts;
+    private final Map<String, Integer> positions = new HashMap<>();  // key -> 堆中的位置
+    private int size;
+    private long total;
+
+    SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("容量必须大于 0：" + capacity);
+        }
+        this.capacity = capacity;
+        this.keys = new String[capacity];
+        this.counts = new long[capacity];
+    }
+
+    void add(String key, long count) {
+        total += count;
+        Integer position = positions.get(key);
+        if (position != null) {
+            counts[position] += count;
+            siftDown(position);
+            return;
+        }
+        if (size < capacity) {
+            keys[size] = key;
+            counts[size] = count;
+            positions.put(key, size);
+            siftUp(size++);
+            return;
+        }
+        // 替换次数最少的 key（堆顶）
+        positions.remove(keys[0]);
+        counts[0] += count;
+        keys[0] = key;
+        positions.put(key, 0);
+        siftDown(0);
+    }
+
+    /**
+     * 计数器已满时，未被监控的 key 的真实次数不超过这个值
+     */
+    long minCount() {
+        return size < capacity ? 0 : counts[0];
+    }
+
+    long total() {
+        return total;
+    }
+
+    List<Counter> counters() {
+        List<Counter> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(new Counter(keys[i], counts[i]));
+        }
+        return result;
+    }
+
+    void clear() {
+        positions.clear();
+        for (int i = 0; i < size; i++) {
+            keys[i] = null;
+        }
+        size = 0;
+        total = 0;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (counts[parent] <= counts[i]) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && counts[child + 1] < counts[child]) {
+                child++;
+            }
+            if (counts[i] <= counts[child]) {
+                break;
+            }
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        String key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        long count = counts[a];
+        counts[a] = counts[b];
+        counts[b] = count;
+        positions.put(keys[a], a);
+        positions.put(keys[b], b);
+    }
+}
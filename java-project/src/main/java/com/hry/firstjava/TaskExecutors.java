@@ -0,0 +1,121 @@
+package com.hry.firstjava;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 可切换的任务执行方式：固定大小的平台线程池，或每个任务一个虚拟线程
+ *
+ * I/O 密集的任务大部分时间在阻塞，固定线程池的并发度就是线程数；虚拟线程阻塞时
+ * 只占一个堆上的栈片段，几万个同时阻塞也没有问题。但下游资源（连接池、限流的接口）
+ * 不会因此变多，所以 VIRTUAL 模式用信号量限制同时执行的任务数：
+ * 超出的任务在自己的虚拟线程里等待许可，不占平台线程。
+ */
+final class TaskExecutors {
+    enum Mode {
+        PLATFORM,  // Executors.newFixedThreadPool(maxConcurrency)
+        VIRTUAL    // 每个任务一个虚拟线程，最多 maxConcurrency 个同时执行
+    }
+
+    private TaskExecutors() {
+    }
+
+    /**
+     * @param maxConcurrency PLATFORM 模式下是线程数，VIRTUAL 模式下是同时执行的任务上限
+     */
+    static ExecutorService newExecutor(Mode mode, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency 必须大于 0：" + maxConcurrency);
+        }
+        switch (mode) {
+            case PLATFORM:
+                return Executors.newFixedThreadPool(maxConcurrency);
+            case VIRTUAL:
+                return new LimitedExecutor(newVirtualExecutor(), maxConcurrency);
+            default:
+                throw new IllegalArgumentException("未知的执行方式：" + mode);
+        }
+    }
+
+    /**
+     * 不限并发的虚拟线程执行器
+     */
+    static ExecutorService newVirtualExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("task-", 0).factory());
+    }
+
+    /**
+     * 用信号量限制同时执行的任务数；关闭、等待等操作交给被包装的执行器
+     */
+    static final class LimitedExecutor extends AbstractExecutorService {
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+        private final int maxConcurrency;
+
+        LimitedExecutor(ExecutorService delegate, int maxConcurrency) {
+            this.delegate = delegate;
+            this.permits = new Semaphore(maxConcurrency);
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(() -> {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();  // 等待许可时被取消：不执行
+                    return;
+                }
+                try {
+                    command.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+
+        /**
+         * 正在执行的任务数
+         */
+        int activeCount() {
+            return maxConcurrency - permits.availablePermits();
+        }
+
+        /**
+         * 等待许可的任务数（近似值）
+         */
+        int waitingCount() {
+            return permits.getQueueLength();
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
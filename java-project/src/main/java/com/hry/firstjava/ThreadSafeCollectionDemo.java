@@ -1,8 +1,11 @@
 package com.hry.firstjava;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * 线程安全和并发集合演示
@@ -197,6 +200,47 @@ public class ThreadSafeCollectionDemo {
         System.out.println("原子操作后，key0 的值：" + concurrentMap.get("key0"));
         System.out.println("newKey 的值：" + concurrentMap.get("newKey"));
 
+        // ✅ 热点 key 计数：AtomicLong vs LongAdder 分条计数
+        for (ThreadSafeCounter.Mode mode : ThreadSafeCounter.Mode.values()) {
+            ThreadSafeCounter counter = new ThreadSafeCounter(mode);
+            List<Thread> threads = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < 8; t++) {
+                Thread thread = new Thread(() -> {
+                    for (int i = 0; i < 1_000_000; i++) {
+                        counter.increment(i % 2 == 0 ? "GET /" : "GET /login");
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("计数器 " + mode + "：" + counter.snapshotAndReset() + "，耗时 " + millis + " ms"
+                + "，重置后 GET / = " + counter.getCount("GET /"));
+        }
+
+        // ✅ 请求指标：滑动窗口计数 + 延迟百分位，不保存样本
+        RequestMetrics metrics = new RequestMetrics();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            String key = i % 3 == 0 ? "GET /login" : "GET /";
+            long latency = (long) (random.nextExponential() * 2_000_000);  // 平均 2 ms
+            metrics.record(key, i % 1000 == 0 ? latency * 50 : latency);   // 少量慢请求
+        }
+        System.out.println("请求指标：");
+        metrics.printAll();
+
+        // ✅ 高基数 key：近似计数，内存固定，只保留重度访问者
+        ThreadSafeCounter visitors = ThreadSafeCounter.approximate(0.001, 0.01, 100);
+        for (int i = 0; i < 1_000_000; i++) {
+            int user = i % 4 == 0 ? random.nextInt(10) : random.nextInt(1_000_000);  // 10 个用户占 1/4 的请求
+            visitors.increment("user:" + user);
+        }
+        System.out.println("访问最多的 3 个用户（100 万次请求）：" + visitors.topK(3));
+
         System.out.println();
     }
 
@@ -245,6 +289,53 @@ public class ThreadSafeCollectionDemo {
         System.out.println("\n最终列表：" + copyOnWriteList);
         System.out.println("注意：读取线程看到的是旧版本，不会抛出异常");
 
+        // ✅ 事件管理器：监听器列表就是 CopyOnWriteArrayList；异步模式下慢监听器不拖慢发布者
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        EventManager manager = new EventManager(executor, 256, EventManager.SlowListenerPolicy.DROP);
+        EventListener slowListener = event -> {
+            try {
+                Thread.sleep(2);  // 模拟写远程服务
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        EventListener fastListener = event -> { };
+        manager.addListener(slowListener);
+        manager.addListener(fastListener);
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            manager.fireEvent("订单" + i);
+            Thread.sleep(0, 100_000);  // 模拟请求陆续到达
+        }
+        long publishMillis = (System.nanoTime() - start) / 1_000_000;
+        manager.awaitIdle(10, TimeUnit.SECONDS);
+        executor.shutdown();
+        System.out.println("\n异步事件：发布 1000 条耗时 " + publishMillis + " ms，慢监听器不阻塞发布者（队列容量 256，满了丢弃）");
+        System.out.println("  快监听器：" + manager.getStats(fastListener));
+        System.out.println("  慢监听器：" + manager.getStats(slowListener));
+
+        // ✅ 按主题订阅：路由预先计算在分发表中，监听器不需要自己解析和过滤
+        EventManager router = new EventManager();
+        List<String> paid = new ArrayList<>();
+        router.subscribe("order.*.paid", String.class, paid::add);
+        router.subscribe(Integer.class, code -> System.out.println("  收到状态码事件：" + code));
+        router.publish("order.eu.created", "订单1");
+        router.publish("order.eu.paid", "订单1");
+        router.publish("order.us.paid", "订单2");
+        router.publish(404);
+        System.out.println("  order.*.paid 收到：" + paid);
+
+        // ✅ 批量监听器：攒满 100 条或等待 10 ms 后一次写出，缓冲区复用
+        EventManager batching = new EventManager();
+        AtomicInteger writes = new AtomicInteger();
+        batching.addBatchListener(events -> writes.incrementAndGet(), 100, Duration.ofMillis(10));
+        for (int i = 0; i < 1050; i++) {
+            batching.fireEvent("日志" + i);
+        }
+        batching.awaitIdle(1, TimeUnit.SECONDS);
+        System.out.println("  批量监听器：1050 条事件，写出 " + writes.get() + " 次");
+        batching.close();  // 结束定时投递线程
+
         System.out.println();
     }
 
@@ -292,51 +383,73 @@ public class ThreadSafeCollectionDemo {
         System.out.println("\n生产者-消费者模式演示完成");
         System.out.println("注意：队列满时生产会阻塞，队列空时消费会阻塞");
 
-        System.out.println();
-    }
-}
-
-/**
- * 实际应用示例：线程安全的计数器
- */
-class ThreadSafeCounter {
-    private Map<String, AtomicInteger> counter = new ConcurrentHashMap<>();
-
-    public void increment(String key) {
-        counter.computeIfAbsent(key, k -> new AtomicInteger(0)).incrementAndGet();
-    }
-
-    public int getCount(String key) {
-        return counter.getOrDefault(key, new AtomicInteger(0)).get();
-    }
-
-    public void printAll() {
-        counter.forEach((key, value) -> System.out.println(key + ": " + value.get()));
-    }
-}
-
-/**
- * 实际应用示例：事件管理器（读多写少）
- */
-class EventManager {
-    private List<EventListener> listeners = new CopyOnWriteArrayList<>();
-
-    public void addListener(EventListener listener) {
-        listeners.add(listener);
-    }
+        // ✅ 多个生产者时：ArrayBlockingQueue 的单把锁成为瓶颈，换成无锁环形队列
+        System.out.println("\n多生产者（4 生产 2 消费，每个生产者 20 万条）：");
+        transfer("ArrayBlockingQueue", new ArrayBlockingQueue<>(1024));
+        transfer("RingBlockingQueue.mpmc", RingBlockingQueue.mpmc(1024));
+        System.out.println("⚠️ 单生产者/单消费者时用 RingBlockingQueue.spsc / mpsc，省掉对应一端的 CAS");
+
+        // ✅ 用 Pipeline 串联多个阶段，不用手写 put/take 循环和线程
+        System.out.println("\nPipeline（读取 → 解析 ×2 → 汇总，汇总阶段较慢）：");
+        AtomicInteger nextOrder = new AtomicInteger();
+        AtomicLong totalAmount = new AtomicLong();
+        Pipeline.Run run = Pipeline.from("读取", 1, () -> {
+                int id = nextOrder.getAndIncrement();
+                return id < 20_000 ? "order-" + id + "," + (id % 100) : null;
+            })
+            .map("解析", 2, 256, line -> Long.parseLong(line.substring(line.indexOf(',') + 1)))
+            .batchSize(16)
+            .to("汇总", 1, 64, amount -> {
+                totalAmount.addAndGet(amount);
+                if (amount == 0) {
+                    LockSupport.parkNanos(10_000);  // 模拟较慢的写出
+                }
+            });
+        run.awaitCompletion(30, TimeUnit.SECONDS);
+        System.out.println("  金额合计：" + totalAmount.get());
+        run.printStats();
+        System.out.println("⚠️ 汇总阶段的积压和上游的背压阻塞时间说明它是瓶颈，应先给它加线程或加大批量");
 
-    public void removeListener(EventListener listener) {
-        listeners.remove(listener);
+        System.out.println();
     }
 
-    public void fireEvent(String event) {
-        // 遍历不需要加锁，自动安全
-        for (EventListener listener : listeners) {
-            listener.onEvent(event);
+    private static void transfer(String name, BlockingQueue<Integer> queue) throws InterruptedException {
+        int producers = 4;
+        int consumers = 2;
+        int perProducer = 200_000;
+        int total = producers * perProducer;
+        AtomicInteger received = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < perProducer; i++) {
+                        queue.put(i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (int c = 0; c < consumers; c++) {
+            threads.add(new Thread(() -> {
+                try {
+                    while (received.get() < total) {
+                        if (queue.poll(10, TimeUnit.MILLISECONDS) != null) {
+                            received.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        long start = System.nanoTime();
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
         }
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.println("  " + name + "：" + received.get() + " 条，耗时 " + millis + " ms");
     }
 }
-
-interface EventListener {
-    void onEvent(String event);
-}
@@ -0,0 +1,147 @@
+package com.hry.firstjava;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 实际应用示例：线程安全的计数器
+ *
+ * 按 key 计数。已存在的 key 直接从 ConcurrentHashMap 读取计数单元，不进入 computeIfAbsent 的桶锁；
+ * 只有第一次出现的 key 才需要创建。
+ * 近似模式（approximate）不为每个 key 保存计数，内存固定，适合用户 ID、URL 这类基数很大的 key。
+ */
+class ThreadSafeCounter {
+
+    /**
+     * 计数单元
+     */
+    enum Mode {
+        ATOMIC,  // 每个 key 一个 AtomicLong：读取快，热点 key 上多核 CAS 会互相重试
+        STRIPED  // 每个 key 一个 LongAdder：竞争时自动分散到多个单元，适合高并发写、低频读
+    }
+
+    private final Mode mode;
+    private final ConcurrentHashMap<String, Object> counter = new ConcurrentHashMap<>();
+    private final HeavyHitters heavyHitters;  // 近似模式，否则为 null
+
+    public ThreadSafeCounter() {
+        this(Mode.ATOMIC);
+    }
+
+    public ThreadSafeCounter(Mode mode) {
+        this(mode, null);
+    }
+
+    private ThreadSafeCounter(Mode mode, HeavyHitters heavyHitters) {
+        this.mode = mode;
+        this.heavyHitters = heavyHitters;
+    }
+
+    /**
+     * 近似模式：Count-Min Sketch + Space-Saving，内存固定
+     * getCount 不会少于真实次数，以 1 - delta 的概率多出不超过 epsilon × 总次数；
+     * 真实次数超过 总次数 / capacity 的 key 一定出现在 topK 中
+     *
+     * @param epsilon  点查询的相对误差，例如 0.001
+     * @param delta    超出误差的概率，例如 0.01
+     * @param capacity 监控的重度访问者数量，例如 1000
+     */
+    public static ThreadSafeCounter approximate(double epsilon, double delta, int capacity) {
+        return new ThreadSafeCounter(Mode.STRIPED, new HeavyHitters(epsilon, delta, capacity));
+    }
+
+    public void increment(String key) {
+        add(key, 1);
+    }
+
+    public void add(String key, long delta) {
+        if (heavyHitters != null) {
+            heavyHitters.add(key, delta);
+            return;
+        }
+        Object cell = counter.get(key);  // 快速路径：不加锁
+        if (cell == null) {
+            cell = counter.computeIfAbsent(key, k -> mode == Mode.STRIPED ? new LongAdder() : new AtomicLong());
+        }
+        if (cell instanceof LongAdder) {
+            ((LongAdder) cell).add(delta);
+        } else {
+            ((AtomicLong) cell).addAndGet(delta);
+        }
+    }
+
+    /**
+     * 不存在的 key 返回 0（不创建任何对象）；近似模式下返回估计值
+     */
+    public long getCount(String key) {
+        if (heavyHitters != null) {
+            return heavyHitters.estimate(key);
+        }
+        Object cell = counter.get(key);
+        return cell == null ? 0 : sum(cell);
+    }
+
+    /**
+     * 取出每个 key 自上次快照以来的计数并清零，用于定期导出指标
+     * 每个单元用 getAndSet 清零，并发的增加要么计入这次快照，要么计入下一次，不会丢失或重复；
+     * 计数为 0 的 key 不出现在结果中（key 本身保留，避免与并发增加竞争）
+     * 近似模式下返回 topK 的结果，清零与并发增加之间不是原子的
+     */
+    public Map<String, Long> snapshotAndReset() {
+        if (heavyHitters != null) {
+            Map<String, Long> snapshot = toMap(heavyHitters.topK(heavyHitters.capacity()));
+            heavyHitters.clear();
+            return snapshot;
+        }
+        Map<String, Long> snapshot = new HashMap<>();
+        counter.forEach((key, cell) -> {
+            long count = cell instanceof LongAdder
+                ? ((LongAdder) cell).sumThenReset()
+                : ((AtomicLong) cell).getAndSet(0);
+            if (count != 0) {
+                snapshot.put(key, count);
+            }
+        });
+        return snapshot;
+    }
+
+    /**
+     * 次数最多的 n 个 key，按次数从大到小
+     */
+    public Map<String, Long> topK(int n) {
+        if (heavyHitters != null) {
+            return toMap(heavyHitters.topK(n));
+        }
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(counter.size());
+        counter.forEach((key, cell) -> entries.add(Map.entry(key, sum(cell))));
+        entries.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+        return toMap(entries.subList(0, Math.min(n, entries.size())));
+    }
+
+    public void printAll() {
+        if (heavyHitters != null) {
+            topK(heavyHitters.capacity()).forEach((key, count) -> System.out.println(key + ": ~" + count));
+            return;
+        }
+        counter.forEach((key, cell) -> System.out.println(key + ": " + sum(cell)));
+    }
+
+    private static Map<String, Long> toMap(List<Map.Entry<String, Long>> entries) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : entries) {
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    private static long sum(Object cell) {
+        return cell instanceof LongAdder ? ((LongAdder) cell).sum() : ((AtomicLong) cell).get();
+    }
+}
@@ -0,0 +1,128 @@
+package com.hry.firstjava;
+
+import java.util.function.Consumer;
+
+/**
+ * 分层时间轮（用于缓存条目过期）
+ *
+ * 不使用后台线程，也不扫描整个缓存：每次维护时调用 advance(now)，只处理时间走过的桶。
+ * 第一层每个桶约 1 秒，往上依次约 1 分钟、1 小时、1 天，最后一层存放更远的条目；
+ * 高层桶到期时把其中的条目重新放入更精细的层级（级联）。
+ * 非线程安全，由 ConcurrentCache 在维护锁内调用。
+ */
+final class TimerWheel<K, V> {
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+    private static final long[] SPANS = {
+        1L << 30,  // 约 1.07 秒
+        1L << 36,  // 约 1.14 分钟
+        1L << 42,  // 约 1.22 小时
+        1L << 46,  // 约 0.81 天
+        1L << 50,  // 约 13 天
+        1L << 50
+    };
+    private static final int[] SHIFT = new int[SPANS.length];
+
+    static {
+        for (int i = 0; i < SPANS.length; i++) {
+            SHIFT[i] = Long.numberOfTrailingZeros(SPANS[i]);
+        }
+    }
+
+    private final ConcurrentCache.Entry<K, V>[][] wheel;
+    private long nanos;
+
+    TimerWheel(long now) {
+        this.nanos = now;
+        this.wheel = ConcurrentCache.newArray(ConcurrentCache.Entry[].class, BUCKETS.length);
+        for (int i = 0; i < BUCKETS.length; i++) {
+            wheel[i] = ConcurrentCache.newArray(ConcurrentCache.Entry.class, BUCKETS[i]);
+            for (int j = 0; j < BUCKETS[i]; j++) {
+                wheel[i][j] = sentinel();
+            }
+        }
+    }
+
+    /**
+     * 加入时间轮（按 entry.expiresAt）
+     */
+    void schedule(ConcurrentCache.Entry<K, V> entry) {
+        ConcurrentCache.Entry<K, V> sentinel = findBucket(entry.expiresAt);
+        entry.previousInTimer = sentinel.previousInTimer;
+        entry.nextInTimer = sentinel;
+        sentinel.previousInTimer.nextInTimer = entry;
+        sentinel.previousInTimer = entry;
+    }
+
+    /**
+     * 从时间轮中移除（条目被提前删除或替换时）
+     */
+    void deschedule(ConcurrentCache.Entry<K, V> entry) {
+        if (entry.nextInTimer != null) {
+            entry.nextInTimer.previousInTimer = entry.previousInTimer;
+            entry.previousInTimer.nextInTimer = entry.nextInTimer;
+            entry.nextInTimer = null;
+            entry.previousInTimer = null;
+        }
+    }
+
+    /**
+     * 推进到当前时间，对到期的条目调用 expirer
+     */
+    void advance(long now, Consumer<ConcurrentCache.Entry<K, V>> expirer) {
+        long previous = nanos;
+        nanos = now;
+        for (int i = 0; i < SHIFT.length - 1; i++) {
+            long previousTicks = previous >>> SHIFT[i];
+            long currentTicks = now >>> SHIFT[i];
+            long delta = currentTicks - previousTicks;
+            if (delta <= 0) {
+                break;
+            }
+            expire(i, previousTicks, delta, expirer);
+        }
+    }
+
+    private void expire(int level, long previousTicks, long delta, Consumer<ConcurrentCache.Entry<K, V>> expirer) {
+        ConcurrentCache.Entry<K, V>[] buckets = wheel[level];
+        int mask = buckets.length - 1;
+        int start = (int) (previousTicks & mask);
+        int end = start + (int) Math.min(delta + 1, buckets.length);
+        for (int i = start; i < end; i++) {
+            ConcurrentCache.Entry<K, V> sentinel = buckets[i & mask];
+            ConcurrentCache.Entry<K, V> entry = sentinel.nextInTimer;
+            // 先摘下整条链表，未到期的条目重新放入（可能落到更低层）
+            sentinel.previousInTimer = sentinel;
+            sentinel.nextInTimer = sentinel;
+            while (entry != sentinel) {
+                ConcurrentCache.Entry<K, V> next = entry.nextInTimer;
+                entry.previousInTimer = null;
+                entry.nextInTimer = null;
+                if (entry.expiresAt - nanos > 0) {
+                    schedule(entry);
+                } else {
+                    expirer.accept(entry);
+                }
+                entry = next;
+            }
+        }
+    }
+
+    private ConcurrentCache.Entry<K, V> findBucket(long time) {
+        long duration = time - nanos;
+        int last = wheel.length - 1;
+        for (int i = 0; i < last; i++) {
+            if (duration < SPANS[i + 1]) {
+                long ticks = time >>> SHIFT[i];
+                return wheel[i][(int) (ticks & (wheel[i].length - 1))];
+            }
+        }
+        return wheel[last][0];
+    }
+
+    private static <K, V> ConcurrentCache.Entry<K, V> sentinel() {
+        ConcurrentCache.Entry<K, V> sentinel = new ConcurrentCache.Entry<>(null, null, 0, Long.MAX_VALUE);
+        sentinel.previousInTimer = sentinel;
+        sentinel.nextInTimer = sentinel;
+        return sentinel;
+    }
+}
@@ -0,0 +1,9 @@
+package com.hry.firstjava;
+
+/**
+ * 按类型订阅的事件监听器
+ */
+@FunctionalInterface
+interface TypedEventListener<T> {
+    void onEvent(T event);
+}
@@ -0,0 +1,108 @@
+package com.hry.firstjava;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 值编解码器（堆外存储用）
+ *
+ * 把值编码为字节后写入堆外内存，读取时再解码；堆上只保留索引。
+ */
+interface ValueCodec<V> {
+
+    byte[] encode(V value);
+
+    V decode(byte[] bytes);
+
+    /**
+     * UTF-8 字符串
+     */
+    static ValueCodec<String> utf8() {
+        return new ValueCodec<>() {
+            @Override
+            public byte[] encode(String value) {
+                return value.getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public String decode(byte[] bytes) {
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    /**
+     * 原样保存字节数组
+     */
+    static ValueCodec<byte[]> bytes() {
+        return new ValueCodec<>() {
+            @Override
+            public byte[] encode(byte[] value) {
+                return value;
+            }
+
+            @Override
+            public byte[] decode(byte[] bytes) {
+                return bytes;
+            }
+        };
+    }
+
+    /**
+     * 通过 JsonSerializer / JsonDeserializer 编解码任意对象
+     */
+    static <V> ValueCodec<V> json(Class<V> type) {
+        return new ValueCodec<>() {
+            @Override
+            public byte[] encode(V value) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+                try {
+                    JsonSerializer.toJson(value, out);  // 直接输出 UTF-8，不经过 String
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return out.toByteArray();
+            }
+
+            @Override
+            public V decode(byte[] bytes) {
+                return JsonDeserializer.fromJson(bytes, type);
+            }
+        };
+    }
+
+    /**
+     * Java 序列化，适合值类型不固定的场景（值必须实现 Serializable）
+     */
+    @SuppressWarnings("unchecked")
+    static <V> ValueCodec<V> serialized() {
+        return new ValueCodec<>() {
+            @Override
+            public byte[] encode(V value) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+                try (ObjectOutputStream objects = new ObjectOutputStream(out)) {
+                    objects.writeObject(value);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return out.toByteArray();
+            }
+
+            @Override
+            public V decode(byte[] bytes) {
+                try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return (V) objects.readObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalStateException("无法解码：" + e.getMessage(), e);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,77 @@
+package com.hry.firstjava;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 消费者等待新事件的方式
+ *
+ * - busySpin：一直自旋，延迟最低，但会占满一个 CPU 核，只适合消费者线程数少于核数的情况
+ * - yielding：自旋一段时间后 Thread.yield()，把 CPU 让给其他线程
+ * - parking：自旋、让出之后再 parkNanos 睡眠，空闲时几乎不占 CPU，延迟最高
+ */
+interface WaitStrategy {
+
+    /**
+     * 等待 cursor 到达 sequence，返回 cursor 当前的值（可能大于 sequence，调用方可以批量处理）
+     * alerted 返回 true（事件总线关闭）时提前返回，返回值小于 sequence
+     */
+    long waitFor(long sequence, Sequence cursor, BooleanSupplier alerted);
+
+    static WaitStrategy busySpin() {
+        return (sequence, cursor, alerted) -> {
+            long available;
+            while ((available = cursor.get()) < sequence) {
+                if (alerted.getAsBoolean()) {
+                    return available;
+                }
+                Thread.onSpinWait();
+            }
+            return available;
+        };
+    }
+
+    static WaitStrategy yielding() {
+        return (sequence, cursor, alerted) -> {
+            long available;
+            int counter = 100;
+            while ((available = cursor.get()) < sequence) {
+                if (alerted.getAsBoolean()) {
+                    return available;
+                }
+                if (counter > 0) {
+                    counter--;
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+            return available;
+        };
+    }
+
+    /**
+     * @param sleepNanos 自旋和让出都没等到时每次睡眠的时间
+     */
+    static WaitStrategy parking(long sleepNanos) {
+        return (sequence, cursor, alerted) -> {
+            long available;
+            int counter = 200;
+            while ((available = cursor.get()) < sequence) {
+                if (alerted.getAsBoolean()) {
+                    return available;
+                }
+                if (counter > 100) {
+                    counter--;
+                    Thread.onSpinWait();
+                } else if (counter > 0) {
+                    counter--;
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(sleepNanos);
+                }
+            }
+            return available;
+        };
+    }
+}
@@ -0,0 +1,279 @@
+package com.hry.firstjava.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @Entity 注解处理器（编译期代码生成）
+ *
+ * 为每个 @Entity 类生成 Xxx_Entity（实现 EntityMetadata：表名、字段访问表、JSON 序列化代码），
+ * 并生成注册表 META-INF/firstjava/entities（每行“实体类名 元数据类名”），
+ * 运行时由 EntityMetadata.lookup 按类型查找，不再需要反射扫描注解和字段。
+ * 实体可能分散在多轮处理中出现，注册表在最后一轮统一写一次（没有可生成的实体时为空文件）；
+ * 它是资源文件而不是源文件，最后一轮生成不会触发编译器警告。
+ * 私有字段通过非私有的 getXxx/isXxx 方法读取；找不到访问方式的类会给出警告并跳过，
+ * 运行时仍由 JsonSerializer 的反射路径处理。
+ */
+@SupportedAnnotationTypes(EntityProcessor.ENTITY_ANNOTATION)
+public class EntityProcessor extends AbstractProcessor {
+    static final String TARGET_PACKAGE = "com.hry.firstjava";
+    static final String ENTITY_ANNOTATION = TARGET_PACKAGE + ".Entity";
+    static final String REGISTRY_RESOURCE = "META-INF/firstjava/entities";
+
+    private final List<String> generated = new ArrayList<>();  // 各轮累计的注册表行
+    private boolean registryWritten;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            if (!registryWritten) {
+                registryWritten = true;
+                writeRegistry();
+            }
+            return true;
+        }
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    error(element, "@Entity 只能用于类");
+                    continue;
+                }
+                TypeElement type = (TypeElement) element;
+                String metadataName = generateMetadata(type);
+                if (metadataName != null) {
+                    generated.add(processingEnv.getElementUtils().getBinaryName(type) + " "
+                        + TARGET_PACKAGE + "." + metadataName);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 生成单个实体的元数据类，返回生成的类名；无法生成时返回 null
+     */
+    private String generateMetadata(TypeElement type) {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        if (!pkg.getQualifiedName().contentEquals(TARGET_PACKAGE)) {
+            warning(type, "@Entity 代码生成只支持 " + TARGET_PACKAGE + " 包，运行时将使用反射");
+            return null;
+        }
+        if (!type.getTypeParameters().isEmpty() || type.getModifiers().contains(Modifier.PRIVATE)) {
+            warning(type, "泛型类或私有类不生成实体代码，运行时将使用反射");
+            return null;
+        }
+
+        List<FieldInfo> fields = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                continue;
+            }
+            String accessor = accessorFor(type, field);
+            if (accessor == null) {
+                warning(field, "私有字段 " + field.getSimpleName() + " 没有可用的 getter，"
+                    + type.getSimpleName() + " 运行时将使用反射");
+                return null;
+            }
+            fields.add(new FieldInfo(field.getSimpleName().toString(), field.asType(), accessor));
+        }
+
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String metadataName = binaryName.substring(TARGET_PACKAGE.length() + 1).replace('$', '_') + "_Entity";
+        String entityName = type.getQualifiedName().toString();
+        writeSource(TARGET_PACKAGE + "." + metadataName,
+            metadataSource(metadataName, entityName, tableName(type), fields));
+        return metadataName;
+    }
+
+    /**
+     * 非私有字段直接访问，私有字段使用同类型的 getXxx()/isXxx()
+     */
+    private String accessorFor(TypeElement type, VariableElement field) {
+        String name = field.getSimpleName().toString();
+        if (!field.getModifiers().contains(Modifier.PRIVATE)) {
+            return "entity." + name;
+        }
+        String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            String methodName = method.getSimpleName().toString();
+            boolean nameMatches = methodName.equals("get" + suffix)
+                || (field.asType().getKind() == TypeKind.BOOLEAN && methodName.equals("is" + suffix));
+            if (nameMatches
+                    && method.getParameters().isEmpty()
+                    && !method.getModifiers().contains(Modifier.PRIVATE)
+                    && !method.getModifiers().contains(Modifier.STATIC)
+                    && processingEnv.getTypeUtils().isSameType(method.getReturnType(), field.asType())) {
+                return "entity." + methodName + "()";
+            }
+        }
+        return null;
+    }
+
+    private String tableName(TypeElement type) {
+        for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(ENTITY_ANNOTATION)) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                        : mirror.getElementValues().entrySet()) {
+                    if (entry.getKey().getSimpleName().contentEquals("tableName")) {
+                        return entry.getValue().getValue().toString();
+                    }
+                }
+            }
+        }
+        return type.getSimpleName().toString();
+    }
+
+    private String metadataSource(String className, String entityName, String tableName, List<FieldInfo> fields) {
+        StringBuilder src = new StringBuilder();
+        src.append("package ").append(TARGET_PACKAGE).append(";\n\n");
+        src.append("/**\n * 由 EntityProcessor 生成，请勿手动修改\n */\n");
+        src.append("final class ").append(className)
+            .append(" implements EntityMetadata<").append(entityName).append("> {\n");
+        src.append("    static final ").append(className).append(" INSTANCE = new ").append(className).append("();\n\n");
+        src.append("    static final String TABLE_NAME = ").append(literal(tableName)).append(";\n\n");
+        src.append("    private static final String[] FIELD_NAMES = {");
+        for (int i = 0; i < fields.size(); i++) {
+            src.append(i > 0 ? ", " : "").append(literal(fields.get(i).name));
+        }
+        src.append("};\n\n");
+        for (int i = 0; i < fields.size(); i++) {
+            String prefix = (i > 0 ? "," : "") + "\"" + fields.get(i).name + "\":";
+            src.append("    private static final byte[] PREFIX_").append(i).append(" = ")
+                .append(literal(prefix)).append(".getBytes(java.nio.charset.StandardCharsets.UTF_8);\n");
+        }
+        src.append("\n    private ").append(className).append("() {\n    }\n\n");
+
+        src.append("    @Override\n    public Class<").append(entityName).append("> entityType() {\n");
+        src.append("        return ").append(entityName).append(".class;\n    }\n\n");
+        src.append("    @Override\n    public String tableName() {\n        return TABLE_NAME;\n    }\n\n");
+        src.append("    @Override\n    public String[] fieldNames() {\n        return FIELD_NAMES.clone();\n    }\n\n");
+
+        src.append("    @Override\n    public Object get(").append(entityName).append(" entity, int index) {\n");
+        src.append("        switch (index) {\n");
+        for (int i = 0; i < fields.size(); i++) {
+            src.append("            case ").append(i).append(":\n");
+            src.append("                return ").append(fields.get(i).accessor).append(";\n");
+        }
+        src.append("            default:\n");
+        src.append("                throw new IndexOutOfBoundsException(\"字段索引越界：\" + index);\n");
+        src.append("        }\n    }\n\n");
+
+        src.append("    @Override\n    public void writeJson(").append(entityName).append(" entity, JsonWriter writer) {\n");
+        src.append("        writer.enter(entity);\n");
+        src.append("        writer.writeByte((byte) '{');\n");
+        for (int i = 0; i < fields.size(); i++) {
+            FieldInfo field = fields.get(i);
+            src.append("        writer.writeBytes(PREFIX_").append(i).append(");\n");
+            src.append("        ").append(writeStatement(field)).append("\n");
+        }
+        src.append("        writer.writeByte((byte) '}');\n");
+        src.append("        writer.exit();\n");
+        src.append("    }\n}\n");
+        return src.toString();
+    }
+
+    private String writeStatement(FieldInfo field) {
+        String value = field.accessor;
+        switch (field.type.getKind()) {
+            case INT:
+            case LONG:
+            case SHORT:
+            case BYTE:
+                return "writer.writeLong(" + value + ");";
+            case DOUBLE:
+                return "writer.writeDouble(" + value + ");";
+            case FLOAT:
+                return "writer.writeFloat(" + value + ");";
+            case BOOLEAN:
+                return "writer.writeBoolean(" + value + ");";
+            case CHAR:
+                return "writer.writeString(String.valueOf(" + value + "));";
+            default:
+                return "JsonSerializer.writeValue(writer, " + value + ");";
+        }
+    }
+
+    private void writeRegistry() {
+        try (Writer writer = processingEnv.getFiler()
+                .createResource(StandardLocation.CLASS_OUTPUT, "", REGISTRY_RESOURCE).openWriter()) {
+            for (String line : generated) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "生成 " + REGISTRY_RESOURCE + " 失败：" + e);
+        }
+    }
+
+    private void writeSource(String qualifiedName, String source) {
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName).openWriter()) {
+            writer.write(source);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "生成 " + qualifiedName + " 失败：" + e);
+        }
+    }
+
+    private static String literal(String value) {
+        StringBuilder out = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    private void warning(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, message, element);
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static final class FieldInfo {
+        final String name;
+        final TypeMirror type;
+        final String accessor;
+
+        FieldInfo(String name, TypeMirror type, String accessor) {
+            this.name = name;
+            this.type = type;
+            this.accessor = accessor;
+        }
+    }
+}
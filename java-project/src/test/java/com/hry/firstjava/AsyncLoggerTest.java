@@ -0,0 +1,103 @@
+package com.hry.firstjava;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AsyncLogger 的测试类
+ */
+public class AsyncLoggerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testKeepsOrderAndCloseFlushesEverything() throws IOException {
+        Path file = dir.resolve("app.log");
+        AsyncLogger logger = new AsyncLogger(file.toString(), 64, 16, 10_000, AsyncLogger.OverflowPolicy.BLOCK);
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(logger.log("m" + i));
+        }
+        logger.close();  // 刷新间隔很长，剩余记录只能由 close 写出
+        logger.close();  // 重复关闭无副作用
+
+        assertEquals(expected(0, 10_000), messages(file));
+        assertTrue(Files.readAllLines(file).get(0).matches("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}\\.\\d{3} - m0"));
+        assertThrows(IllegalStateException.class, () -> logger.log("late"));
+    }
+
+    @Test
+    public void testDropRejectsNewRecords() throws IOException {
+        Path file = dir.resolve("drop.log");
+        AsyncLogger logger = new AsyncLogger(file.toString(), 4, 4, 10_000, AsyncLogger.OverflowPolicy.DROP, false);
+        for (int i = 0; i < 6; i++) {
+            assertEquals(i < 4, logger.log("m" + i));
+        }
+        assertEquals(2, logger.getDroppedCount());
+        logger.start();
+        logger.close();
+        assertEquals(expected(0, 4), messages(file));
+    }
+
+    @Test
+    public void testDropOldestOverwritesOldRecords() throws IOException {
+        Path file = dir.resolve("oldest.log");
+        AsyncLogger logger = new AsyncLogger(file.toString(), 4, 4, 10_000,
+            AsyncLogger.OverflowPolicy.DROP_OLDEST, false);
+        for (int i = 0; i < 6; i++) {
+            assertTrue(logger.log("m" + i));
+        }
+        assertEquals(2, logger.getDroppedCount());
+        logger.start();
+        logger.close();
+        assertEquals(expected(2, 6), messages(file));
+    }
+
+    @Test
+    public void testBlockWaitsForSpace() throws Exception {
+        Path file = dir.resolve("block.log");
+        AsyncLogger logger = new AsyncLogger(file.toString(), 2, 2, 10_000, AsyncLogger.OverflowPolicy.BLOCK, false);
+        AtomicBoolean finished = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 3; i++) {
+                logger.log("m" + i);
+            }
+            finished.set(true);
+        });
+        producer.start();
+        Thread.sleep(100);
+        assertFalse(finished.get());  // 第三条等待空位
+        logger.start();
+        producer.join(5000);
+        assertTrue(finished.get());
+        logger.close();
+        assertEquals(expected(0, 3), messages(file));
+        assertEquals(0, logger.getDroppedCount());
+    }
+
+    private static List<String> expected(int from, int to) {
+        List<String> expected = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            expected.add("m" + i);
+        }
+        return expected;
+    }
+
+    private static List<String> messages(Path file) throws IOException {
+        List<String> messages = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            messages.add(line.substring(line.indexOf(" - ") + 3));
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,106 @@
+package com.hry.firstjava;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * CSVReader 流式读取（forEach / stream）的测试类
+ */
+public class CSVReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testForEachStopsWhenHandlerReturnsFalse() throws IOException {
+        Path file = writeRows(100);
+        List<String> seen = new ArrayList<>();
+        long processed = CSVReader.forEach(file.toString(), record -> {
+            seen.add(record.getString(0));
+            return record.getLong(0) < 3;
+        });
+        assertEquals(4, processed);  // 返回 false 的那条也计入
+        assertEquals(List.of("0", "1", "2", "3"), seen);
+        assertEquals(100, CSVReader.forEach(file.toString(), record -> true));
+    }
+
+    @Test
+    public void testForEachClosesFileWhenHandlerThrows() throws IOException {
+        Path file = writeRows(10);
+        assumeOpenFilesVisible();
+        assertThrows(IllegalStateException.class, () -> CSVReader.forEach(file.toString(), record -> {
+            throw new IllegalStateException("处理失败");
+        }));
+        assertEquals(0, openHandles(file));
+    }
+
+    @Test
+    public void testStreamIsLazyAndClosesFile() throws IOException {
+        Path file = writeRows(100);
+        assumeOpenFilesVisible();
+        List<String> firstThree;
+        try (Stream<CsvRecord> records = CSVReader.stream(file.toString())) {
+            assertEquals(1, openHandles(file));
+            firstThree = records.limit(3)
+                .map(record -> record.getString(1))
+                .collect(Collectors.toList());
+        }
+        assertEquals(List.of("name0", "name1", "name2"), firstThree);
+        assertEquals(0, openHandles(file));
+
+        try (Stream<CsvRecord> records = CSVReader.stream(file.toString())) {
+            assertEquals(100, records.count());
+        }
+        assertEquals(0, openHandles(file));
+    }
+
+    private Path writeRows(int rows) throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            csv.append(i).append(",name").append(i).append('\n');
+        }
+        Path file = tempDir.resolve("rows.csv");
+        Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /**
+     * 通过 /proc/self/fd 检查文件句柄，只在 Linux 上运行
+     */
+    private static void assumeOpenFilesVisible() {
+        assumeTrue(Files.isDirectory(Paths.get("/proc/self/fd")), "需要 /proc/self/fd");
+    }
+
+    /**
+     * 当前进程中指向 file 的文件句柄数
+     */
+    private static long openHandles(Path file) throws IOException {
+        Path target = file.toRealPath();
+        long count = 0;
+        try (Stream<Path> fds = Files.list(Paths.get("/proc/self/fd"))) {
+            for (Path fd : (Iterable<Path>) fds::iterator) {
+                try {
+                    if (Files.readSymbolicLink(fd).equals(target)) {
+                        count++;
+                    }
+                } catch (IOException e) {
+                    // 遍历期间关闭的句柄
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,153 @@
+package com.hry.firstjava;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CacheSnapshot 的测试类
+ */
+public class CacheSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    private CacheSnapshot<String, String> snapshot(Path file, int chunkSize) {
+        return new CacheSnapshot<>(file, ValueCodec.utf8(), ValueCodec.utf8(), chunkSize);
+    }
+
+    @Test
+    public void testRestoresLazily() throws IOException {
+        Path file = dir.resolve("cache.dat");
+        CacheSnapshot<String, String> snapshot = snapshot(file, 4096);  // 小块，记录会跳到下一块
+        ConcurrentCache<String, String> before = new ConcurrentCache<>();
+        for (int i = 0; i < 1000; i++) {
+            before.put("k" + i, "v".repeat(i % 50) + i);
+        }
+        assertEquals(1000, snapshot.write(before));
+
+        ConcurrentCache<String, String> after = new ConcurrentCache<>();
+        assertEquals(1000, after.warmUpFrom(snapshot));
+        assertEquals(0, after.size());  // 值还在文件里
+        assertEquals("v".repeat(7) + 7, after.get("k7"));
+        assertEquals(1, after.size());
+        assertEquals(1, after.getSnapshotHitCount());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("v".repeat(i % 50) + i, after.get("k" + i));
+        }
+        assertEquals(1000, after.getSnapshotHitCount());
+        assertNull(after.get("missing"));
+    }
+
+    @Test
+    public void testWritesAndRemovesOverrideSnapshot() throws IOException {
+        Path file = dir.resolve("cache.dat");
+        CacheSnapshot<String, String> snapshot = snapshot(file, CacheSnapshot.DEFAULT_CHUNK_SIZE);
+        ConcurrentCache<String, String> before = new ConcurrentCache<>();
+        before.put("a", "old");
+        before.put("b", "old");
+        before.put("c", "old");
+        snapshot.write(before);
+
+        ConcurrentCache<String, String> after = new ConcurrentCache<>();
+        after.warmUpFrom(snapshot);
+        after.put("a", "new");
+        after.remove("b");
+        assertEquals("new", after.get("a"));
+        assertNull(after.get("b"));
+
+        // 新快照包含修改后的值和还没读取的条目
+        assertEquals(2, snapshot.write(after));
+        ConcurrentCache<String, String> third = new ConcurrentCache<>();
+        assertEquals(2, third.warmUpFrom(snapshot));
+        assertEquals("new", third.get("a"));
+        assertNull(third.get("b"));
+        assertEquals("old", third.get("c"));
+    }
+
+    @Test
+    public void testKeepsRemainingTimeToLive() throws IOException, InterruptedException {
+        Path file = dir.resolve("cache.dat");
+        CacheSnapshot<String, String> snapshot = snapshot(file, CacheSnapshot.DEFAULT_CHUNK_SIZE);
+        ConcurrentCache<String, String> before = new ConcurrentCache<>(100, Duration.ofMinutes(10));
+        before.put("long", "v");
+        before.put("short", "v", Duration.ofMillis(50));
+        snapshot.write(before);
+
+        Thread.sleep(100);
+        ConcurrentCache<String, String> after = new ConcurrentCache<>(100, Duration.ofMinutes(10));
+        assertEquals(1, after.warmUpFrom(snapshot));  // 已过期的条目不进入索引
+        assertEquals("v", after.get("long"));
+        assertNull(after.get("short"));
+    }
+
+    @Test
+    public void testCorruptedRecordIsMiss() throws IOException {
+        Path file = dir.resolve("cache.dat");
+        CacheSnapshot<String, String> snapshot = snapshot(file, CacheSnapshot.DEFAULT_CHUNK_SIZE);
+        ConcurrentCache<String, String> before = new ConcurrentCache<>();
+        before.put("a", "value");
+        snapshot.write(before);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {'X'}), channel.size() - 6);  // 改动值的最后一个字节
+        }
+
+        ConcurrentCache<String, String> after = new ConcurrentCache<>();
+        assertEquals(1, after.warmUpFrom(snapshot));
+        assertNull(after.get("a"));
+
+        assertEquals(0, new ConcurrentCache<String, String>().warmUpFrom(snapshot(dir.resolve("none.dat"), 4096)));
+    }
+
+    @Test
+    public void testUnreadableSnapshotStartsCold() throws IOException {
+        Path file = dir.resolve("cache.dat");
+        CacheSnapshot<String, String> snapshot = snapshot(file, CacheSnapshot.DEFAULT_CHUNK_SIZE);
+        ConcurrentCache<String, String> before = new ConcurrentCache<>();
+        before.put("a", "value");
+        snapshot.write(before);
+        byte[] valid = Files.readAllBytes(file);
+
+        // 魔数错误
+        Files.write(file, new byte[] {'X', 'X', 'X', 'X'}, StandardOpenOption.WRITE);
+        assertEquals(0, new ConcurrentCache<String, String>().warmUpFrom(snapshot));
+        // 文件头被截断
+        Files.write(file, Arrays.copyOf(valid, 10));
+        assertEquals(0, new ConcurrentCache<String, String>().warmUpFrom(snapshot));
+        // 块大小错误
+        Files.write(file, valid);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 1), 8);
+        }
+        assertEquals(0, new ConcurrentCache<String, String>().warmUpFrom(snapshot));
+        // 记录长度损坏
+        Files.write(file, valid);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE), 20 + 4);  // 文件头 20 字节，之后是第一条记录的值长度
+        }
+        ConcurrentCache<String, String> after = new ConcurrentCache<>();
+        assertEquals(0, after.warmUpFrom(snapshot));
+        assertNull(after.get("a"));
+
+        // 带快照的 Cache 不会因为损坏的快照而创建失败
+        Path cacheFile = dir.resolve("objects.dat");
+        Files.write(cacheFile, new byte[] {1, 2, 3});
+        try (Cache cache = new Cache(100, Duration.ofMinutes(5), cacheFile, Duration.ofMinutes(1))) {
+            assertNull(cache.get("a"));
+            cache.put("b", "value");
+        }
+        try (Cache cache = new Cache(100, Duration.ofMinutes(5), cacheFile, Duration.ofMinutes(1))) {
+            assertEquals("value", cache.get("b"));  // 关闭时写出的新快照可以正常读取
+        }
+    }
+}
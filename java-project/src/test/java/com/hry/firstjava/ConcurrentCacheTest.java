@@ -0,0 +1,110 @@
+package com.hry.firstjava;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ConcurrentCache 的测试类
+ */
+public class ConcurrentCacheTest {
+
+    @Test
+    public void testExpiresAfterWrite() {
+        AtomicLong time = new AtomicLong();
+        ConcurrentCache<String, Integer> cache = new ConcurrentCache<>(Long.MAX_VALUE, Duration.ofSeconds(10),
+            null, null, Runnable::run, time::get);
+        cache.put("a", 1);
+        cache.put("b", 2, Duration.ofHours(3));  // 单独指定的存活时间，落在时间轮的高层
+        cache.put("c", 3, Duration.ofDays(30));
+
+        time.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertEquals(1, cache.get("a"));
+        time.addAndGet(TimeUnit.SECONDS.toNanos(6));
+        assertNull(cache.get("a"));
+        cache.cleanUp();
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getExpirationCount());
+
+        time.addAndGet(TimeUnit.HOURS.toNanos(3));
+        assertNull(cache.get("b"));
+        cache.cleanUp();
+        assertEquals(1, cache.size());
+
+        time.addAndGet(TimeUnit.DAYS.toNanos(30));
+        cache.cleanUp();
+        assertEquals(0, cache.size());
+        assertEquals(3, cache.getExpirationCount());
+    }
+
+    @Test
+    public void testReplacedEntryKeepsNewExpiry() {
+        AtomicLong time = new AtomicLong();
+        ConcurrentCache<String, Integer> cache = new ConcurrentCache<>(Long.MAX_VALUE, Duration.ofSeconds(10),
+            null, null, Runnable::run, time::get);
+        cache.put("a", 1);
+        time.addAndGet(TimeUnit.SECONDS.toNanos(8));
+        cache.put("a", 2);
+        time.addAndGet(TimeUnit.SECONDS.toNanos(8));
+        cache.cleanUp();
+        assertEquals(2, cache.get("a"));
+        assertEquals(2, cache.remove("a"));
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void testRefreshServesStaleValue() {
+        AtomicLong time = new AtomicLong();
+        ConcurrentCache<String, Integer> cache = new ConcurrentCache<>(100, null, Duration.ofSeconds(1),
+            (key, old) -> old + 1, Runnable::run, time::get);
+        cache.put("a", 1);
+        assertEquals(1, cache.get("a"));
+        time.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertEquals(1, cache.get("a"));  // 触发刷新，本次仍返回旧值
+        assertEquals(2, cache.get("a"));
+    }
+
+    @Test
+    public void testBoundedUnderConcurrency() throws InterruptedException {
+        ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<>(64, null);
+        AtomicInteger wrongValues = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            int seed = t;
+            Thread thread = new Thread(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 20000; i++) {
+                    int key = random.nextInt(1000);
+                    int op = random.nextInt(10);
+                    if (op < 6) {
+                        Integer value = cache.get(key);
+                        if (value != null && value != key * 2) {
+                            wrongValues.incrementAndGet();
+                        }
+                    } else if (op < 9) {
+                        cache.put(key, key * 2);
+                    } else {
+                        cache.remove(key);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        cache.cleanUp();
+        assertEquals(0, wrongValues.get());
+        assertTrue(cache.size() <= 64, "大小：" + cache.size());
+        assertTrue(cache.getEvictionCount() > 0);
+    }
+}
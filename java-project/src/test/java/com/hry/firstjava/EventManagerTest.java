@@ -0,0 +1,319 @@
+package com.hry.firstjava;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * EventManager 的测试类
+ */
+public class EventManagerTest {
+
+    @Test
+    public void testSyncDelivery() {
+        EventManager manager = new EventManager();
+        List<String> received = new ArrayList<>();
+        EventListener listener = received::add;
+        manager.addListener(listener);
+        manager.fireEvent("a");
+        manager.removeListener(listener);
+        manager.fireEvent("b");
+        assertEquals(List.of("a"), received);
+    }
+
+    @Test
+    public void testAsyncKeepsPerListenerOrder() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            EventManager manager = new EventManager(executor, 64, EventManager.SlowListenerPolicy.BLOCK);
+            List<List<String>> received = new ArrayList<>();
+            for (int l = 0; l < 3; l++) {
+                List<String> events = new ArrayList<>();  // 同一个监听器不会被并发调用，不需要同步
+                received.add(events);
+                manager.addListener(events::add);
+            }
+            for (int i = 0; i < 10_000; i++) {
+                manager.fireEvent(String.valueOf(i));
+            }
+            assertTrue(manager.awaitIdle(10, TimeUnit.SECONDS));
+            for (List<String> events : received) {
+                assertEquals(10_000, events.size());
+                for (int i = 0; i < events.size(); i++) {
+                    assertEquals(String.valueOf(i), events.get(i));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSlowListenerDoesNotStallOthers() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            EventManager manager = new EventManager(executor, 8, EventManager.SlowListenerPolicy.DROP);
+            AtomicInteger fast = new AtomicInteger();
+            EventListener slow = event -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+            EventListener quick = event -> fast.incrementAndGet();
+            manager.addListener(slow);
+            manager.addListener(quick);
+            for (int i = 0; i < 100; i++) {
+                manager.fireEvent("e" + i);
+                Thread.sleep(0, 100_000);
+            }
+            assertFalse(manager.awaitIdle(0, TimeUnit.SECONDS));
+            EventManager.ListenerStats stats = manager.getStats(slow);
+            assertTrue(stats.dropped > 0);
+            assertEquals(8, stats.maxLag);
+            assertEquals(100, stats.published + stats.dropped);
+            release.countDown();
+            assertTrue(manager.awaitIdle(10, TimeUnit.SECONDS));
+            assertEquals(100, fast.get());
+            assertEquals(0, manager.getStats(quick).dropped);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDisconnectsSlowListener() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            EventManager manager = new EventManager(executor, 4, EventManager.SlowListenerPolicy.DISCONNECT);
+            EventListener slow = event -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+            manager.addListener(slow);
+            for (int i = 0; i < 10; i++) {
+                manager.fireEvent("e" + i);
+            }
+            assertNull(manager.getStats(slow));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    static class OrderCreated {
+        final long id;
+
+        OrderCreated(long id) {
+            this.id = id;
+        }
+    }
+
+    static class VipOrderCreated extends OrderCreated {
+        VipOrderCreated(long id) {
+            super(id);
+        }
+    }
+
+    @Test
+    public void testTypedRouting() {
+        EventManager manager = new EventManager();
+        List<Long> orders = new ArrayList<>();
+        List<Long> vipOrders = new ArrayList<>();
+        List<String> strings = new ArrayList<>();
+        List<Object> everything = new ArrayList<>();
+        TypedEventListener<OrderCreated> orderListener = event -> orders.add(event.id);
+        manager.subscribe(OrderCreated.class, orderListener);
+        manager.subscribe(VipOrderCreated.class, event -> vipOrders.add(event.id));
+        manager.addListener(strings::add);
+        manager.subscribe(Object.class, everything::add);
+
+        manager.publish(new OrderCreated(1));
+        manager.publish(new VipOrderCreated(2));
+        manager.fireEvent("text");
+        manager.publish(42);
+        assertEquals(List.of(1L, 2L), orders);
+        assertEquals(List.of(2L), vipOrders);
+        assertEquals(List.of("text"), strings);
+        assertEquals(4, everything.size());
+
+        manager.unsubscribe(orderListener);  // 分发表随订阅变化重建
+        manager.publish(new OrderCreated(3));
+        assertEquals(List.of(1L, 2L), orders);
+        assertEquals(5, everything.size());
+    }
+
+    @Test
+    public void testTopicRouting() {
+        EventManager manager = new EventManager();
+        List<String> created = new ArrayList<>();
+        List<String> allOrders = new ArrayList<>();
+        List<String> any = new ArrayList<>();
+        manager.subscribe("order.*.created", String.class, created::add);
+        manager.subscribe("order.#", String.class, allOrders::add);
+        manager.subscribe(String.class, any::add);  // 不限主题
+
+        manager.publish("order.eu.created", "a");
+        manager.publish("order.eu.paid", "b");
+        manager.publish("order", "c");
+        manager.publish("user.created", "d");
+        manager.publish("order.eu.created", 1);  // 类型不匹配
+        manager.publish("e");                    // 没有主题：只到达不限主题的订阅
+        assertEquals(List.of("a"), created);
+        assertEquals(List.of("a", "b", "c"), allOrders);
+        assertEquals(List.of("a", "b", "c", "d", "e"), any);
+    }
+
+    @Test
+    public void testTopicPattern() {
+        assertTrue(new EventManager.TopicPattern("a.*.c").matches("a.b.c"));
+        assertFalse(new EventManager.TopicPattern("a.*.c").matches("a.c"));
+        assertTrue(new EventManager.TopicPattern("a.#.c").matches("a.c"));
+        assertTrue(new EventManager.TopicPattern("a.#.c").matches("a.x.y.c"));
+        assertFalse(new EventManager.TopicPattern("a.#.c").matches("a.x.y"));
+        assertTrue(new EventManager.TopicPattern("#").matches("anything.at.all"));
+        assertFalse(new EventManager.TopicPattern("a.b").matches("a.b.c"));
+        assertThrows(IllegalArgumentException.class, () -> new EventManager.TopicPattern(""));
+    }
+
+    @Test
+    public void testBatchesBySizeAndLinger() throws InterruptedException {
+        EventManager manager = new EventManager();
+        List<List<String>> batches = new ArrayList<>();
+        List<Object> buffers = new ArrayList<>();
+        BatchEventListener<String> listener = events -> {
+            synchronized (batches) {
+                batches.add(new ArrayList<>(events));
+                buffers.add(events);
+            }
+        };
+        manager.addBatchListener(listener, 3, Duration.ofMillis(20));
+        for (int i = 0; i < 7; i++) {
+            manager.fireEvent("e" + i);
+        }
+        synchronized (batches) {
+            assertEquals(List.of(List.of("e0", "e1", "e2"), List.of("e3", "e4", "e5")), batches);
+        }
+        assertTrue(manager.awaitIdle(5, TimeUnit.SECONDS));  // 最后一条在 linger 后投递
+        synchronized (batches) {
+            assertEquals(List.of("e6"), batches.get(2));
+            assertSame(buffers.get(0), buffers.get(2));  // 缓冲区复用
+        }
+
+        manager.fireEvent("e7");
+        manager.unsubscribe(listener);  // 取消订阅时投递剩余事件
+        synchronized (batches) {
+            assertEquals(List.of("e7"), batches.get(3));
+        }
+        assertFalse(manager.hasFlusher(), "最后一个批量监听器取消后定时线程应结束");
+    }
+
+    @Test
+    public void testCloseFlushesBatchesAndStopsFlusher() {
+        EventManager manager = new EventManager();
+        List<String> received = new ArrayList<>();
+        manager.addBatchListener(events -> received.addAll(events), 100, Duration.ofMinutes(1));
+        manager.subscribeBatch(Integer.class, events -> received.add("ints:" + events.size()), 100, Duration.ofMinutes(1));
+        manager.fireEvent("a");
+        manager.publish(1);
+        assertTrue(received.isEmpty());
+        assertTrue(manager.hasFlusher());
+        manager.close();
+        assertEquals(List.of("a", "ints:1"), received);
+        assertFalse(manager.hasFlusher());
+        manager.fireEvent("b");  // 已经没有订阅
+        assertEquals(2, received.size());
+    }
+
+    @Test
+    public void testListenerUnsubscribingItselfGetsBatchOnce() {
+        EventManager manager = new EventManager();
+        List<List<String>> batches = new ArrayList<>();
+        BatchEventListener<String> listener = new BatchEventListener<>() {
+            @Override
+            public void onEvents(List<String> events) {
+                batches.add(new ArrayList<>(events));
+                manager.unsubscribe(this);  // 取消订阅时投递剩余事件，不能再投递正在处理的这一批
+            }
+        };
+        manager.addBatchListener(listener, 2, Duration.ofMinutes(1));
+        manager.fireEvent("a");
+        manager.fireEvent("b");
+        manager.fireEvent("c");
+        assertEquals(List.of(List.of("a", "b")), batches);
+        assertFalse(manager.hasFlusher());
+    }
+
+    @Test
+    public void testSubscribeFromFlusherDuringClose() throws InterruptedException {
+        EventManager manager = new EventManager();
+        CountDownLatch delivering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch subscribed = new CountDownLatch(1);
+        manager.addBatchListener(events -> {
+            delivering.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            manager.subscribe(Integer.class, event -> { });  // 定时线程中订阅，close 正在等待这一批投递完
+            subscribed.countDown();
+        }, 100, Duration.ofMillis(5));
+        manager.fireEvent("a");
+        assertTrue(delivering.await(5, TimeUnit.SECONDS));
+
+        Thread closer = new Thread(manager::close);
+        closer.start();
+        Thread.sleep(50);  // 让 close 进入等待
+        release.countDown();
+        closer.join(5000);
+        assertFalse(closer.isAlive(), "close 与定时线程死锁");
+        assertTrue(subscribed.await(5, TimeUnit.SECONDS));
+        assertFalse(manager.hasFlusher());
+    }
+
+    @Test
+    public void testAsyncBatchesKeepOrder() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            EventManager manager = new EventManager(executor, 256, EventManager.SlowListenerPolicy.BLOCK);
+            List<Integer> received = new ArrayList<>();
+            AtomicInteger batches = new AtomicInteger();
+            AtomicInteger largestBatch = new AtomicInteger();
+            manager.subscribeBatch(Integer.class, events -> {
+                largestBatch.accumulateAndGet(events.size(), Math::max);
+                received.addAll(events);
+                batches.incrementAndGet();
+            }, 100, Duration.ofMillis(5));
+            for (int i = 0; i < 10_000; i++) {
+                manager.publish(i);
+            }
+            assertTrue(manager.awaitIdle(10, TimeUnit.SECONDS));
+            assertEquals(10_000, received.size());
+            for (int i = 0; i < received.size(); i++) {
+                assertEquals(i, received.get(i));
+            }
+            assertTrue(batches.get() >= 100);
+            assertEquals(100, largestBatch.get());
+            manager.close();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.hry.firstjava;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FanOut 的测试类
+ */
+public class FanOutTest {
+
+    @Test
+    public void testAllReturnsResultsInOrder() throws Exception {
+        try (ExecutorService executor = TaskExecutors.newVirtualExecutor()) {
+            List<Callable<Integer>> tasks = List.of(
+                () -> sleepThen(30, 1), () -> sleepThen(0, 2), () -> sleepThen(10, 3));
+            assertEquals(List.of(1, 2, 3), FanOut.all(executor, tasks, Duration.ofSeconds(5)));
+            assertEquals(List.of(), FanOut.all(executor, List.<Callable<Integer>>of(), Duration.ofSeconds(5)));
+        }
+    }
+
+    @Test
+    public void testAllFailsFastAndCancelsSiblings() {
+        AtomicInteger interrupted = new AtomicInteger();
+        try (ExecutorService executor = TaskExecutors.newVirtualExecutor()) {
+            Callable<Integer> slow = () -> {
+                try {
+                    return sleepThen(10_000, 0);
+                } catch (InterruptedException e) {
+                    interrupted.incrementAndGet();
+                    throw e;
+                }
+            };
+            long start = System.nanoTime();
+            ExecutionException e = assertThrows(ExecutionException.class, () -> FanOut.all(executor,
+                List.of(slow, slow, () -> { throw new IllegalStateException("下游失败"); }), Duration.ofSeconds(30)));
+            assertEquals("下游失败", e.getCause().getMessage());
+            assertTrue(System.nanoTime() - start < 5_000_000_000L);
+            assertEquals(2, interrupted.get());  // 返回前兄弟任务已结束
+        }
+    }
+
+    @Test
+    public void testAnyReturnsFirstSuccess() throws Exception {
+        try (ExecutorService executor = TaskExecutors.newVirtualExecutor()) {
+            List<Callable<String>> tasks = List.of(
+                () -> { throw new IllegalStateException("副本 1 不可用"); },
+                () -> sleepThen(10_000, "副本 2"),
+                () -> sleepThen(20, "副本 3"));
+            assertEquals("副本 3", FanOut.any(executor, tasks, Duration.ofSeconds(5)));
+
+            List<Callable<String>> failing = List.of(
+                () -> { throw new IllegalStateException("a"); }, () -> { throw new IllegalStateException("b"); });
+            ExecutionException e = assertThrows(ExecutionException.class,
+                () -> FanOut.any(executor, failing, Duration.ofSeconds(5)));
+            assertEquals(1, e.getCause().getSuppressed().length);
+        }
+    }
+
+    @Test
+    public void testTimeoutCancelsEverything() {
+        try (ExecutorService executor = TaskExecutors.newVirtualExecutor()) {
+            assertThrows(TimeoutException.class, () -> FanOut.all(executor,
+                List.of(() -> sleepThen(10_000, 1), () -> 2), Duration.ofMillis(50)));
+        }
+    }
+
+    @Test
+    public void testVirtualModeLimitsConcurrency() throws InterruptedException {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        ExecutorService executor = TaskExecutors.newExecutor(TaskExecutors.Mode.VIRTUAL, 10);
+        for (int i = 0; i < 1000; i++) {
+            executor.execute(() -> {
+                peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                active.decrementAndGet();
+            });
+        }
+        executor.close();  // 等待全部完成
+        assertEquals(10, peak.get());
+        assertEquals(0, ((TaskExecutors.LimitedExecutor) executor).activeCount());
+    }
+
+    private static <T> T sleepThen(long millis, T value) throws InterruptedException {
+        Thread.sleep(millis);
+        return value;
+    }
+
+    @Test
+    public void testLimitedExecutorQueuesExcessTasks() throws InterruptedException {
+        int limit = 4;
+        int tasks = 20;
+        TaskExecutors.LimitedExecutor executor =
+            (TaskExecutors.LimitedExecutor) TaskExecutors.newExecutor(TaskExecutors.Mode.VIRTUAL, limit);
+        CountDownLatch gate = new CountDownLatch(1);
+        for (int i = 0; i < tasks; i++) {
+            executor.execute(() -> {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (executor.waitingCount() < tasks - limit && System.nanoTime() < deadline) {
+            assertTrue(executor.activeCount() <= limit);
+            Thread.sleep(1);
+        }
+        assertEquals(limit, executor.activeCount());
+        assertEquals(tasks - limit, executor.waitingCount());
+
+        gate.countDown();
+        executor.close();  // 等待全部完成
+        assertEquals(0, executor.waitingCount());
+        assertEquals(0, executor.activeCount());
+    }
+}
@@ -0,0 +1,76 @@
+package com.hry.firstjava;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FastInvoker 的测试类（结果与 Method.invoke 对比）
+ */
+public class FastInvokerTest {
+
+    @Test
+    public void testGettersMatchReflection() throws Exception {
+        ReflectionPerson person = new ReflectionPerson("张三", 30);
+        Method getName = ReflectionPerson.class.getMethod("getName");
+        Method getAge = ReflectionPerson.class.getMethod("getAge");
+
+        Function<ReflectionPerson, String> name = FastInvoker.getter(ReflectionPerson.class, "getName", String.class);
+        assertEquals(getName.invoke(person), name.apply(person));
+
+        // 基本类型返回值：Function 装箱，ToIntFunction 不装箱
+        Function<ReflectionPerson, Integer> boxedAge = FastInvoker.getter(ReflectionPerson.class, "getAge", Integer.class);
+        ToIntFunction<ReflectionPerson> age = FastInvoker.intGetter(ReflectionPerson.class, "getAge");
+        assertEquals(getAge.invoke(person), boxedAge.apply(person));
+        assertEquals((int) getAge.invoke(person), age.applyAsInt(person));
+
+        // 同一个调用器可以用于其他实例
+        ReflectionPerson other = new ReflectionPerson("李四", -7);
+        assertEquals(getName.invoke(other), name.apply(other));
+        assertEquals((int) getAge.invoke(other), age.applyAsInt(other));
+    }
+
+    @Test
+    public void testSettersMatchReflection() throws Exception {
+        ReflectionPerson viaReflection = new ReflectionPerson();
+        ReflectionPerson viaInvoker = new ReflectionPerson();
+        ReflectionPerson.class.getMethod("setName", String.class).invoke(viaReflection, "王五");
+        ReflectionPerson.class.getMethod("setAge", int.class).invoke(viaReflection, 41);
+
+        BiConsumer<ReflectionPerson, String> setName =
+            FastInvoker.setter(ReflectionPerson.class, "setName", String.class);
+        ObjIntConsumer<ReflectionPerson> setAge = FastInvoker.intSetter(ReflectionPerson.class, "setAge");
+        setName.accept(viaInvoker, "王五");
+        setAge.accept(viaInvoker, 41);
+        assertEquals(viaReflection.getName(), viaInvoker.getName());
+        assertEquals(viaReflection.getAge(), viaInvoker.getAge());
+
+        // 基本类型参数通过 BiConsumer 传入时自动拆箱
+        BiConsumer<ReflectionPerson, Integer> boxedSetAge =
+            FastInvoker.setter(ReflectionPerson.class, "setAge", int.class);
+        boxedSetAge.accept(viaInvoker, 42);
+        assertEquals(42, viaInvoker.getAge());
+    }
+
+    @Test
+    public void testCachesAndRejectsBadBindings() throws Exception {
+        Method getName = ReflectionPerson.class.getMethod("getName");
+        assertSame(FastInvoker.bind(Function.class, getName), FastInvoker.bind(Function.class, getName));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> FastInvoker.getter(ReflectionPerson.class, "getName", Integer.class));
+        assertThrows(IllegalArgumentException.class,
+            () -> FastInvoker.intGetter(ReflectionPerson.class, "getName"));
+        assertThrows(IllegalArgumentException.class,
+            () -> FastInvoker.getter(ReflectionPerson.class, "missing", String.class));
+        assertThrows(IllegalArgumentException.class,
+            () -> FastInvoker.bind(Runnable.class, ReflectionPerson.class.getMethod("staticMethod")));
+        assertThrows(IllegalArgumentException.class, () -> FastInvoker.bind(BiConsumer.class, getName));
+    }
+}
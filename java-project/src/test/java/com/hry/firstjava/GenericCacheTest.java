@@ -0,0 +1,106 @@
+package com.hry.firstjava;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * GenericCache 的测试类
+ */
+public class GenericCacheTest {
+
+    @Test
+    public void testLruEvictsLeastRecentlyUsed() {
+        GenericCache<String, Integer> cache = new GenericCache<>(2, GenericCache.EvictionPolicy.LRU);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        assertEquals(1, cache.get("a"));
+        cache.put("c", 3);
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.get("a"));
+        assertEquals(3, cache.get("c"));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testLfuEvictsLeastFrequentlyUsed() {
+        GenericCache<String, Integer> cache = new GenericCache<>(2, GenericCache.EvictionPolicy.LFU);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+        cache.put("c", 3);  // b 只访问过一次
+        assertNull(cache.get("b"));
+        cache.put("d", 4);  // c 与 b 同为最少，淘汰 c
+        assertNull(cache.get("c"));
+        assertEquals(1, cache.get("a"));
+        assertEquals(4, cache.get("d"));
+
+        cache.remove("a");
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testWindowTinyLfuResistsScans() {
+        GenericCache<Integer, Integer> cache = new GenericCache<>(100, GenericCache.EvictionPolicy.W_TINY_LFU);
+        for (int round = 0; round < 20; round++) {
+            for (int key = 0; key < 50; key++) {
+                if (cache.get(key) == null) {
+                    cache.put(key, key);
+                }
+            }
+        }
+        // 大量只访问一次的 key 不应挤掉热点
+        for (int key = 1000; key < 11000; key++) {
+            cache.put(key, key);
+        }
+        int resident = 0;
+        for (int key = 0; key < 50; key++) {
+            if (cache.get(key) != null) {
+                resident++;
+            }
+        }
+        assertTrue(resident >= 45, "热点保留数：" + resident);
+        assertEquals(100, cache.size());
+    }
+
+    @Test
+    public void testSketchSizedByEntriesNotWeight() {
+        // 1 GB 的字节预算、每条 1 MB：频率表按 1000 个条目扩大，而不是按 2^30 分配到上限
+        Eviction.WindowTinyLfu<Integer, String> weighted = new Eviction.WindowTinyLfu<>(1L << 30, 0);
+        assertEquals(16, weighted.sketch.tableLength());
+        for (int i = 0; i < 1000; i++) {
+            weighted.onAdd(new Eviction.Node<>(i, "v", 1 << 20));
+        }
+        assertEquals(1024, weighted.sketch.tableLength());
+
+        Eviction.WindowTinyLfu<Integer, String> counted = new Eviction.WindowTinyLfu<>(5000, 5000);
+        assertEquals(8192, counted.sketch.tableLength());
+    }
+
+    @Test
+    public void testWeightBound() {
+        for (GenericCache.EvictionPolicy policy : GenericCache.EvictionPolicy.values()) {
+            GenericCache<Integer, String> cache = new GenericCache<>(1000, (key, value) -> value.length(), policy);
+            Random random = new Random(7);
+            for (int i = 0; i < 20000; i++) {
+                int key = random.nextInt(500);
+                if (random.nextBoolean()) {
+                    cache.put(key, "x".repeat(1 + random.nextInt(100)));
+                } else if (random.nextInt(10) == 0) {
+                    cache.remove(key);
+                } else {
+                    cache.get(key);
+                }
+                assertTrue(cache.weightedSize() <= 1000, policy + "：" + cache.weightedSize());
+            }
+            cache.put(-1, "x".repeat(2000));  // 超过总容量的条目不缓存
+            assertNull(cache.get(-1));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.hry.firstjava;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JsonClassPlan 的测试类（与直接用 java.lang.reflect 逐个字段生成的结果对比）
+ */
+public class JsonClassPlanTest {
+
+    static class Sample {
+        static int instances = 1;
+        private int id = 7;
+        long big = Long.MIN_VALUE;
+        double ratio = 0.5;
+        float scale = 1.25f;
+        boolean active = true;
+        short delta = -3;
+        byte flags = 8;
+        char quote = '"';
+        String 名字 = "张三";
+        transient String cached = "不输出";
+        List<String> tags = List.of("a", "b");
+        Sample next;
+    }
+
+    @Test
+    public void testPlanIsBuiltOncePerClass() throws Exception {
+        JsonClassPlan plan = JsonClassPlan.of(Sample.class);
+        assertSame(Sample.class, plan.type);
+        assertSame(plan, JsonClassPlan.of(Sample.class));
+        assertNotSame(plan, JsonClassPlan.of(ReflectionPerson.class));
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Set<JsonClassPlan> seen = ConcurrentHashMap.newKeySet();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                futures.add(pool.submit(() -> seen.add(JsonClassPlan.of(Category.class))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            assertEquals(1, seen.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFieldsFollowDeclarationOrder() {
+        List<String> expected = new ArrayList<>();
+        for (Field field : Sample.class.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()) {
+                expected.add(field.getName());
+            }
+        }
+        List<String> names = new ArrayList<>();
+        for (JsonClassPlan.FieldPlan field : JsonClassPlan.of(Sample.class).fields) {
+            names.add(field.name);
+        }
+        assertEquals(expected, names);
+        assertEquals(List.of("id", "big", "ratio", "scale", "active", "delta", "flags", "quote", "名字", "tags", "next"),
+            names);
+
+        JsonClassPlan.FieldPlan[] fields = JsonClassPlan.of(Sample.class).fields;
+        assertEquals(JsonClassPlan.Kind.INT, fields[0].kind);
+        assertEquals(JsonClassPlan.Kind.CHAR, fields[7].kind);
+        assertEquals(JsonClassPlan.Kind.OBJECT, fields[8].kind);
+        assertEquals(0, JsonClassPlan.of(Object.class).fields.length);
+    }
+
+    @Test
+    public void testPrefixesMatchReflectiveOutput() throws Exception {
+        for (JsonClassPlan.FieldPlan field : JsonClassPlan.of(Sample.class).fields) {
+            assertEquals("\"" + field.name + "\":", field.prefix);
+            assertArrayEquals(field.prefix.getBytes(StandardCharsets.UTF_8), field.prefixBytes);
+        }
+
+        Sample sample = new Sample();
+        sample.next = new Sample();
+        assertEquals(reflectiveJson(sample), JsonSerializer.toJsonReflective(sample));
+        assertEquals(reflectiveJson(sample), JsonSerializer.toJson(sample));
+        assertTrue(JsonSerializer.toJson(sample).startsWith("{\"id\":7,\"big\":-9223372036854775808,"));
+    }
+
+    /**
+     * 不使用计划：每次用 Field.get 读取字段，逐个拼接 "name":value
+     */
+    private static String reflectiveJson(Object obj) throws IllegalAccessException {
+        if (!(obj instanceof Sample)) {
+            return JsonSerializer.toJson(obj);
+        }
+        StringJoiner json = new StringJoiner(",", "{", "}");
+        for (Field field : obj.getClass().getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                continue;
+            }
+            field.setAccessible(true);
+            json.add("\"" + field.getName() + "\":" + reflectiveJson(field.get(obj)));
+        }
+        return json.toString();
+    }
+}
@@ -0,0 +1,194 @@
+package com.hry.firstjava;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JsonSerializer 的测试类
+ */
+public class JsonSerializerTest {
+
+    @Test
+    public void testEscapesStrings() {
+        ReflectionPerson person = new ReflectionPerson("a\"b\\c\n\t\u0001", 7);
+        assertEquals("{\"name\":\"a\\\"b\\\\c\\n\\t\\u0001\",\"age\":7,\"publicField\":\"公共字段\"}",
+            JsonSerializer.toJson(person));
+    }
+
+    @Test
+    public void testStreamingOutputMatchesString() throws IOException {
+        // 超过内部缓冲区大小，覆盖分段刷出和多字节字符
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            name.append("名字😀");
+        }
+        ReflectionPerson person = new ReflectionPerson(name.toString(), 1);
+        String expected = JsonSerializer.toJson(person);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonSerializer.toJson(person, out);
+        assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        JsonSerializer.toJson(person, buffer);
+        assertEquals(expected, new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8));
+
+        assertThrows(BufferOverflowException.class, () -> JsonSerializer.toJson(person, ByteBuffer.allocate(16)));
+    }
+
+    @Test
+    public void testNestedValuesAndCollections() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("pair", new Pair<>("k", List.of(1, 2L)));
+        map.put("ints", new int[]{-1, 0, Integer.MAX_VALUE});
+        map.put("longs", new long[]{Long.MIN_VALUE});
+        map.put("doubles", new double[]{1.5, -0.25, 3.0, Double.NaN});
+        map.put("flags", new boolean[]{true, false});
+        map.put("set", new TreeSet<>(Set.of("b", "a")));
+        map.put("nested", Map.of(7, Arrays.asList("x", null)));
+        assertEquals("{\"pair\":{\"key\":\"k\",\"value\":[1,2]},"
+                + "\"ints\":[-1,0,2147483647],\"longs\":[-9223372036854775808],"
+                + "\"doubles\":[1.5,-0.25,3.0,null],\"flags\":[true,false],"
+                + "\"set\":[\"a\",\"b\"],\"nested\":{\"7\":[\"x\",null]}}",
+            JsonSerializer.toJson(map));
+    }
+
+    @Test
+    public void testJdkNumberTypesAreNumbers() {
+        LongAdder adder = new LongAdder();
+        adder.add(7);
+        DoubleAdder sum = new DoubleAdder();
+        sum.add(1.5);
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("atomicInt", new AtomicInteger(-3));
+        map.put("atomicLong", new AtomicLong(Long.MAX_VALUE));
+        map.put("adder", adder);
+        map.put("sum", sum);
+        assertEquals("{\"atomicInt\":-3,\"atomicLong\":9223372036854775807,\"adder\":7,\"sum\":1.5}",
+            JsonSerializer.toJson(map));
+    }
+
+    @Test
+    public void testDoublesRoundTrip() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            double value = i % 2 == 0
+                ? Math.round(random.nextDouble() * 1e6) / 1000.0
+                : (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(20) - 10);
+            String json = JsonSerializer.toJson(new double[]{value});
+            assertEquals(value, Double.parseDouble(json.substring(1, json.length() - 1)), json);
+        }
+    }
+
+    @Test
+    public void testGeneratedEntityCodeMatchesReflection() {
+        EntityMetadata<Object> metadata = EntityMetadata.lookup(ReflectionPerson.class);
+        assertNotNull(metadata);  // 注解处理器生成了注册表
+        assertEquals("person", metadata.tableName());
+        assertNull(EntityMetadata.lookup(String.class));
+
+        ReflectionPerson person = new ReflectionPerson("张三\"\n", 30);
+        String generated = JsonSerializer.toJson(person);
+        assertEquals(JsonSerializer.toJsonReflective(person), generated);
+        ReflectionPerson empty = new ReflectionPerson(null, -1);
+        empty.publicField = "😀";
+        assertEquals(JsonSerializer.toJsonReflective(empty), JsonSerializer.toJson(empty));
+    }
+
+    @Test
+    public void testDetectsCycles() {
+        List<Object> list = new ArrayList<>();
+        list.add(list);
+        assertThrows(IllegalArgumentException.class, () -> JsonSerializer.toJson(list));
+
+        // 同一个对象出现在不同分支上不是循环
+        Box<String> shared = new Box<>();
+        shared.setContent("s");
+        assertEquals("[{\"content\":\"s\"},{\"content\":\"s\"}]", JsonSerializer.toJson(List.of(shared, shared)));
+    }
+
+    @Test
+    public void testDeserializeRoundTrip() throws IOException {
+        ReflectionPerson person = new ReflectionPerson("名字\"😀\n", 42);
+        person.publicField = "x";
+        String json = JsonSerializer.toJson(person);
+
+        ReflectionPerson parsed = JsonDeserializer.fromJson(json, ReflectionPerson.class);
+        assertEquals(person.getName(), parsed.getName());
+        assertEquals(42, parsed.getAge());
+        assertEquals("x", parsed.publicField);
+
+        // 输入流：分段读取，并忽略未知字段
+        String withExtra = "{\"unknown\":{\"a\":[1,2,{\"b\":null}]},\"age\":7,\"name\":\"\\u0041\\ud83d\\ude00\"}";
+        ReflectionPerson fromStream = JsonDeserializer.fromJson(
+            new ByteArrayInputStream(withExtra.getBytes(StandardCharsets.UTF_8)), ReflectionPerson.class);
+        assertEquals("A😀", fromStream.getName());
+        assertEquals(7, fromStream.getAge());
+    }
+
+    @Test
+    public void testIntegerOverflowIsRejected() {
+        assertArrayEquals(new long[]{Long.MAX_VALUE, Long.MIN_VALUE},
+            JsonDeserializer.fromJson("[9223372036854775807,-9223372036854775808]", long[].class));
+        for (String json : List.of("[9223372036854775808]", "[-9223372036854775809]",
+                "[20000000000000000000]", "[-20000000000000000000]", "[184467440737095516210]", "[9.223372036854775807e18]")) {
+            assertThrows(IllegalArgumentException.class, () -> JsonDeserializer.fromJson(json, long[].class), json);
+        }
+        // 回绕后落在 int 范围内的值也必须报错，而不是写入 age = 5
+        assertThrows(IllegalArgumentException.class,
+            () -> JsonDeserializer.fromJson("{\"age\":18446744073709551621}", ReflectionPerson.class));
+    }
+
+    @Test
+    public void testLoneSurrogateEscapes() throws IOException {
+        String json = "{\"age\":1,\"name\":\"\\ud800\\n\\ud83d\\ude00\\udc00x\"}";
+        assertEquals("?\n😀?x", JsonDeserializer.fromJson(json, ReflectionPerson.class).getName());
+
+        // 每次只读一个字节：查看高代理后面的 \\u 时需要跨越缓冲区
+        InputStream slow = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+        assertEquals("?\n😀?x", JsonDeserializer.fromJson(slow, ReflectionPerson.class).getName());
+    }
+
+    @Test
+    public void testDeserializeGenericsAndCollections() {
+        Pair<?, ?> pair = JsonDeserializer.fromJson("{\"key\":\"k\",\"value\":[1,2.5,true]}", Pair.class);
+        assertEquals("k", pair.getKey());
+        assertEquals(List.of(1L, 2.5, true), pair.getValue());
+
+        Category category = JsonDeserializer.fromJson(JsonSerializer.toJson(Category.build(3, 2)), Category.class);
+        assertEquals(7, category.count());
+        assertEquals(JsonSerializer.toJson(Category.build(3, 2)), JsonSerializer.toJson(category));
+
+        int[] numbers = JsonDeserializer.fromJson("[1, -2, 3]", int[].class);
+        assertArrayEquals(new int[]{1, -2, 3}, numbers);
+
+        assertThrows(IllegalArgumentException.class, () -> JsonDeserializer.fromJson("{\"age\":1.5}", ReflectionPerson.class));
+        assertThrows(IllegalArgumentException.class, () -> JsonDeserializer.fromJson("{\"age\":1} x", ReflectionPerson.class));
+    }
+}
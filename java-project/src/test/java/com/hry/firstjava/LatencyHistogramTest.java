@@ -0,0 +1,61 @@
+package com.hry.firstjava;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LatencyHistogram 的测试类
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketBoundaries() {
+        LatencyHistogram histogram = new LatencyHistogram(1L << 40, 7);
+        for (long value : new long[] {0, 1, 127, 128, 255, 256, 257, 1_000_000, (1L << 40) - 1}) {
+            int index = histogram.indexOf(value);
+            assertTrue(histogram.lowestValueAt(index) <= value && value <= histogram.highestValueAt(index), "值 " + value);
+            assertEquals(index, histogram.indexOf(histogram.lowestValueAt(index)));
+            assertEquals(index, histogram.indexOf(histogram.highestValueAt(index)));
+            assertEquals(index + 1, histogram.indexOf(histogram.highestValueAt(index) + 1));
+        }
+    }
+
+    @Test
+    public void testPercentilesWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(1);
+        long[] samples = new long[100_000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (long) (random.nextExponential() * 5_000_000);
+            histogram.record(samples[i]);
+        }
+        Arrays.sort(samples);
+        for (double p : new double[] {50, 90, 99, 99.9}) {
+            long exact = samples[(int) Math.ceil(p / 100 * samples.length) - 1];
+            long estimate = histogram.percentile(p);
+            assertTrue(estimate >= exact, "p" + p);
+            assertTrue(estimate - exact <= exact / 128 + 1, "p" + p + "：" + estimate + " vs " + exact);
+        }
+        assertEquals(samples.length, histogram.count());
+        assertEquals(samples[samples.length - 1], histogram.max());
+        assertEquals(samples[samples.length - 1], histogram.percentile(100));
+        assertEquals(Arrays.stream(samples).average().orElse(0), histogram.mean(), 5_000_000 * 0.01);
+
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentile(99));
+    }
+
+    @Test
+    public void testClampsOutOfRangeValues() {
+        LatencyHistogram histogram = new LatencyHistogram(1000, 4);
+        histogram.record(-5);
+        histogram.record(1_000_000);
+        assertEquals(0, histogram.percentile(50));
+        assertEquals(1000, histogram.percentile(100));
+    }
+}
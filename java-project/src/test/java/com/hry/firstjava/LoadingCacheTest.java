@@ -0,0 +1,178 @@
+package com.hry.firstjava;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LoadingCache 的测试类
+ */
+public class LoadingCacheTest {
+
+    @Test
+    public void testConcurrentMissesLoadOnce() throws InterruptedException {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LoadingCache<String, String> cache = new LoadingCache<>(key -> {
+            loads.incrementAndGet();
+            loaderStarted.countDown();
+            release.await();
+            return key.toUpperCase();
+        }, 100, null);
+
+        List<Thread> threads = new ArrayList<>();
+        List<String> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                String value = cache.get("k");
+                synchronized (results) {
+                    results.add(value);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);  // 让其他线程进入等待
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(8, results.size());
+        assertTrue(results.stream().allMatch("K"::equals));
+    }
+
+    @Test
+    public void testGetAllBatchesMisses() {
+        List<Set<? extends Integer>> batches = new ArrayList<>();
+        LoadingCache<Integer, String> cache = new LoadingCache<>(new CacheLoader<>() {
+            @Override
+            public String load(Integer key) {
+                return "v" + key;
+            }
+
+            @Override
+            public Map<Integer, String> loadAll(Set<? extends Integer> keys) {
+                batches.add(keys);
+                Map<Integer, String> result = new HashMap<>();
+                for (Integer key : keys) {
+                    if (key != 4) {  // 4 不存在
+                        result.put(key, "v" + key);
+                    }
+                }
+                return result;
+            }
+        }, 100, null);
+
+        assertEquals("v1", cache.get(1));
+        Map<Integer, String> values = cache.getAll(List.of(3, 1, 2, 4, 3));
+        assertEquals(List.of(3, 1, 2), new ArrayList<>(values.keySet()));
+        assertEquals(1, batches.size());
+        assertEquals(Set.of(2, 3, 4), batches.get(0));
+        assertEquals("v2", cache.getIfPresent(2));
+        assertNull(cache.getIfPresent(4));
+    }
+
+    @Test
+    public void testLoaderFailurePropagates() {
+        AtomicInteger attempts = new AtomicInteger();
+        LoadingCache<String, String> cache = new LoadingCache<>(key -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IOException("数据源不可用");
+            }
+            return "ok";
+        }, 100, null);
+        CompletionException e = assertThrows(CompletionException.class, () -> cache.get("k"));
+        assertInstanceOf(IOException.class, e.getCause());
+        assertEquals("ok", cache.get("k"));  // 失败不缓存，下次重新加载
+    }
+
+    @Test
+    public void testNullLoadAllResultDoesNotStrandWaiters() {
+        LoadingCache<Integer, String> cache = new LoadingCache<>(new CacheLoader<>() {
+            @Override
+            public String load(Integer key) {
+                return "v" + key;
+            }
+
+            @Override
+            public Map<Integer, String> loadAll(Set<? extends Integer> keys) {
+                return null;
+            }
+        }, 100, null);
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            assertTrue(cache.getAll(List.of(1, 2)).isEmpty());
+            assertEquals("v1", cache.get(1));  // 没有残留的加载任务
+        });
+    }
+
+    @Test
+    public void testRejectedAsyncLoadFailsFuture() {
+        LoadingCache<String, String> cache = new LoadingCache<>(String::toUpperCase, 100, null, null,
+            command -> {
+                throw new RejectedExecutionException("执行器已关闭");
+            });
+        CompletionException e = assertThrows(CompletionException.class, () -> cache.getAsync("k").join());
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertEquals("K", cache.get("k")));
+    }
+
+    @Test
+    public void testRecursiveLoadOfSameKeyFails() {
+        AtomicReference<LoadingCache<String, String>> self = new AtomicReference<>();
+        LoadingCache<String, String> cache = new LoadingCache<>(key -> self.get().get(key) + "!", 100, null);
+        self.set(cache);
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            assertThrows(IllegalStateException.class, () -> cache.get("k"));
+            assertNull(cache.getIfPresent("k"));
+        });
+    }
+
+    @Test
+    public void testRefreshKeepsServingStaleValue() throws Exception {
+        AtomicLong time = new AtomicLong();
+        AtomicInteger version = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        LoadingCache<String, Integer> cache = new LoadingCache<>(new CacheLoader<>() {
+            @Override
+            public Integer load(String key) {
+                return version.incrementAndGet();
+            }
+
+            @Override
+            public Integer reload(String key, Integer oldValue) throws Exception {
+                release.await();
+                return oldValue + 100;
+            }
+        }, 100, Duration.ofMinutes(10), Duration.ofSeconds(1), Runnable::run, time::get);
+
+        assertEquals(1, cache.get("k"));
+        time.addAndGet(TimeUnit.SECONDS.toNanos(2));
+
+        Thread refresher = new Thread(() -> cache.refresh("k").join());
+        refresher.start();
+        Thread.sleep(50);
+        assertEquals(1, cache.getIfPresent("k"));  // 刷新进行中，返回旧值
+        release.countDown();
+        refresher.join();
+        assertEquals(101, cache.get("k"));
+        assertEquals(1, version.get());
+    }
+}
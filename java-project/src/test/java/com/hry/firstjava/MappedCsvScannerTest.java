@@ -0,0 +1,102 @@
+package com.hry.firstjava;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MappedCsvScanner 的测试类
+ */
+public class MappedCsvScannerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testQuotedFields() throws IOException {
+        String csv = "a,\"b,c\",\"say \"\"hi\"\"\"\r\n\"multi\nline\",,x\n";
+        List<String[]> rows = scan(csv, 1024);
+        assertEquals(2, rows.size());
+        assertArrayEquals(new String[]{"a", "b,c", "say \"hi\""}, rows.get(0));
+        assertArrayEquals(new String[]{"multi\nline", "", "x"}, rows.get(1));
+    }
+
+    @Test
+    public void testTrailingDelimiterAndNoFinalNewline() throws IOException {
+        List<String[]> rows = scan("1,2,\n3,4", 1024);
+        assertArrayEquals(new String[]{"1", "2", ""}, rows.get(0));
+        assertArrayEquals(new String[]{"3", "4"}, rows.get(1));
+    }
+
+    @Test
+    public void testRecordsSpanningWindows() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            csv.append(i).append(",\"名字 ").append(i).append("\"\",\"\"\n\",").append(-i).append("\r\n");
+        }
+        // 极小的窗口让每条记录都跨越窗口边界
+        for (int window : new int[]{3, 7, 16}) {
+            List<String[]> rows = scan(csv.toString(), window);
+            assertEquals(200, rows.size());
+            for (int i = 0; i < 200; i++) {
+                assertArrayEquals(new String[]{String.valueOf(i), "名字 " + i + "\",\"\n", String.valueOf(-i)},
+                    rows.get(i), "window=" + window + ", row=" + i);
+            }
+        }
+    }
+
+    @Test
+    public void testGetLong() throws IOException {
+        Path file = write("9223372036854775807,-42,abc");
+        try (MappedCsvScanner scanner = new MappedCsvScanner(file)) {
+            CsvRecord record = new CsvRecord();
+            assertTrue(scanner.next(record));
+            assertEquals(Long.MAX_VALUE, record.getLong(0));
+            assertEquals(-42, record.getLong(1));
+            assertThrows(NumberFormatException.class, () -> record.getLong(2));
+            assertFalse(scanner.next(record));
+        }
+    }
+
+    @Test
+    public void testGetLongRejectsOverflow() throws IOException {
+        Path file = write("-9223372036854775808,+9223372036854775807,9223372036854775808,-9223372036854775809,"
+            + "20000000000000000000,18446744073709551617,184467440737095516170");
+        try (MappedCsvScanner scanner = new MappedCsvScanner(file)) {
+            CsvRecord record = new CsvRecord();
+            assertTrue(scanner.next(record));
+            assertEquals(Long.MIN_VALUE, record.getLong(0));
+            assertEquals(Long.MAX_VALUE, record.getLong(1));
+            for (int i = 2; i < record.fieldCount(); i++) {
+                int index = i;
+                assertThrows(NumberFormatException.class, () -> record.getLong(index), record.getString(i));
+            }
+        }
+    }
+
+    private List<String[]> scan(String content, int windowSize) throws IOException {
+        Path file = write(content);
+        List<String[]> rows = new ArrayList<>();
+        try (MappedCsvScanner scanner = new MappedCsvScanner(file, (byte) ',', windowSize)) {
+            CsvRecord record = new CsvRecord();
+            while (scanner.next(record)) {
+                rows.add(record.toArray());
+            }
+        }
+        return rows;
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = Files.createTempFile(tempDir, "scan", ".csv");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,162 @@
+package com.hry.firstjava;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OffHeapStore 与 SlabAllocator 的测试类
+ */
+public class OffHeapStoreTest {
+
+    @Test
+    public void testAllocatorCoalescesFreeBlocks() {
+        SlabAllocator allocator = new SlabAllocator(64, 64);
+        long a = allocator.allocate(16);
+        long b = allocator.allocate(16);
+        long c = allocator.allocate(32);
+        assertEquals(-1, allocator.allocate(1));
+
+        allocator.free(a, 16);
+        allocator.free(c, 32);
+        assertEquals(-1, allocator.allocate(40));  // 空闲区不相邻
+        allocator.free(b, 16);
+        assertEquals(0, allocator.allocate(64));  // 三块合并为整个 slab
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        OffHeapStore<String, String> store = new OffHeapStore<>(ValueCodec.utf8(), 1024 * 1024);
+        store.put("a", "值😀");
+        store.put("b", "");
+        assertEquals("值😀", store.get("a"));
+        assertEquals("", store.get("b"));
+        store.put("a", "新值");
+        assertEquals("新值", store.get("a"));
+        assertTrue(store.remove("a"));
+        assertNull(store.get("a"));
+        assertEquals(1, store.size());
+        assertEquals(SlabAllocator.ALIGNMENT, store.usedBytes());
+    }
+
+    @Test
+    public void testCapacityMatchesBudget() {
+        long mib = 1024 * 1024;
+        // 不是 8 的倍数的小预算向下对齐；超过一个默认 slab 的预算平分给多个 slab，不再丢掉零头
+        long[][] cases = {
+            {100, 96}, {1_000_001, 1_000_000}, {64 * mib, 64 * mib}, {127 * mib, 127 * mib},
+            {1024 * mib + 3, 1024 * mib}, {5, SlabAllocator.ALIGNMENT}
+        };
+        for (long[] c : cases) {
+            OffHeapStore<Integer, String> store = new OffHeapStore<>(ValueCodec.utf8(), c[0]);
+            assertEquals(c[1], store.capacityBytes(), "maximumBytes = " + c[0]);
+            assertTrue(OffHeapStore.slabSizeFor(c[0]) <= OffHeapStore.DEFAULT_SLAB_SIZE);
+        }
+
+        OffHeapStore<Integer, byte[]> small = new OffHeapStore<>(ValueCodec.bytes(), 100);
+        assertTrue(small.put(1, new byte[90]));
+        assertEquals(90, small.get(1).length);
+    }
+
+    @Test
+    public void testEvictsOldestWhenFull() {
+        OffHeapStore<Integer, byte[]> store = new OffHeapStore<>(ValueCodec.bytes(), 4096, 1024);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(store.put(i, new byte[100]));
+        }
+        assertTrue(store.usedBytes() <= 4096);
+        assertTrue(store.getEvictionCount() > 0);
+        assertNull(store.get(0));
+        assertNotNull(store.get(99));
+        assertFalse(store.put(-1, new byte[2000]));  // 超过一个 slab
+    }
+
+    @Test
+    public void testCompactReleasesSparseSlabs() {
+        OffHeapStore<Integer, byte[]> store = new OffHeapStore<>(ValueCodec.bytes(), 8 * 1024, 1024);
+        for (int i = 0; i < 64; i++) {
+            store.put(i, new byte[120]);  // 每个 slab 放 8 条
+        }
+        assertEquals(8 * 1024, store.reservedBytes());
+        // 每个 slab 只留一条
+        for (int i = 0; i < 64; i++) {
+            if (i % 8 != 0) {
+                store.remove(i);
+            }
+        }
+        assertEquals(8 * 1024, store.reservedBytes());
+        assertEquals(7, store.compact());
+        assertEquals(1024, store.reservedBytes());
+        for (int i = 0; i < 64; i += 8) {
+            assertEquals(120, store.get(i).length);
+        }
+    }
+
+    @Test
+    public void testConcurrentReadsSeeConsistentValues() throws InterruptedException {
+        OffHeapStore<Integer, String> store = new OffHeapStore<>(ValueCodec.utf8(), 64 * 1024, 4096);
+        AtomicInteger corrupted = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int seed = t;
+            Thread thread = new Thread(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 20000; i++) {
+                    int key = random.nextInt(200);
+                    if (random.nextInt(3) == 0) {
+                        store.put(key, String.valueOf(key).repeat(1 + random.nextInt(20)));
+                    } else {
+                        String value = store.get(key);
+                        if (value != null && !value.equals(String.valueOf(key).repeat(value.length() / String.valueOf(key).length()))) {
+                            corrupted.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, corrupted.get());
+    }
+
+    @Test
+    public void testCachesDemoteAndPromote() {
+        OffHeapStore<Integer, String> offHeap = new OffHeapStore<>(ValueCodec.utf8(), 1024 * 1024);
+        GenericCache<Integer, String> cache = new GenericCache<>(10, GenericCache.EvictionPolicy.LRU, offHeap);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, "v" + i);
+        }
+        assertEquals(10, cache.size());
+        assertEquals(90, offHeap.size());
+        assertEquals("v0", cache.get(0));
+        assertEquals(1, cache.getOffHeapHitCount());
+        cache.put(1, "new");
+        assertEquals("new", cache.get(1));
+        assertEquals("new", cache.remove(1));
+        assertNull(cache.get(1));
+
+        OffHeapStore<String, String> tier = new OffHeapStore<>(ValueCodec.utf8(), 1024 * 1024);
+        ConcurrentCache<String, String> concurrent = new ConcurrentCache<>(10, Duration.ofMinutes(1), tier);
+        for (int i = 0; i < 100; i++) {
+            concurrent.put("k" + i, "v" + i);
+        }
+        concurrent.cleanUp();
+        assertTrue(concurrent.size() <= 10);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("v" + i, concurrent.get("k" + i));
+        }
+        assertTrue(concurrent.getOffHeapHitCount() >= 90);
+        concurrent.remove("k5");
+        concurrent.cleanUp();
+        assertNull(concurrent.get("k5"));
+    }
+}
@@ -0,0 +1,99 @@
+package com.hry.firstjava;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ParallelCsvReader 的测试类
+ */
+public class ParallelCsvReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testChunksAlignToRecordBoundaries() throws IOException {
+        // 带引号的换行符会让朴素的“找下一个换行”切分出错
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            csv.append(i).append(",\"第 ").append(i).append(" 行\n\"\"续\"\"\r\n\",end\n");
+        }
+        Path file = tempDir.resolve("parallel.csv");
+        Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelCsvReader reader = new ParallelCsvReader(pool, (byte) ',', 64);
+            assertTrue(reader.split(file).length > 10, "应该切分成多个块");
+
+            List<String[]> rows = reader.readAll(file);
+            assertEquals(500, rows.size());
+            for (int i = 0; i < 500; i++) {
+                assertArrayEquals(new String[]{String.valueOf(i), "第 " + i + " 行\n\"续\"\r\n", "end"}, rows.get(i));
+            }
+
+            AtomicLong sum = new AtomicLong();
+            long count = reader.forEachChunk(file, chunk -> record -> {
+                sum.addAndGet(record.getLong(0));
+                return true;
+            });
+            assertEquals(500, count);
+            assertEquals(499 * 500 / 2, sum.get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testFailedChunkCancelsRemainingChunks() throws Exception {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            csv.append(i).append(",row\n");
+        }
+        Path file = tempDir.resolve("failing.csv");
+        Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+
+        ForkJoinPool pool = new ForkJoinPool(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger laterChunks = new AtomicInteger();
+        try {
+            ParallelCsvReader reader = new ParallelCsvReader(pool, (byte) ',', 64);
+            assertTrue(reader.split(file).length > 3, "应该切分成多个块");
+            assertThrows(IllegalStateException.class, () ->
+                reader.forEachChunk(file, chunk -> record -> {
+                    if (chunk == 0) {
+                        throw new IllegalStateException("坏数据");
+                    }
+                    if (chunk == 1) {
+                        // 占住唯一的工作线程，直到调用方已经收到异常
+                        try {
+                            release.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException interrupted) {
+                            Thread.currentThread().interrupt();
+                        }
+                    } else {
+                        laterChunks.incrementAndGet();
+                    }
+                    return false;
+                }));
+        } finally {
+            release.countDown();
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        }
+        assertEquals(0, laterChunks.get());
+    }
+}
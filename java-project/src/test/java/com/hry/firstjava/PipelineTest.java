@@ -0,0 +1,104 @@
+package com.hry.firstjava;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pipeline 的测试类
+ */
+public class PipelineTest {
+
+    @Test
+    public void testEveryItemReachesSink() throws InterruptedException {
+        for (int workers : new int[] {1, 3}) {
+            AtomicInteger next = new AtomicInteger();
+            AtomicLong sum = new AtomicLong();
+            AtomicInteger count = new AtomicInteger();
+            Pipeline.Run run = Pipeline.from("source", workers, () -> {
+                    int i = next.getAndIncrement();
+                    return i < 100_000 ? i : null;
+                })
+                .map("toString", workers, 64, String::valueOf)
+                .map("parse", workers, 64, Long::parseLong)
+                .to("sum", workers, 64, value -> {
+                    sum.addAndGet(value);
+                    count.incrementAndGet();
+                });
+
+            assertTrue(run.awaitCompletion(30, TimeUnit.SECONDS));
+            assertEquals(100_000, count.get());
+            assertEquals(100_000L * 99_999 / 2, sum.get());
+            List<Pipeline.StageStats> stats = run.stats();
+            assertEquals(4, stats.size());
+            for (Pipeline.StageStats stage : stats) {
+                assertEquals(100_000, stage.processed);
+                assertEquals(0, stage.queueDepth);
+            }
+        }
+    }
+
+    @Test
+    public void testFailuresAndFilteredItemsAreDropped() throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger received = new AtomicInteger();
+        Pipeline.Run run = Pipeline.from("source", 1, () -> {
+                int i = next.getAndIncrement();
+                return i < 1000 ? i : null;
+            })
+            .map("check", 2, 16, i -> {
+                if (i % 10 == 0) {
+                    throw new IllegalStateException("坏数据：" + i);
+                }
+                return i % 2 == 0 ? null : i;  // 偶数被过滤
+            })
+            .to("sink", 1, 16, i -> received.incrementAndGet());
+
+        assertTrue(run.awaitCompletion(10, TimeUnit.SECONDS));
+        assertEquals(500, received.get());
+        assertEquals(100, run.stats().get(1).failures);
+        assertEquals(900, run.stats().get(1).processed);
+    }
+
+    @Test
+    public void testSlowSinkBackPressuresSource() throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        Pipeline.Run run = Pipeline.from("source", 1, () -> {
+                int i = next.getAndIncrement();
+                return i < 200 ? i : null;
+            })
+            .batchSize(4)
+            .to("slow", 1, 8, i -> sleep(1));
+
+        Thread.sleep(50);
+        assertTrue(next.get() < 100);  // source 被有界队列挡住
+        assertTrue(run.awaitCompletion(10, TimeUnit.SECONDS));
+        Pipeline.StageStats source = run.stats().get(0);
+        assertTrue(source.blockedMillis > 0);
+        int maxDepth = run.stats().get(1).maxQueueDepth;
+        assertTrue(maxDepth >= 4 && maxDepth <= 8);  // 队列容量为 8
+    }
+
+    @Test
+    public void testCancelStopsWorkers() throws InterruptedException {
+        Pipeline.Run run = Pipeline.from("endless", 2, () -> 1)
+            .to("slow", 2, 16, i -> sleep(1));
+        assertFalse(run.awaitCompletion(50, TimeUnit.MILLISECONDS));
+        run.close();
+        assertTrue(run.isDone());
+        assertThrows(IllegalArgumentException.class, () -> Pipeline.from("bad", 0, () -> 1));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.hry.firstjava;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RingBlockingQueue 的测试类
+ */
+public class RingBlockingQueueTest {
+
+    @Test
+    public void testFifoAndCapacity() {
+        for (RingBlockingQueue<Integer> queue : List.of(
+                RingBlockingQueue.<Integer>mpmc(5), RingBlockingQueue.<Integer>mpsc(5), RingBlockingQueue.<Integer>spsc(5))) {
+            assertEquals(8, queue.capacity());  // 向上取整为 2 的幂
+            for (int round = 0; round < 3; round++) {  // 多绕几圈
+                for (int i = 0; i < 8; i++) {
+                    assertTrue(queue.offer(i));
+                }
+                assertFalse(queue.offer(8));
+                assertEquals(8, queue.size());
+                assertEquals(0, queue.remainingCapacity());
+                assertEquals(0, queue.peek());
+                for (int i = 0; i < 8; i++) {
+                    assertEquals(i, queue.poll());
+                }
+                assertNull(queue.poll());
+                assertTrue(queue.isEmpty());
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> RingBlockingQueue.mpmc(0));
+    }
+
+    @Test
+    public void testSnapshotIterator() {
+        for (RingBlockingQueue<Integer> queue : List.of(
+                RingBlockingQueue.<Integer>mpmc(4), RingBlockingQueue.<Integer>mpsc(4), RingBlockingQueue.<Integer>spsc(4))) {
+            for (int i = 0; i < 6; i++) {  // 让下标绕过一圈
+                queue.offer(i);
+                if (i >= 2) {
+                    queue.poll();
+                }
+            }
+            assertEquals("[4, 5]", queue.toString());
+            assertArrayEquals(new Object[]{4, 5}, queue.toArray());
+            assertTrue(queue.contains(5));
+            assertFalse(queue.contains(3));
+            assertTrue(queue.containsAll(List.of(4, 5)));
+
+            Iterator<Integer> it = queue.iterator();
+            queue.poll();
+            queue.offer(6);
+            List<Integer> seen = new ArrayList<>();
+            it.forEachRemaining(seen::add);
+            assertEquals(List.of(4, 5), seen);  // 快照不反映之后的修改
+        }
+    }
+
+    @Test
+    public void testRemoveAndBulkRemoval() {
+        RingBlockingQueue<Integer> queue = RingBlockingQueue.mpmc(8);
+        for (int i = 0; i < 8; i++) {
+            queue.offer(i % 4);  // 0 1 2 3 0 1 2 3
+        }
+        assertTrue(queue.remove(Integer.valueOf(0)));
+        assertEquals(7, queue.size());
+        assertEquals(0, queue.remainingCapacity());  // 出队前仍占用槽
+        assertEquals(1, queue.peek());
+        assertEquals("[1, 2, 3, 0, 1, 2, 3]", queue.toString());
+        assertTrue(queue.removeAll(List.of(2)));
+        assertTrue(queue.retainAll(List.of(0, 1)));
+        assertEquals("[1, 0, 1]", queue.toString());
+        assertFalse(queue.remove(Integer.valueOf(3)));
+        assertFalse(queue.remove(null));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(1, queue.poll());
+        assertEquals(2, queue.drainTo(drained));
+        assertEquals(List.of(0, 1), drained);
+        assertTrue(queue.isEmpty());
+        for (int i = 0; i < 8; i++) {  // 已删除的元素出队后槽可以复用
+            assertTrue(queue.offer(i));
+        }
+
+        for (RingBlockingQueue<Integer> single : List.of(
+                RingBlockingQueue.<Integer>mpsc(4), RingBlockingQueue.<Integer>spsc(4))) {
+            single.offer(1);
+            assertThrows(UnsupportedOperationException.class, () -> single.remove(1));
+        }
+    }
+
+    @Test
+    public void testRemoveRacingWithConsumersNeverDuplicates() throws InterruptedException {
+        RingBlockingQueue<Integer> queue = RingBlockingQueue.mpmc(64);
+        int total = 200_000;
+        AtomicInteger consumed = new AtomicInteger();
+        AtomicInteger removed = new AtomicInteger();
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < total; i++) {
+                try {
+                    queue.put(i);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        List<Thread> consumers = new ArrayList<>();
+        for (int t = 0; t < 2; t++) {
+            consumers.add(new Thread(() -> {
+                while (consumed.get() + removed.get() < total) {
+                    if (queue.poll() != null) {
+                        consumed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        Thread remover = new Thread(() -> {
+            for (int i = 0; i < total; i += 7) {
+                if (queue.remove(i)) {  // 成功删除的元素不能再被消费者取到
+                    removed.incrementAndGet();
+                }
+            }
+        });
+        producer.start();
+        consumers.forEach(Thread::start);
+        remover.start();
+        producer.join();
+        remover.join();
+        for (Thread consumer : consumers) {
+            consumer.join(10_000);
+            assertFalse(consumer.isAlive());
+        }
+        assertEquals(total, consumed.get() + removed.get());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testWorksAsExecutorWorkQueue() throws InterruptedException {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            RingBlockingQueue.<Runnable>mpmc(16));
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        AtomicInteger ran = new AtomicInteger();
+        Runnable queued = ran::incrementAndGet;
+        executor.execute(queued);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(executor.submit(ran::incrementAndGet));
+        }
+        assertTrue(executor.remove(queued));
+        futures.get(1).cancel(false);
+        futures.get(3).cancel(false);
+        executor.purge();  // 通过迭代器删除已取消的任务
+        assertEquals(2, executor.getQueue().size());
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(2, ran.get());
+
+        ThreadPoolExecutor stopped = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            RingBlockingQueue.<Runnable>mpmc(16));
+        CountDownLatch blocked = new CountDownLatch(1);
+        stopped.execute(() -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        stopped.execute(ran::incrementAndGet);
+        stopped.execute(ran::incrementAndGet);
+        assertEquals(2, stopped.shutdownNow().size());
+        assertTrue(stopped.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testTimedPollAndOffer() throws InterruptedException {
+        RingBlockingQueue<String> queue = RingBlockingQueue.mpmc(1);
+        assertEquals(2, queue.capacity());
+        assertNull(queue.poll(20, TimeUnit.MILLISECONDS));
+        assertTrue(queue.offer("a", 20, TimeUnit.MILLISECONDS));
+        assertTrue(queue.offer("b", 20, TimeUnit.MILLISECONDS));
+        assertFalse(queue.offer("c", 20, TimeUnit.MILLISECONDS));
+        List<String> drained = new ArrayList<>();
+        assertEquals(2, queue.drainTo(drained));
+        assertEquals(List.of("a", "b"), drained);
+    }
+
+    @Test
+    public void testMpmcDeliversEveryElementOnce() throws InterruptedException {
+        assertDeliversEveryElementOnce(RingBlockingQueue.mpmc(16), 4, 4);
+    }
+
+    @Test
+    public void testMpscKeepsPerProducerOrder() throws InterruptedException {
+        assertDeliversEveryElementOnce(RingBlockingQueue.mpsc(16), 4, 1);
+    }
+
+    @Test
+    public void testSpscKeepsOrder() throws InterruptedException {
+        assertDeliversEveryElementOnce(RingBlockingQueue.spsc(16), 1, 1);
+    }
+
+    /**
+     * 生产者用 put 写入 (producer, i)，消费者用 take 读取：
+     * 总和必须一致，且同一个生产者的元素在同一个消费者看来是递增的
+     */
+    private void assertDeliversEveryElementOnce(RingBlockingQueue<long[]> queue, int producers, int consumers)
+            throws InterruptedException {
+        int perProducer = 50_000;
+        int total = producers * perProducer;
+        AtomicInteger taken = new AtomicInteger();
+        AtomicLong sum = new AtomicLong();
+        AtomicInteger outOfOrder = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < perProducer; i++) {
+                        queue.put(new long[] {producer, i});
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (int c = 0; c < consumers; c++) {
+            threads.add(new Thread(() -> {
+                long[] last = new long[producers];
+                Arrays.fill(last, -1);
+                try {
+                    while (taken.get() < total) {
+                        long[] e = queue.poll(10, TimeUnit.MILLISECONDS);
+                        if (e == null) {
+                            continue;
+                        }
+                        taken.incrementAndGet();
+                        sum.addAndGet(e[1]);
+                        if (e[1] <= last[(int) e[0]]) {
+                            outOfOrder.incrementAndGet();
+                        }
+                        last[(int) e[0]] = e[1];
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join(30_000);
+        }
+        assertEquals(total, taken.get());
+        assertEquals((long) producers * perProducer * (perProducer - 1) / 2, sum.get());
+        assertEquals(0, outOfOrder.get());
+        assertTrue(queue.isEmpty());
+    }
+}
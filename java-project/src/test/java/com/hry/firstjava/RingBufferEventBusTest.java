@@ -0,0 +1,104 @@
+package com.hry.firstjava;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RingBufferEventBus 的测试类
+ */
+public class RingBufferEventBusTest {
+
+    static final class LongEvent {
+        long value;
+    }
+
+    private static void runOrdered(WaitStrategy waitStrategy) {
+        // 缓冲区很小，发布者会反复等待最慢的处理器
+        RingBufferEventBus<LongEvent> bus = new RingBufferEventBus<>(LongEvent::new, 8, waitStrategy);
+        int handlers = 3;
+        long[] expected = new long[handlers];
+        long[] outOfOrder = new long[handlers];
+        long[] sums = new long[handlers];
+        for (int h = 0; h < handlers; h++) {
+            int index = h;
+            bus.addHandler((event, sequence, endOfBatch) -> {
+                if (event.value != expected[index] || sequence != expected[index]) {
+                    outOfOrder[index]++;
+                }
+                expected[index]++;
+                sums[index] += event.value;
+                if (index == 0 && sequence % 1000 == 0) {
+                    Thread.yield();  // 一个慢一点的处理器
+                }
+            });
+        }
+        bus.start();
+        int events = 100_000;
+        for (long i = 0; i < events; i++) {
+            bus.publishLong((event, value) -> event.value = value, i);
+        }
+        bus.close();  // 等待处理完
+        for (int h = 0; h < handlers; h++) {
+            assertEquals(0, outOfOrder[h]);
+            assertEquals(events, expected[h]);
+            assertEquals((long) events * (events - 1) / 2, sums[h]);
+        }
+    }
+
+    @Test
+    public void testDeliversEveryEventInOrderToEveryHandler() {
+        runOrdered(WaitStrategy.busySpin());
+        runOrdered(WaitStrategy.yielding());
+        runOrdered(WaitStrategy.parking(10_000));
+    }
+
+    @Test
+    public void testBatchesAndFailures() {
+        RingBufferEventBus<LongEvent> bus = new RingBufferEventBus<>(LongEvent::new, 1024, WaitStrategy.yielding());
+        AtomicLong batches = new AtomicLong();
+        AtomicLong seen = new AtomicLong();
+        bus.addHandler((event, sequence, endOfBatch) -> {
+            seen.incrementAndGet();
+            if (endOfBatch) {
+                batches.incrementAndGet();
+            }
+            if (event.value % 10 == 0) {
+                throw new IllegalStateException("失败的事件不会阻塞后续事件");
+            }
+        });
+        bus.start();
+        assertThrows(IllegalStateException.class, () -> bus.addHandler((event, sequence, endOfBatch) -> { }));
+        for (long i = 0; i < 1000; i++) {
+            bus.publish((event, value) -> event.value = value, i);
+        }
+        bus.close();
+        assertEquals(1000, seen.get());
+        assertEquals(100, bus.failureCount());
+        assertTrue(batches.get() >= 1 && batches.get() <= 1000);
+        assertEquals(999, bus.cursor());
+        assertThrows(IllegalStateException.class, () -> bus.publishLong((event, value) -> event.value = value, 1));
+        assertThrows(IllegalArgumentException.class, () -> new RingBufferEventBus<>(LongEvent::new, 1000, WaitStrategy.yielding()));
+    }
+
+    @Test
+    public void testDeadHandlerDoesNotHangPublisherOrClose() {
+        RingBufferEventBus<LongEvent> bus = new RingBufferEventBus<>(LongEvent::new, 8, WaitStrategy.yielding());
+        bus.addHandler((event, sequence, endOfBatch) -> {
+            if (sequence == 3) {
+                throw new Error("处理器线程崩溃");  // 不是 RuntimeException：线程退出，序号停在原处
+            }
+        });
+        bus.addHandler((event, sequence, endOfBatch) -> { });
+        bus.start();
+        assertThrows(IllegalStateException.class, () -> {
+            for (long i = 0; i < 100; i++) {
+                bus.publishLong((event, value) -> event.value = value, i);
+            }
+        });
+        bus.close();  // 不等已经退出的处理器
+        assertTrue(bus.cursor() < 8 + 3);  // 最多比崩溃的处理器多发布一圈
+    }
+}
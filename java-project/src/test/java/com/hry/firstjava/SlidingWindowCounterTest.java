@@ -0,0 +1,77 @@
+package com.hry.firstjava;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SlidingWindowCounter 的测试类
+ */
+public class SlidingWindowCounterTest {
+    private static final Duration SECOND = Duration.ofSeconds(1);
+    private static final Duration MINUTE = Duration.ofMinutes(1);
+
+    @Test
+    public void testOldBucketsLeaveTheWindow() {
+        AtomicLong now = new AtomicLong();
+        SlidingWindowCounter counter = new SlidingWindowCounter(10, now::get, SECOND, MINUTE);
+        counter.add("a", 5);
+        assertEquals(5, counter.getCount("a", SECOND));
+
+        now.addAndGet(Duration.ofMillis(500).toNanos());
+        counter.increment("a");
+        assertEquals(6, counter.getCount("a", SECOND));
+
+        now.addAndGet(Duration.ofMillis(600).toNanos());  // 1.1 秒：第一次记录已移出 1 秒窗口
+        assertEquals(1, counter.getCount("a", SECOND));
+        assertEquals(6, counter.getCount("a", MINUTE));
+
+        now.addAndGet(Duration.ofSeconds(61).toNanos());
+        assertEquals(0, counter.getCount("a", SECOND));
+        assertEquals(0, counter.getCount("a", MINUTE));
+        counter.increment("a");  // 复用过期的桶
+        assertEquals(1, counter.getCount("a", MINUTE));
+        assertEquals(1.0 / 60, counter.rate("a", MINUTE), 1e-9);
+
+        assertEquals(0, counter.getCount("missing", SECOND));
+        assertThrows(IllegalArgumentException.class, () -> counter.getCount("a", Duration.ofHours(1)));
+    }
+
+    @Test
+    public void testRejectsNegativeDeltaAndSaturates() {
+        AtomicLong now = new AtomicLong();
+        SlidingWindowCounter counter = new SlidingWindowCounter(10, now::get, SECOND);
+        counter.add("k", 5);
+        assertThrows(IllegalArgumentException.class, () -> counter.add("k", -6));
+        assertEquals(5, counter.getCount("k", SECOND));
+
+        // 计数饱和在 40 位上限，不会进位到时间序号导致整个桶被当作过期
+        counter.add("k", Long.MAX_VALUE);
+        counter.add("k", 1);
+        assertEquals((1L << 40) - 1, counter.getCount("k", SECOND));
+    }
+
+    @Test
+    public void testConcurrentIncrements()throws InterruptedException {
+        SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofMinutes(5));
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    counter.increment("hot");
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(200_000, counter.getCount("hot", Duration.ofMinutes(5)));
+    }
+}
@@ -0,0 +1,212 @@
+package com.hry.firstjava;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ThreadSafeCounter 的测试类
+ */
+public class ThreadSafeCounterTest {
+
+    @Test
+    public void testCountsPerKey() {
+        for (ThreadSafeCounter.Mode mode : ThreadSafeCounter.Mode.values()) {
+            ThreadSafeCounter counter = new ThreadSafeCounter(mode);
+            counter.increment("a");
+            counter.increment("a");
+            counter.add("b", 5);
+            assertEquals(2, counter.getCount("a"));
+            assertEquals(5, counter.getCount("b"));
+            assertEquals(0, counter.getCount("missing"));
+            assertEquals(Map.of("a", 2L, "b", 5L), counter.snapshotAndReset());
+            assertEquals(0, counter.getCount("a"));
+            assertTrue(counter.snapshotAndReset().isEmpty());
+        }
+    }
+
+    @Test
+    public void testSnapshotsDuringConcurrentIncrementsLoseNothing() throws InterruptedException {
+        for (ThreadSafeCounter.Mode mode : ThreadSafeCounter.Mode.values()) {
+            ThreadSafeCounter counter = new ThreadSafeCounter(mode);
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicLong exported = new AtomicLong();
+            Thread exporter = new Thread(() -> {
+                while (running.get()) {
+                    counter.snapshotAndReset().values().forEach(exported::addAndGet);
+                }
+            });
+            exporter.start();
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread writer = new Thread(() -> {
+                    for (int i = 0; i < 100_000; i++) {
+                        counter.increment("key" + (i % 4));
+                    }
+                });
+                writers.add(writer);
+                writer.start();
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            running.set(false);
+            exporter.join();
+            counter.snapshotAndReset().values().forEach(exported::addAndGet);
+            assertEquals(400_000, exported.get(), mode.name());
+        }
+    }
+
+    /**
+     * Zipf 分布的 key：少数 key 占大部分次数，key 总数远大于监控容量
+     */
+    private static String[] zipfStream(int length, int distinctKeys, long seed) {
+        double[] cumulative = new double[distinctKeys];
+        double sum = 0;
+        for (int i = 0; i < distinctKeys; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        Random random = new Random(seed);
+        String[] stream = new String[length];
+        for (int i = 0; i < length; i++) {
+            double target = random.nextDouble() * sum;
+            int index = Arrays.binarySearch(cumulative, target);
+            stream[i] = "user:" + (index < 0 ? -index - 1 : index);
+        }
+        return stream;
+    }
+
+    @Test
+    public void testApproximateCountsWithinErrorBounds() {
+        double epsilon = 0.001;
+        double delta = 0.01;
+        int capacity = 100;
+        ThreadSafeCounter counter = ThreadSafeCounter.approximate(epsilon, delta, capacity);
+        String[] stream = zipfStream(200_000, 50_000, 7);
+        Map<String, Long> exact = new HashMap<>();
+        for (String key : stream) {
+            counter.increment(key);
+            exact.merge(key, 1L, Long::sum);
+        }
+        long n = stream.length;
+
+        // 点查询：从不低估，超出 epsilon × N 的比例不超过 delta
+        int violations = 0;
+        for (Map.Entry<String, Long> entry : exact.entrySet()) {
+            long estimate = counter.getCount(entry.getKey());
+            assertTrue(estimate >= entry.getValue(), entry.getKey());
+            if (estimate - entry.getValue() > epsilon * n) {
+                violations++;
+            }
+        }
+        assertTrue(violations <= delta * exact.size(), "超出误差的 key 数：" + violations);
+
+        // top-K：次数超过 N / capacity 的 key 全部出现，次数误差不超过 N / capacity
+        Map<String, Long> top = counter.topK(capacity);
+        for (Map.Entry<String, Long> entry : exact.entrySet()) {
+            if (entry.getValue() > n / capacity) {
+                assertTrue(top.containsKey(entry.getKey()), "缺少重度访问者 " + entry.getKey());
+            }
+        }
+        for (Map.Entry<String, Long> entry : top.entrySet()) {
+            long actual = exact.getOrDefault(entry.getKey(), 0L);
+            assertTrue(entry.getValue() >= actual);
+            assertTrue(entry.getValue() - actual <= Math.min(epsilon * n, (double) n / capacity), entry.getKey());
+        }
+        assertEquals("user:0", counter.topK(1).keySet().iterator().next());
+    }
+
+    @Test
+    public void testApproximateConcurrentUpdates() throws InterruptedException {
+        int capacity = 50;
+        ThreadSafeCounter counter = ThreadSafeCounter.approximate(0.001, 0.01, capacity);
+        List<String[]> streams = new ArrayList<>();
+        Map<String, Long> exact = new HashMap<>();
+        for (int t = 0; t < 4; t++) {
+            String[] stream = zipfStream(50_000, 20_000, t);
+            streams.add(stream);
+            for (String key : stream) {
+                exact.merge(key, 1L, Long::sum);
+            }
+        }
+        List<Thread> threads = new ArrayList<>();
+        for (String[] stream : streams) {
+            Thread thread = new Thread(() -> {
+                for (String key : stream) {
+                    counter.increment(key);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long n = 200_000;
+        Map<String, Long> top = counter.topK(capacity);
+        for (Map.Entry<String, Long> entry : exact.entrySet()) {
+            assertTrue(counter.getCount(entry.getKey()) >= entry.getValue());
+            if (entry.getValue() > n / capacity) {
+                assertTrue(top.containsKey(entry.getKey()), "缺少重度访问者 " + entry.getKey());
+                assertTrue(top.get(entry.getKey()) - entry.getValue() <= n / capacity);
+            }
+        }
+
+        Map<String, Long> snapshot = counter.snapshotAndReset();
+        assertEquals(top.keySet(), snapshot.keySet());
+        assertEquals(0, counter.getCount("user:0"));
+        assertTrue(counter.topK(10).isEmpty());
+    }
+
+    @Test
+    public void testMergesStripedSummaries() {
+        int capacity = 20;
+        HeavyHitters heavyHitters = new HeavyHitters(0.001, 0.01, capacity, 8);
+        Map<String, Long> exact = new HashMap<>();
+        long n = 0;
+        // 每个线程落在不同的条上，各条的 key 分布也不同
+        for (int t = 0; t < 8; t++) {
+            String[] stream = zipfStream(20_000, 5_000, 100 + t);
+            for (int i = 0; i < stream.length; i++) {
+                stream[i] = t % 2 == 0 ? stream[i] : stream[i] + ":" + t;
+            }
+            for (String key : stream) {
+                exact.merge(key, 1L, Long::sum);
+            }
+            n += stream.length;
+            Thread thread = new Thread(() -> {
+                for (String key : stream) {
+                    heavyHitters.add(key, 1);
+                }
+            });
+            thread.start();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        assertEquals(n, heavyHitters.total());
+        Map<String, Long> top = new HashMap<>();
+        heavyHitters.topK(Integer.MAX_VALUE).forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        for (Map.Entry<String, Long> entry : exact.entrySet()) {
+            if (entry.getValue() > n / capacity) {
+                assertTrue(top.containsKey(entry.getKey()), "缺少重度访问者 " + entry.getKey());
+            }
+        }
+        for (Map.Entry<String, Long> entry : top.entrySet()) {
+            long actual = exact.getOrDefault(entry.getKey(), 0L);
+            assertTrue(entry.getValue() >= actual && entry.getValue() - actual <= n / capacity, entry.getKey());
+        }
+    }
+}